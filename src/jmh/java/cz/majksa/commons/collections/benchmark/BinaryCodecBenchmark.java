@@ -0,0 +1,114 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.BinaryCodecBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.codec.BinaryCodec;
+import cz.majksa.commons.collections.codec.StreamCodec;
+import cz.majksa.commons.collections.map.CheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * <p><b>Class {@link BinaryCodecBenchmark}</b></p>
+ * <p>Measures writing and reading a {@link CheckedMap} of ids by {@link BinaryCodec} next to Java serialization.
+ * Id {@code i} is {@code i * 17}, the same spread as in {@link PrimitiveCheckedMapBenchmark}.</p>
+ * <p>{@link #main(String[])} prints the encoded sizes.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class BinaryCodecBenchmark {
+
+    private static final int STRIDE = 17;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private CheckedMap<Long, Long> map;
+    private byte[] binary;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new CheckedMap<>(size);
+        for (int i = 0; i < size; i++) {
+            map.put((long) i * STRIDE, (long) i);
+        }
+        binary = binaryWrite().toByteArray();
+        serialized = serializationWrite().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream binaryWrite() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeMap(map, Channels.newChannel(bytes), StreamCodec.LONG, StreamCodec.LONG);
+        return bytes;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream serializationWrite() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(map);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public CheckedMap<Long, Long> binaryRead() throws IOException {
+        return BinaryCodec.readMap(Channels.newChannel(new ByteArrayInputStream(binary)), StreamCodec.LONG, StreamCodec.LONG);
+    }
+
+    @Benchmark
+    public Object serializationRead() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return input.readObject();
+        }
+    }
+
+    /**
+     * Prints the encoded sizes of the map.
+     *
+     * @param args the sizes to measure, {@code 100000} by default
+     * @throws IOException never, the map is written into memory
+     */
+    public static void main(String[] args) throws IOException {
+        final String[] sizes = args.length == 0 ? new String[]{"100000"} : args;
+        for (String size : sizes) {
+            final BinaryCodecBenchmark benchmark = new BinaryCodecBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.setup();
+            System.out.printf("size=%s BinaryCodec=%.1f serialization=%.1f B/entry%n", size,
+                    (double) benchmark.binary.length / benchmark.size, (double) benchmark.serialized.length / benchmark.size);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.CheckedBiMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedBiMap;
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <p><b>Class {@link CheckedBiMapBenchmark}</b></p>
+ * <p>Measures the value lookups of {@link CheckedBiMap} next to the scan of a {@link CheckedMap},
+ * the unique store of both, and the value lookups of a {@link TriHashMap} with and without its value index.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class CheckedBiMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+    private static final int COLUMNS = 8;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Object[] keys;
+    private Object[] values;
+    private Object[] absentKeys;
+    private int[] order;
+    private int cursor;
+
+    private CheckedMap<Object, Object> checkedMap;
+    private CheckedBiMap<Object, Object> biMap;
+    private TriHashMap<Object, Object, Object> triMap;
+    private TriHashMap<Object, Object, Object> indexedTriMap;
+
+    @Setup
+    public void setup() {
+        keys = KeyType.INTEGER.createAll(size);
+        values = KeyType.STRING.createAll(size);
+        absentKeys = new Object[ACCESS_MASK + 1];
+        for (int i = 0; i < absentKeys.length; i++) {
+            absentKeys[i] = KeyType.INTEGER.create(size + i);
+        }
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        biMap = new CheckedBiMap<>(size);
+        triMap = new TriHashMap<>();
+        indexedTriMap = new TriHashMap<>(TriHashMap.Index.VALUE);
+        for (int i = 0; i < size; i++) {
+            checkedMap.put(keys[i], values[i]);
+            biMap.put(keys[i], values[i]);
+            triMap.put(keys[i / COLUMNS], keys[i % COLUMNS], values[i]);
+            indexedTriMap.put(keys[i / COLUMNS], keys[i % COLUMNS], values[i]);
+        }
+    }
+
+    private int next() {
+        return cursor++ & ACCESS_MASK;
+    }
+
+    @Benchmark
+    public boolean checkedContainsValue() {
+        return checkedMap.containsValue(values[order[next()]]);
+    }
+
+    @Benchmark
+    public boolean biMapContainsValue() {
+        return biMap.containsValue(values[order[next()]]);
+    }
+
+    @Benchmark
+    public Object biMapInverseGet() {
+        return biMap.inverse().get(values[order[next()]]);
+    }
+
+    /**
+     * Stores a unique value the way done without the index, scanning the values first.
+     */
+    @Benchmark
+    public Object checkedUniquePutRemove() {
+        final int i = next();
+        final Object key = absentKeys[i];
+        if (!checkedMap.containsValue(key)) {
+            checkedMap.put(key, key);
+        }
+        return checkedMap.remove(key);
+    }
+
+    @Benchmark
+    public Object biMapPutRemove() {
+        final Object key = absentKeys[next()];
+        biMap.put(key, key);
+        return biMap.remove(key);
+    }
+
+    @Benchmark
+    public boolean triMapContainsValue() {
+        return triMap.containsValue(values[order[next()]]);
+    }
+
+    @Benchmark
+    public boolean indexedTriMapContainsValue() {
+        return indexedTriMap.containsValue(values[order[next()]]);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.CheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.result.Slot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link CheckedMapBenchmark}</b></p>
+ * <p>Measures the checked operations of {@link CheckedMap} next to the same operations on a raw {@link HashMap}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class CheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private Object[] keys;
+    private Object[] absentKeys;
+    private int[] order;
+    private int cursor;
+
+    private final Slot<Object> slot = new Slot<>();
+    private CheckedMap<Object, Object> checkedMap;
+    private Map<Object, Object> hashMap;
+
+    @Setup
+    public void setup() {
+        keys = keyType.createAll(size);
+        absentKeys = new Object[ACCESS_MASK + 1];
+        for (int i = 0; i < absentKeys.length; i++) {
+            absentKeys[i] = keyType.create(size + i);
+        }
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        hashMap = new HashMap<>(size);
+        for (Object key : keys) {
+            checkedMap.put(key, key);
+            hashMap.put(key, key);
+        }
+    }
+
+    private int next() {
+        return cursor++ & ACCESS_MASK;
+    }
+
+    @Benchmark
+    public Object checkedGet() {
+        return checkedMap.get(keys[order[next()]]);
+    }
+
+    @Benchmark
+    public Object hashMapGet() {
+        return hashMap.get(keys[order[next()]]);
+    }
+
+    @Benchmark
+    public boolean checkedTryGet() {
+        return checkedMap.tryGet(keys[order[next()]], slot);
+    }
+
+    @Benchmark
+    public boolean checkedTryGetMiss() {
+        return checkedMap.tryGet(absentKeys[next()], slot);
+    }
+
+    @Benchmark
+    public boolean checkedTryPutExisting() {
+        final Object key = keys[order[next()]];
+        return checkedMap.tryPut(key, key);
+    }
+
+    @Benchmark
+    public boolean checkedTryRemoveMiss() {
+        return checkedMap.tryRemove(absentKeys[next()], slot);
+    }
+
+    @Benchmark
+    public CheckedMap<Object, Object> checkedCopy() {
+        return new CheckedMap<>(hashMap);
+    }
+
+    @Benchmark
+    public CheckedMap<Object, Object> checkedWrap() {
+        return CheckedMap.wrap(hashMap);
+    }
+
+    @Benchmark
+    public Object checkedPutRemove() {
+        final Object key = absentKeys[next()];
+        checkedMap.put(key, key);
+        return checkedMap.remove(key);
+    }
+
+    @Benchmark
+    public Object hashMapPutRemove() {
+        final Object key = absentKeys[next()];
+        hashMap.put(key, key);
+        return hashMap.remove(key);
+    }
+
+    @Benchmark
+    public Object checkedReplace() {
+        final Object key = keys[order[next()]];
+        return checkedMap.replace(key, key);
+    }
+
+    @Benchmark
+    public Object hashMapReplace() {
+        final Object key = keys[order[next()]];
+        return hashMap.replace(key, key);
+    }
+
+    @Benchmark
+    public boolean checkedReplaceExpected() {
+        final Object key = keys[order[next()]];
+        return checkedMap.replace(key, key, key);
+    }
+
+    @Benchmark
+    public boolean hashMapReplaceExpected() {
+        final Object key = keys[order[next()]];
+        return hashMap.replace(key, key, key);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.CheckedMapPutAllBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link CheckedMapPutAllBenchmark}</b></p>
+ * <p>Measures loading {@code size} entries into an empty {@link CheckedMap} in batches of {@code batchSize},
+ * by the atomic {@link CheckedMap#putAll(Map)}, by one {@link CheckedMap#put(Object, Object)} per entry,
+ * and by {@link HashMap#putAll(Map)} on a raw {@link HashMap}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class CheckedMapPutAllBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"1000", "100000"})
+    private int batchSize;
+
+    @Param({"STRING", "INTEGER"})
+    private KeyType keyType;
+
+    private List<Map<Object, Object>> batches;
+
+    @Setup
+    public void setup() {
+        final Object[] keys = keyType.createAll(size);
+        batches = new ArrayList<>();
+        for (int i = 0; i < size; i += batchSize) {
+            batches.add(new LinkedHashMap<>());
+        }
+        for (int i = 0; i < size; i++) {
+            batches.get(i / batchSize).put(keys[i], keys[i]);
+        }
+    }
+
+    @Benchmark
+    public CheckedMap<Object, Object> checkedPutAll() {
+        final CheckedMap<Object, Object> map = new CheckedMap<>();
+        for (Map<Object, Object> batch : batches) {
+            map.putAll(batch);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public CheckedMap<Object, Object> checkedPutEach() {
+        final CheckedMap<Object, Object> map = new CheckedMap<>();
+        for (Map<Object, Object> batch : batches) {
+            for (Map.Entry<Object, Object> entry : batch.entrySet()) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Object, Object> hashMapPutAll() {
+        final Map<Object, Object> map = new HashMap<>();
+        for (Map<Object, Object> batch : batches) {
+            map.putAll(batch);
+        }
+        return map;
+    }
+
+}
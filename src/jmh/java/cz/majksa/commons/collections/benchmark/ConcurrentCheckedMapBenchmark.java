@@ -0,0 +1,151 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.ConcurrentCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.ConcurrentCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p><b>Class {@link ConcurrentCheckedMapBenchmark}</b></p>
+ * <p>Measures {@link ConcurrentCheckedMap} shared by all the cores, next to a synchronized {@link CheckedMap}
+ * and a raw {@link ConcurrentHashMap}. Run with {@code -t} to change the number of threads.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+public class ConcurrentCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private Object[] keys;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    private ConcurrentCheckedMap<Object, Object> concurrentCheckedMap;
+    private Map<Object, Object> synchronizedCheckedMap;
+    private ConcurrentHashMap<Object, Object> concurrentHashMap;
+
+    /**
+     * Per thread access order and keys absent from the maps, disjoint between the threads.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int[] order;
+        private Object[] absentKeys;
+        private int cursor;
+
+        @Setup
+        public void setup(ConcurrentCheckedMapBenchmark benchmark) {
+            final int thread = benchmark.threads.getAndIncrement();
+            order = KeyType.accessOrder(benchmark.size, ACCESS_MASK + 1);
+            absentKeys = new Object[ACCESS_MASK + 1];
+            for (int i = 0; i < absentKeys.length; i++) {
+                absentKeys[i] = benchmark.keyType.create(benchmark.size + thread * absentKeys.length + i);
+            }
+            cursor = thread * 97;
+        }
+
+        private int next() {
+            return cursor++ & ACCESS_MASK;
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        keys = keyType.createAll(size);
+        concurrentCheckedMap = new ConcurrentCheckedMap<>(size);
+        synchronizedCheckedMap = Collections.synchronizedMap(new CheckedMap<>(size));
+        concurrentHashMap = new ConcurrentHashMap<>(size);
+        for (Object key : keys) {
+            concurrentCheckedMap.put(key, key);
+            synchronizedCheckedMap.put(key, key);
+            concurrentHashMap.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public Object concurrentCheckedGet(Cursor cursor) {
+        return concurrentCheckedMap.get(keys[cursor.order[cursor.next()]]);
+    }
+
+    @Benchmark
+    public Object synchronizedCheckedGet(Cursor cursor) {
+        return synchronizedCheckedMap.get(keys[cursor.order[cursor.next()]]);
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGet(Cursor cursor) {
+        return concurrentHashMap.get(keys[cursor.order[cursor.next()]]);
+    }
+
+    @Benchmark
+    public Object concurrentCheckedPutRemove(Cursor cursor) {
+        final Object key = cursor.absentKeys[cursor.next()];
+        concurrentCheckedMap.put(key, key);
+        return concurrentCheckedMap.remove(key);
+    }
+
+    @Benchmark
+    public Object synchronizedCheckedPutRemove(Cursor cursor) {
+        final Object key = cursor.absentKeys[cursor.next()];
+        synchronizedCheckedMap.put(key, key);
+        return synchronizedCheckedMap.remove(key);
+    }
+
+    @Benchmark
+    public Object concurrentHashMapPutRemove(Cursor cursor) {
+        final Object key = cursor.absentKeys[cursor.next()];
+        concurrentHashMap.put(key, key);
+        return concurrentHashMap.remove(key);
+    }
+
+    @Benchmark
+    public Object concurrentCheckedReplace(Cursor cursor) {
+        final Object key = keys[cursor.order[cursor.next()]];
+        return concurrentCheckedMap.replace(key, key);
+    }
+
+    @Benchmark
+    public Object synchronizedCheckedReplace(Cursor cursor) {
+        final Object key = keys[cursor.order[cursor.next()]];
+        return synchronizedCheckedMap.replace(key, key);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.ConcurrentTriHashMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.multi.ConcurrentTriHashMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p><b>Class {@link ConcurrentTriHashMapBenchmark}</b></p>
+ * <p>Measures {@link ConcurrentTriHashMap} shared by all the cores, next to a {@link TriHashMap} behind a global lock.
+ * Every thread writes into its own rows, entry {@code i} is stored under the row {@code i / ROW_WIDTH}
+ * and the column {@code i % ROW_WIDTH}. Run with {@code -t} to change the number of threads.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+public class ConcurrentTriHashMapBenchmark {
+
+    private static final int ROW_WIDTH = 16;
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private Object[] keys1;
+    private Object[] keys2;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    private ConcurrentTriHashMap<Object, Object, Object> concurrentMap;
+    private TriHashMap<Object, Object, Object> lockedMap;
+    private final Object lock = new Object();
+
+    /**
+     * Per thread access order and rows disjoint between the threads, holding a single cell in the first column.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int[] order;
+        private Object[] ownRows;
+        private int cursor;
+
+        @Setup
+        public void setup(ConcurrentTriHashMapBenchmark benchmark) {
+            final int thread = benchmark.threads.getAndIncrement();
+            order = KeyType.accessOrder(benchmark.size, ACCESS_MASK + 1);
+            ownRows = new Object[ACCESS_MASK + 1];
+            for (int i = 0; i < ownRows.length; i++) {
+                ownRows[i] = benchmark.keyType.create(benchmark.size + thread * ownRows.length + i);
+                benchmark.concurrentMap.put(ownRows[i], benchmark.keys2[0], benchmark.keys2[0]);
+                synchronized (benchmark.lock) {
+                    benchmark.lockedMap.put(ownRows[i], benchmark.keys2[0], benchmark.keys2[0]);
+                }
+            }
+            cursor = thread * 97;
+        }
+
+        private int next() {
+            return cursor++ & ACCESS_MASK;
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        keys1 = keyType.createAll(size / ROW_WIDTH + 1);
+        keys2 = keyType.createAll(ROW_WIDTH);
+        concurrentMap = new ConcurrentTriHashMap<>();
+        lockedMap = new TriHashMap<>();
+        for (int i = 0; i < size; i++) {
+            concurrentMap.put(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH], keys2[i % ROW_WIDTH]);
+            lockedMap.put(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH], keys2[i % ROW_WIDTH]);
+        }
+    }
+
+    @Benchmark
+    public Object concurrentGet(Cursor cursor) {
+        final int i = cursor.order[cursor.next()];
+        return concurrentMap.get(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Object lockedGet(Cursor cursor) {
+        final int i = cursor.order[cursor.next()];
+        synchronized (lock) {
+            return lockedMap.get(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH]);
+        }
+    }
+
+    @Benchmark
+    public Object concurrentPutRemove(Cursor cursor) {
+        final int i = cursor.next();
+        final Object key1 = cursor.ownRows[i];
+        final Object key2 = keys2[1 + i % (ROW_WIDTH - 1)];
+        concurrentMap.put(key1, key2, key2);
+        return concurrentMap.tryRemove(key1, key2);
+    }
+
+    @Benchmark
+    public Object lockedPutRemove(Cursor cursor) {
+        final int i = cursor.next();
+        final Object key1 = cursor.ownRows[i];
+        final Object key2 = keys2[1 + i % (ROW_WIDTH - 1)];
+        synchronized (lock) {
+            lockedMap.put(key1, key2, key2);
+            return lockedMap.tryRemove(key1, key2);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.ExpiringCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.ExpiringCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link ExpiringCheckedMapBenchmark}</b></p>
+ * <p>Measures the lookups of {@link ExpiringCheckedMap} next to a {@link CheckedMap}, a store expiring an entry
+ * on every call against a simulated clock, and the periodic full scan the timer wheel replaces.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class ExpiringCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    /**
+     * the simulated time between two stores of {@link #expiringChurn()}, the map holds {@link #size} live entries
+     */
+    private static final long CHURN_STEP = 10_000;
+
+    @Param({"100000"})
+    private int size;
+
+    private Object[] keys;
+    private Object[] absentKeys;
+    private int[] order;
+    private int cursor;
+    private int insert;
+    private long now;
+
+    private CheckedMap<Object, Object> checkedMap;
+    private ExpiringCheckedMap<Object, Object> expiringMap;
+    private ExpiringCheckedMap<Object, Object> churnMap;
+    private Map<Object, Long> expiries;
+
+    @Setup
+    public void setup() {
+        keys = KeyType.INTEGER.createAll(size * 2);
+        absentKeys = new Object[ACCESS_MASK + 1];
+        for (int i = 0; i < absentKeys.length; i++) {
+            absentKeys[i] = KeyType.INTEGER.create(size * 2 + i);
+        }
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        expiringMap = new ExpiringCheckedMap<>(Duration.ofHours(1));
+        churnMap = new ExpiringCheckedMap<>(Duration.ofNanos(size * CHURN_STEP), () -> now);
+        expiries = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            checkedMap.put(keys[i], keys[i]);
+            expiringMap.put(keys[i], keys[i]);
+            churnMap.put(keys[i], keys[i]);
+            now += CHURN_STEP;
+            // half of the entries are past their expiry
+            expiries.put(keys[i], (long) (i & 1));
+        }
+    }
+
+    private int next() {
+        return cursor++ & ACCESS_MASK;
+    }
+
+    @Benchmark
+    public Object checkedGet() {
+        return checkedMap.get(keys[order[next()]]);
+    }
+
+    @Benchmark
+    public Object expiringGet() {
+        return expiringMap.get(keys[order[next()]]);
+    }
+
+    @Benchmark
+    public Object expiringPutRemove() {
+        final Object key = absentKeys[next()];
+        expiringMap.put(key, key);
+        return expiringMap.remove(key);
+    }
+
+    /**
+     * Stores a key expiring the oldest one, the keys come back only after they expired.
+     */
+    @Benchmark
+    public boolean expiringChurn() {
+        final Object key = keys[insert];
+        insert = (insert + 1) % keys.length;
+        now += CHURN_STEP;
+        return churnMap.tryPut(key, key);
+    }
+
+    /**
+     * Sweeps a copy of the expiry table with a full scan, as done without the wheel.
+     */
+    @Benchmark
+    public int fullScanSweep() {
+        final Map<Object, Long> table = new HashMap<>(expiries);
+        table.values().removeIf(expiry -> expiry == 0);
+        return table.size();
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.FlatTriHashMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.multi.FlatTriHashMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import cz.majksa.commons.collections.multi.TriMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p><b>Class {@link FlatTriHashMapBenchmark}</b></p>
+ * <p>Measures {@link FlatTriHashMap} next to {@link TriHashMap} on a sparse layout of
+ * 2.5 entries per row on average, entry {@code i} is stored under the row
+ * {@code 2 * i / 5} and the column {@code i % 5}.</p>
+ * <p>{@link #main(String[])} prints the retained size of both maps, keys and values excluded.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class FlatTriHashMapBenchmark {
+
+    private static final int COLUMNS = 5;
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private Object[] keys1;
+    private Object[] keys2;
+    private int[] order;
+    private int cursor;
+
+    private TriHashMap<Object, Object, Object> triMap;
+    private FlatTriHashMap<Object, Object, Object> flatMap;
+
+    @Setup
+    public void setup() {
+        keys1 = keyType.createAll(row(size) + 1);
+        keys2 = keyType.createAll(COLUMNS + 1);
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        triMap = new TriHashMap<>();
+        fill(triMap);
+        flatMap = new FlatTriHashMap<>(triMap);
+    }
+
+    private static int row(int i) {
+        return (int) (2L * i / COLUMNS);
+    }
+
+    private void fill(TriMap<Object, Object, Object> map) {
+        for (int i = 0; i < size; i++) {
+            map.put(keys1[row(i)], keys2[i % COLUMNS], keys2[i % COLUMNS]);
+        }
+    }
+
+    private int next() {
+        return order[cursor++ & ACCESS_MASK];
+    }
+
+    @Benchmark
+    public Object triMapGet() {
+        final int i = next();
+        return triMap.get(keys1[row(i)], keys2[i % COLUMNS]);
+    }
+
+    @Benchmark
+    public Object flatMapGet() {
+        final int i = next();
+        return flatMap.get(keys1[row(i)], keys2[i % COLUMNS]);
+    }
+
+    @Benchmark
+    public Object triMapTryGetMiss() {
+        return triMap.tryGet(keys1[row(next())], keys2[COLUMNS]);
+    }
+
+    @Benchmark
+    public Object flatMapTryGetMiss() {
+        return flatMap.tryGet(keys1[row(next())], keys2[COLUMNS]);
+    }
+
+    @Benchmark
+    public TriMap<Object, Object, Object> triMapPut() {
+        final TriMap<Object, Object, Object> map = new TriHashMap<>();
+        fill(map);
+        return map;
+    }
+
+    @Benchmark
+    public TriMap<Object, Object, Object> flatMapPut() {
+        final TriMap<Object, Object, Object> map = new FlatTriHashMap<>();
+        fill(map);
+        return map;
+    }
+
+    @Benchmark
+    public TriMap<Object, Object, Object> flatMapPutPresized() {
+        final TriMap<Object, Object, Object> map = new FlatTriHashMap<>(size);
+        fill(map);
+        return map;
+    }
+
+    @Benchmark
+    public void triMapForEach(Blackhole blackhole) {
+        triMap.forEach((key1, key2, value) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public void flatMapForEach(Blackhole blackhole) {
+        flatMap.forEach((key1, key2, value) -> blackhole.consume(value));
+    }
+
+    /**
+     * Prints the bytes per entry retained by both maps, excluding the shared keys and values.
+     *
+     * @param args the sizes to measure, {@code 1000000} by default
+     */
+    public static void main(String[] args) {
+        final String[] sizes = args.length == 0 ? new String[]{"1000000"} : args;
+        for (String size : sizes) {
+            final FlatTriHashMapBenchmark benchmark = new FlatTriHashMapBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.keyType = KeyType.INTEGER;
+            benchmark.setup();
+            final long keys = GraphLayout.parseInstance(benchmark.keys1, benchmark.keys2).totalSize();
+            final long triMap = GraphLayout.parseInstance(benchmark.triMap, benchmark.keys1, benchmark.keys2).totalSize() - keys;
+            final long flatMap = GraphLayout.parseInstance(benchmark.flatMap, benchmark.keys1, benchmark.keys2).totalSize() - keys;
+            System.out.printf("size=%s TriHashMap=%.1f B/entry FlatTriHashMap=%.1f B/entry%n",
+                    size, (double) triMap / benchmark.size, (double) flatMap / benchmark.size);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.FrozenCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.FrozenCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p><b>Class {@link FrozenCheckedMapBenchmark}</b></p>
+ * <p>Measures lookups in a {@link FrozenCheckedMap} next to the {@link CheckedMap} it was frozen from.</p>
+ * <p>{@link #main(String[])} prints the retained size of both maps, keys and values included.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class FrozenCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param
+    private KeyType keyType;
+
+    private Object[] hits;
+    private Object[] misses;
+    private int cursor;
+
+    private CheckedMap<Object, Object> checkedMap;
+    private FrozenCheckedMap<Object, Object> frozenMap;
+
+    @Setup
+    public void setup() {
+        final Object[] keys = keyType.createAll(size);
+        checkedMap = new CheckedMap<>(size);
+        for (Object key : keys) {
+            checkedMap.put(key, key);
+        }
+        frozenMap = checkedMap.freeze();
+        final int[] order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        hits = new Object[order.length];
+        misses = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            hits[i] = keys[order[i]];
+            misses[i] = keyType.create(size + order[i]);
+        }
+    }
+
+    @Benchmark
+    public Object frozenMapGet() {
+        return frozenMap.get(hits[cursor++ & ACCESS_MASK]);
+    }
+
+    @Benchmark
+    public Object checkedMapGet() {
+        return checkedMap.get(hits[cursor++ & ACCESS_MASK]);
+    }
+
+    @Benchmark
+    public Object frozenMapGetOrDefaultMiss() {
+        return frozenMap.getOrDefault(misses[cursor++ & ACCESS_MASK], null);
+    }
+
+    @Benchmark
+    public Object checkedMapGetOrDefaultMiss() {
+        return checkedMap.getOrDefault(misses[cursor++ & ACCESS_MASK], null);
+    }
+
+    /**
+     * Prints the bytes per entry retained by the maps, keys and values included.
+     *
+     * @param args the sizes to measure, {@code 1000000} by default
+     */
+    public static void main(String[] args) {
+        final String[] sizes = args.length == 0 ? new String[]{"1000000"} : args;
+        for (String size : sizes) {
+            final FrozenCheckedMapBenchmark benchmark = new FrozenCheckedMapBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.keyType = KeyType.INTEGER;
+            benchmark.setup();
+            System.out.printf("size=%s FrozenCheckedMap=%.1f CheckedMap=%.1f B/entry%n", size,
+                    (double) GraphLayout.parseInstance(benchmark.frozenMap).totalSize() / benchmark.size,
+                    (double) GraphLayout.parseInstance(benchmark.checkedMap).totalSize() / benchmark.size);
+        }
+    }
+
+}
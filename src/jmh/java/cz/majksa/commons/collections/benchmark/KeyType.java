@@ -0,0 +1,90 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.KeyType
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import java.util.Random;
+
+/**
+ * <p><b>Enum {@link KeyType}</b></p>
+ * <p>Key families the benchmarks are parametrized with.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum KeyType {
+
+    STRING {
+        @Override
+        public Object create(int i) {
+            return "key-" + i;
+        }
+    },
+    INTEGER {
+        @Override
+        public Object create(int i) {
+            return i;
+        }
+    },
+    RECORD {
+        @Override
+        public Object create(int i) {
+            return new CompositeKey("tenant-" + (i & 63), i);
+        }
+    };
+
+    /**
+     * Creates the {@code i}-th key of this family, equal keys are created for equal indexes.
+     *
+     * @param i index of the key
+     * @return the key
+     */
+    public abstract Object create(int i);
+
+    /**
+     * Creates the first {@code size} keys of this family.
+     *
+     * @param size number of keys
+     * @return the keys
+     */
+    public Object[] createAll(int size) {
+        final Object[] keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = create(i);
+        }
+        return keys;
+    }
+
+    /**
+     * Creates a shuffled access order over {@code size} indexes, so that lookups do not walk the table sequentially.
+     *
+     * @param size number of indexes
+     * @param length length of the access order, must be a power of two
+     * @return the access order
+     */
+    public static int[] accessOrder(int size, int length) {
+        final Random random = new java.util.Random(42);
+        final int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = random.nextInt(size);
+        }
+        return order;
+    }
+
+}
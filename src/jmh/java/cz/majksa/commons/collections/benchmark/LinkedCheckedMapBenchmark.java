@@ -0,0 +1,88 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.LinkedCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.LinkedCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link LinkedCheckedMapBenchmark}</b></p>
+ * <p>Measures full iteration of {@link LinkedCheckedMap} next to a raw {@link LinkedHashMap}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class LinkedCheckedMapBenchmark {
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private LinkedCheckedMap<Object, Object> checkedMap;
+    private Map<Object, Object> linkedHashMap;
+
+    @Setup
+    public void setup() {
+        checkedMap = new LinkedCheckedMap<>(size);
+        linkedHashMap = new LinkedHashMap<>(size);
+        for (Object key : keyType.createAll(size)) {
+            checkedMap.put(key, key);
+            linkedHashMap.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public void checkedEntrySet(Blackhole blackhole) {
+        for (Map.Entry<Object, Object> entry : checkedMap.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void linkedHashMapEntrySet(Blackhole blackhole) {
+        for (Map.Entry<Object, Object> entry : linkedHashMap.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void checkedForEach(Blackhole blackhole) {
+        checkedMap.forEach((key, value) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public void linkedHashMapForEach(Blackhole blackhole) {
+        linkedHashMap.forEach((key, value) -> blackhole.consume(value));
+    }
+
+}
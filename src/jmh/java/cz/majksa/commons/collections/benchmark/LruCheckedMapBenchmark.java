@@ -0,0 +1,117 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.LruCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.ConcurrentLruCheckedMap;
+import cz.majksa.commons.collections.map.LruCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * <p><b>Class {@link LruCheckedMapBenchmark}</b></p>
+ * <p>Measures the lookups of a full {@link LruCheckedMap} and a {@link ConcurrentLruCheckedMap} next to a {@link CheckedMap},
+ * and the stores into them, each evicting the least recently used entry.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+public class LruCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Object[] keys;
+    private int[] order;
+
+    private CheckedMap<Object, Object> checkedMap;
+    private LruCheckedMap<Object, Object> lruMap;
+    private ConcurrentLruCheckedMap<Object, Object> concurrentLruMap;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int access;
+        private int insert;
+
+        private int nextInsert(int offset, int length) {
+            final int index = (offset + insert) % length;
+            insert = (insert + 1) % length;
+            return index;
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        // twice the capacity, storing the keys in a cycle evicts each of them before it comes again
+        keys = KeyType.INTEGER.createAll(size * 2);
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        lruMap = LruCheckedMap.builder().maximumSize(size).build();
+        concurrentLruMap = LruCheckedMap.builder().maximumSize(size).buildConcurrent();
+        for (int i = 0; i < size; i++) {
+            checkedMap.put(keys[i], keys[i]);
+            lruMap.put(keys[i], keys[i]);
+            concurrentLruMap.put(keys[i], keys[i]);
+        }
+    }
+
+    @Benchmark
+    public Object checkedGet(Cursor cursor) {
+        return checkedMap.getOrDefault(keys[order[cursor.access++ & ACCESS_MASK]], null);
+    }
+
+    @Benchmark
+    public Object lruGet(Cursor cursor) {
+        return lruMap.getOrDefault(keys[order[cursor.access++ & ACCESS_MASK]], null);
+    }
+
+    @Benchmark
+    public Object concurrentLruGet(Cursor cursor) {
+        return concurrentLruMap.getOrDefault(keys[order[cursor.access++ & ACCESS_MASK]], null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object concurrentLruGet4(Cursor cursor) {
+        return concurrentLruMap.getOrDefault(keys[order[cursor.access++ & ACCESS_MASK]], null);
+    }
+
+    @Benchmark
+    public boolean lruPutEvict(Cursor cursor) {
+        final Object key = keys[cursor.nextInsert(size, keys.length)];
+        return lruMap.tryPut(key, key);
+    }
+
+    @Benchmark
+    public boolean concurrentLruPutEvict(Cursor cursor) {
+        final Object key = keys[cursor.nextInsert(size, keys.length)];
+        return concurrentLruMap.tryPut(key, key);
+    }
+
+}
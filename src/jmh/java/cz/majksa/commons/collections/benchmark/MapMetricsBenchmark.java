@@ -0,0 +1,125 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.MapMetricsBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.metrics.Instrumented;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import cz.majksa.commons.collections.result.Slot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <p><b>Class {@link MapMetricsBenchmark}</b></p>
+ * <p>Measures the cost of the metrics of {@link Instrumented} maps, the same operations with counting disabled and enabled.</p>
+ * <p>{@link #main(String[])} prints a snapshot of both maps after a sample workload.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class MapMetricsBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+    private static final int COLUMNS = 8;
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private Object[] keys;
+    private Object[] absentKeys;
+    private int[] order;
+    private int cursor;
+
+    private final Slot<Object> slot = new Slot<>();
+    private CheckedMap<Object, Object> checkedMap;
+    private TriHashMap<Object, Object, Object> triMap;
+
+    @Setup
+    public void setup() {
+        keys = KeyType.INTEGER.createAll(size);
+        absentKeys = new Object[ACCESS_MASK + 1];
+        for (int i = 0; i < absentKeys.length; i++) {
+            absentKeys[i] = KeyType.INTEGER.create(size + i);
+        }
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        triMap = new TriHashMap<>();
+        for (int i = 0; i < size; i++) {
+            checkedMap.put(keys[i], keys[i]);
+            triMap.put(keys[i / COLUMNS], keys[i % COLUMNS], keys[i]);
+        }
+        checkedMap.setMetricsEnabled(metrics);
+        triMap.setMetricsEnabled(metrics);
+    }
+
+    private int next() {
+        return cursor++ & ACCESS_MASK;
+    }
+
+    @Benchmark
+    public Object checkedGet() {
+        return checkedMap.get(keys[order[next()]]);
+    }
+
+    @Benchmark
+    public boolean checkedTryGetMiss() {
+        return checkedMap.tryGet(absentKeys[next()], slot);
+    }
+
+    @Benchmark
+    public Object checkedPutRemove() {
+        final Object key = absentKeys[next()];
+        checkedMap.put(key, key);
+        return checkedMap.remove(key);
+    }
+
+    @Benchmark
+    public Object triMapGet() {
+        final int i = order[next()];
+        return triMap.get(keys[i / COLUMNS], keys[i % COLUMNS]);
+    }
+
+    /**
+     * Prints the snapshots of both maps after looking up every key and a missing key per key.
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        final MapMetricsBenchmark benchmark = new MapMetricsBenchmark();
+        benchmark.size = 1_000_000;
+        benchmark.metrics = true;
+        benchmark.setup();
+        for (int i = 0; i < benchmark.size; i++) {
+            benchmark.checkedMap.tryGet(benchmark.keys[i], benchmark.slot);
+            benchmark.checkedMap.tryGet(benchmark.absentKeys[i & ACCESS_MASK], benchmark.slot);
+        }
+        System.out.println(benchmark.checkedMap.metrics());
+        System.out.println(benchmark.triMap.metrics());
+    }
+
+}
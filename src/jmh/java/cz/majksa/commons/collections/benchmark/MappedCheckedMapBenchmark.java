@@ -0,0 +1,112 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.MappedCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.codec.FixedWidthCodec;
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.MappedCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p><b>Class {@link MappedCheckedMapBenchmark}</b></p>
+ * <p>Measures {@link MappedCheckedMap} next to a {@link CheckedMap} of boxed longs: lookups,
+ * and the start-up cost of opening the snapshot compared to loading all of its entries into a {@link CheckedMap}.
+ * Id {@code i} is {@code i * 17}, the same spread as in {@link PrimitiveCheckedMapBenchmark}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class MappedCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+    private static final int STRIDE = 17;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private int[] order;
+    private int cursor;
+
+    private Path path;
+    private MappedCheckedMap<Long, Long> mappedMap;
+    private CheckedMap<Long, Long> checkedMap;
+
+    @Setup
+    public void setup() throws IOException {
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        for (int i = 0; i < size; i++) {
+            checkedMap.put((long) i * STRIDE, (long) i);
+        }
+        path = Files.createTempFile("mapped-checked-map", ".bin");
+        MappedCheckedMap.write(checkedMap, path, FixedWidthCodec.LONG, FixedWidthCodec.LONG);
+        mappedMap = MappedCheckedMap.open(path, FixedWidthCodec.LONG, FixedWidthCodec.LONG);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mappedMap.close();
+        Files.delete(path);
+    }
+
+    private long next() {
+        return (long) order[cursor++ & ACCESS_MASK] * STRIDE;
+    }
+
+    @Benchmark
+    public long mappedMapGet() {
+        return mappedMap.get(next());
+    }
+
+    @Benchmark
+    public long checkedMapGet() {
+        return checkedMap.get(next());
+    }
+
+    @Benchmark
+    public Object mappedMapGetOrDefaultMiss() {
+        return mappedMap.getOrDefault(next() + 1, null);
+    }
+
+    @Benchmark
+    public long mappedMapOpen() throws IOException {
+        try (MappedCheckedMap<Long, Long> map = MappedCheckedMap.open(path, FixedWidthCodec.LONG, FixedWidthCodec.LONG)) {
+            return map.get(next());
+        }
+    }
+
+    @Benchmark
+    public long checkedMapLoad() throws IOException {
+        try (MappedCheckedMap<Long, Long> map = MappedCheckedMap.open(path, FixedWidthCodec.LONG, FixedWidthCodec.LONG)) {
+            return new CheckedMap<>(map).get(next());
+        }
+    }
+
+}
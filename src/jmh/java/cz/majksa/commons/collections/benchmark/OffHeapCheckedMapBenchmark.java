@@ -0,0 +1,136 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.OffHeapCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.codec.FixedWidthCodec;
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.OffHeapCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p><b>Class {@link OffHeapCheckedMapBenchmark}</b></p>
+ * <p>Measures {@link OffHeapCheckedMap} next to a {@link CheckedMap} of boxed longs.
+ * Id {@code i} is {@code i * 17}, the same spread as in {@link PrimitiveCheckedMapBenchmark}.</p>
+ * <p>{@link #main(String[])} prints the heap retained by the maps and the direct memory of the off-heap one.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class OffHeapCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+    private static final int STRIDE = 17;
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private int[] order;
+    private int cursor;
+
+    private OffHeapCheckedMap<Long, Long> offHeapMap;
+    private CheckedMap<Long, Long> checkedMap;
+
+    @Setup
+    public void setup() {
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        offHeapMap = new OffHeapCheckedMap<>(FixedWidthCodec.LONG, FixedWidthCodec.LONG, size);
+        checkedMap = new CheckedMap<>(size);
+        for (int i = 0; i < size; i++) {
+            offHeapMap.put((long) i * STRIDE, (long) i);
+            checkedMap.put((long) i * STRIDE, (long) i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        offHeapMap.close();
+    }
+
+    private long next() {
+        return (long) order[cursor++ & ACCESS_MASK] * STRIDE;
+    }
+
+    @Benchmark
+    public long offHeapMapGet() {
+        return offHeapMap.get(next());
+    }
+
+    @Benchmark
+    public long checkedMapGet() {
+        return checkedMap.get(next());
+    }
+
+    @Benchmark
+    public Object offHeapMapGetOrDefaultMiss() {
+        return offHeapMap.getOrDefault(next() + 1, null);
+    }
+
+    @Benchmark
+    public Object checkedMapGetOrDefaultMiss() {
+        return checkedMap.getOrDefault(next() + 1, null);
+    }
+
+    @Benchmark
+    public long offHeapMapPut() {
+        try (OffHeapCheckedMap<Long, Long> map = new OffHeapCheckedMap<>(FixedWidthCodec.LONG, FixedWidthCodec.LONG)) {
+            for (int i = 0; i < size; i++) {
+                map.put((long) i * STRIDE, (long) i);
+            }
+            return map.longSize();
+        }
+    }
+
+    @Benchmark
+    public CheckedMap<Long, Long> checkedMapPut() {
+        final CheckedMap<Long, Long> map = new CheckedMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put((long) i * STRIDE, (long) i);
+        }
+        return map;
+    }
+
+    /**
+     * Prints the heap bytes per entry retained by the maps and the direct memory bytes per entry of the off-heap map.
+     *
+     * @param args the sizes to measure, {@code 1000000} by default
+     */
+    public static void main(String[] args) {
+        final String[] sizes = args.length == 0 ? new String[]{"1000000"} : args;
+        for (String size : sizes) {
+            final OffHeapCheckedMapBenchmark benchmark = new OffHeapCheckedMapBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.setup();
+            System.out.printf("size=%s OffHeapCheckedMap=%.1f (+%.1f off-heap) CheckedMap<Long, Long>=%.1f B/entry%n",
+                    size,
+                    (double) GraphLayout.parseInstance(benchmark.offHeapMap).totalSize() / benchmark.size,
+                    (double) benchmark.offHeapMap.offHeapSize() / benchmark.size,
+                    (double) GraphLayout.parseInstance(benchmark.checkedMap).totalSize() / benchmark.size);
+            benchmark.tearDown();
+        }
+    }
+
+}
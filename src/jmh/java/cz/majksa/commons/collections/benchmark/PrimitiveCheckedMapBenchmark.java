@@ -0,0 +1,161 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.PrimitiveCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.IntCheckedMap;
+import cz.majksa.commons.collections.map.LongCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p><b>Class {@link PrimitiveCheckedMapBenchmark}</b></p>
+ * <p>Measures {@link IntCheckedMap} and {@link LongCheckedMap} next to a {@link CheckedMap} of boxed ids.
+ * The ids are spread, id {@code i} is {@code i * 17}, and the boxed maps box them at the call site.</p>
+ * <p>{@link #main(String[])} prints the retained size of the maps, boxed keys and values included.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class PrimitiveCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+    private static final int STRIDE = 17;
+    private static final Object VALUE = new Object();
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    private int[] order;
+    private int cursor;
+
+    private IntCheckedMap<Object> intMap;
+    private CheckedMap<Integer, Object> boxedIntMap;
+    private LongCheckedMap longMap;
+    private CheckedMap<Long, Long> boxedLongMap;
+
+    @Setup
+    public void setup() {
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        intMap = new IntCheckedMap<>(size);
+        boxedIntMap = new CheckedMap<>(size);
+        longMap = new LongCheckedMap(size);
+        boxedLongMap = new CheckedMap<>(size);
+        for (int i = 0; i < size; i++) {
+            intMap.put(i * STRIDE, VALUE);
+            boxedIntMap.put(i * STRIDE, VALUE);
+            longMap.put((long) i * STRIDE, i);
+            boxedLongMap.put((long) i * STRIDE, (long) i);
+        }
+    }
+
+    private int next() {
+        return order[cursor++ & ACCESS_MASK] * STRIDE;
+    }
+
+    @Benchmark
+    public Object intMapGet() {
+        return intMap.get(next());
+    }
+
+    @Benchmark
+    public Object boxedIntMapGet() {
+        return boxedIntMap.get(next());
+    }
+
+    @Benchmark
+    public Object intMapTryGetMiss() {
+        return intMap.tryGet(next() + 1);
+    }
+
+    @Benchmark
+    public Object boxedIntMapGetOrDefaultMiss() {
+        return boxedIntMap.getOrDefault(next() + 1, null);
+    }
+
+    @Benchmark
+    public long longMapGet() {
+        return longMap.get(next());
+    }
+
+    @Benchmark
+    public long boxedLongMapGet() {
+        return boxedLongMap.get((long) next());
+    }
+
+    @Benchmark
+    public IntCheckedMap<Object> intMapPut() {
+        final IntCheckedMap<Object> map = new IntCheckedMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i * STRIDE, VALUE);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public CheckedMap<Integer, Object> boxedIntMapPut() {
+        final CheckedMap<Integer, Object> map = new CheckedMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i * STRIDE, VALUE);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public void intMapForEach(Blackhole blackhole) {
+        intMap.forEachEntry((key, value) -> blackhole.consume(key));
+    }
+
+    @Benchmark
+    public void boxedIntMapForEach(Blackhole blackhole) {
+        boxedIntMap.forEach((key, value) -> blackhole.consume(key.intValue()));
+    }
+
+    /**
+     * Prints the bytes per entry retained by the maps, boxed keys and values included.
+     *
+     * @param args the sizes to measure, {@code 1000000} by default
+     */
+    public static void main(String[] args) {
+        final String[] sizes = args.length == 0 ? new String[]{"1000000"} : args;
+        for (String size : sizes) {
+            final PrimitiveCheckedMapBenchmark benchmark = new PrimitiveCheckedMapBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.setup();
+            System.out.printf("size=%s IntCheckedMap=%.1f CheckedMap<Integer, ?>=%.1f LongCheckedMap=%.1f CheckedMap<Long, Long>=%.1f B/entry%n",
+                    size,
+                    bytesPerEntry(benchmark.intMap, benchmark.size),
+                    bytesPerEntry(benchmark.boxedIntMap, benchmark.size),
+                    bytesPerEntry(benchmark.longMap, benchmark.size),
+                    bytesPerEntry(benchmark.boxedLongMap, benchmark.size));
+        }
+    }
+
+    private static double bytesPerEntry(Object map, int size) {
+        return (double) GraphLayout.parseInstance(map).totalSize() / size;
+    }
+
+}
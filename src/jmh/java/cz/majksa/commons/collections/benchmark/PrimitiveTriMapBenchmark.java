@@ -0,0 +1,172 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.PrimitiveTriMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.multi.IntIntIntTriMap;
+import cz.majksa.commons.collections.multi.LongLongObjectTriMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p><b>Class {@link PrimitiveTriMapBenchmark}</b></p>
+ * <p>Measures {@link LongLongObjectTriMap} and {@link IntIntIntTriMap} next to a {@link TriHashMap}
+ * of boxed ids, holding a score matrix. Cell {@code i} is stored under the row {@code i / ROW_WIDTH}
+ * and the column {@code (i % ROW_WIDTH) * COLUMN_STRIDE}, the boxed map boxes the ids at the call site.</p>
+ * <p>{@link #main(String[])} prints the retained size of the maps, boxed keys and values included.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class PrimitiveTriMapBenchmark {
+
+    private static final int ROW_WIDTH = 8;
+    private static final int COLUMN_STRIDE = 7919;
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    private int[] order;
+    private int cursor;
+
+    private TriHashMap<Long, Long, Integer> triMap;
+    private LongLongObjectTriMap<Integer> longLongMap;
+    private IntIntIntTriMap intIntMap;
+
+    @Setup
+    public void setup() {
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        triMap = new TriHashMap<>();
+        longLongMap = new LongLongObjectTriMap<>(size);
+        intIntMap = new IntIntIntTriMap(size);
+        for (int i = 0; i < size; i++) {
+            final int score = i & 127;
+            triMap.put((long) row(i), (long) column(i), score);
+            longLongMap.put(row(i), column(i), score);
+            intIntMap.put(row(i), column(i), score);
+        }
+    }
+
+    private static int row(int i) {
+        return i / ROW_WIDTH;
+    }
+
+    private static int column(int i) {
+        return (i % ROW_WIDTH) * COLUMN_STRIDE;
+    }
+
+    private int next() {
+        return order[cursor++ & ACCESS_MASK];
+    }
+
+    @Benchmark
+    public Integer triMapGet() {
+        final int i = next();
+        return triMap.get((long) row(i), (long) column(i));
+    }
+
+    @Benchmark
+    public Integer longLongMapGet() {
+        final int i = next();
+        return longLongMap.get(row(i), column(i));
+    }
+
+    @Benchmark
+    public int intIntMapGet() {
+        final int i = next();
+        return intIntMap.get(row(i), column(i));
+    }
+
+    @Benchmark
+    public boolean triMapContainsKeysMiss() {
+        final int i = next();
+        return triMap.containsKeys((long) row(i), (long) column(i) + 1);
+    }
+
+    @Benchmark
+    public boolean intIntMapContainsKeysMiss() {
+        final int i = next();
+        return intIntMap.containsKeys(row(i), column(i) + 1);
+    }
+
+    @Benchmark
+    public TriHashMap<Long, Long, Integer> triMapPut() {
+        final TriHashMap<Long, Long, Integer> map = new TriHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put((long) row(i), (long) column(i), i & 127);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public LongLongObjectTriMap<Integer> longLongMapPut() {
+        final LongLongObjectTriMap<Integer> map = new LongLongObjectTriMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(row(i), column(i), i & 127);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public IntIntIntTriMap intIntMapPut() {
+        final IntIntIntTriMap map = new IntIntIntTriMap();
+        for (int i = 0; i < size; i++) {
+            map.put(row(i), column(i), i & 127);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public void triMapForEach(Blackhole blackhole) {
+        triMap.forEach((key1, key2, value) -> blackhole.consume(value.intValue()));
+    }
+
+    @Benchmark
+    public void intIntMapForEach(Blackhole blackhole) {
+        intIntMap.forEachEntry((key1, key2, value) -> blackhole.consume(value));
+    }
+
+    /**
+     * Prints the bytes per entry retained by the maps, boxed keys and values included.
+     *
+     * @param args the sizes to measure, {@code 1000000} by default
+     */
+    public static void main(String[] args) {
+        final String[] sizes = args.length == 0 ? new String[]{"1000000"} : args;
+        for (String size : sizes) {
+            final PrimitiveTriMapBenchmark benchmark = new PrimitiveTriMapBenchmark();
+            benchmark.size = Integer.parseInt(size);
+            benchmark.setup();
+            System.out.printf("size=%s TriHashMap<Long, Long, Integer>=%.1f LongLongObjectTriMap<Integer>=%.1f IntIntIntTriMap=%.1f B/entry%n",
+                    size,
+                    (double) GraphLayout.parseInstance(benchmark.triMap).totalSize() / benchmark.size,
+                    (double) GraphLayout.parseInstance(benchmark.longLongMap).totalSize() / benchmark.size,
+                    (double) GraphLayout.parseInstance(benchmark.intIntMap).totalSize() / benchmark.size);
+        }
+    }
+
+}
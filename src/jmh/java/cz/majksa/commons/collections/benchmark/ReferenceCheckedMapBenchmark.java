@@ -0,0 +1,113 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.ReferenceCheckedMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.map.ReferenceCheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * <p><b>Class {@link ReferenceCheckedMapBenchmark}</b></p>
+ * <p>Measures {@link ReferenceCheckedMap} with weak keys and with soft values next to a {@link CheckedMap}
+ * and a {@link WeakHashMap}, looking up and storing metadata of short-lived objects.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class ReferenceCheckedMapBenchmark {
+
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"100000"})
+    private int size;
+
+    private Object[] keys;
+    private int[] order;
+    private int cursor;
+
+    private CheckedMap<Object, Object> checkedMap;
+    private ReferenceCheckedMap<Object, Object> weakKeyMap;
+    private ReferenceCheckedMap<Object, Object> softValueMap;
+    private Map<Object, Object> weakHashMap;
+
+    @Setup
+    public void setup() {
+        keys = KeyType.RECORD.createAll(size);
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        checkedMap = new CheckedMap<>(size);
+        weakKeyMap = ReferenceCheckedMap.weakKeys();
+        softValueMap = ReferenceCheckedMap.softValues();
+        weakHashMap = new WeakHashMap<>(size);
+        for (Object key : keys) {
+            checkedMap.put(key, key);
+            weakKeyMap.put(key, key);
+            softValueMap.put(key, key);
+            weakHashMap.put(key, key);
+        }
+    }
+
+    private Object nextKey() {
+        return keys[order[cursor++ & ACCESS_MASK]];
+    }
+
+    @Benchmark
+    public Object checkedGet() {
+        return checkedMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object weakKeyGet() {
+        return weakKeyMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object softValueGet() {
+        return softValueMap.get(nextKey());
+    }
+
+    @Benchmark
+    public Object weakHashMapGet() {
+        return weakHashMap.get(nextKey());
+    }
+
+    /**
+     * Attaches metadata to a new object, left for the collector to purge.
+     */
+    @Benchmark
+    public boolean weakKeyAttach() {
+        final Object key = new Object();
+        return weakKeyMap.tryPut(key, key.hashCode());
+    }
+
+    @Benchmark
+    public Object weakHashMapAttach() {
+        final Object key = new Object();
+        return weakHashMap.put(key, key.hashCode());
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.TriHashMapBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.multi.TriHashMap;
+import cz.majksa.commons.collections.multi.TriMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link TriHashMapBenchmark}</b></p>
+ * <p>Measures {@link TriHashMap} next to a raw nested {@link HashMap} holding the same entries.
+ * Entry {@code i} is stored under the row {@code i / ROW_WIDTH} and the column {@code i % ROW_WIDTH}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class TriHashMapBenchmark {
+
+    private static final int ROW_WIDTH = 16;
+    private static final int ACCESS_MASK = 1023;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"STRING", "INTEGER", "RECORD"})
+    private KeyType keyType;
+
+    private Object[] keys1;
+    private Object[] keys2;
+    private int[] order;
+    private int cursor;
+
+    private TriHashMap<Object, Object, Object> triMap;
+    private TriHashMap<Object, Object, Object> indexedTriMap;
+    private Map<Object, Map<Object, Object>> hashMap;
+
+    @Setup
+    public void setup() {
+        keys1 = keyType.createAll(size / ROW_WIDTH + 1);
+        keys2 = keyType.createAll(ROW_WIDTH + 1);
+        order = KeyType.accessOrder(size, ACCESS_MASK + 1);
+        triMap = new TriHashMap<>();
+        hashMap = new HashMap<>();
+        fill(triMap, hashMap);
+        indexedTriMap = new TriHashMap<>(triMap, TriHashMap.Index.KEY2);
+    }
+
+    private void fill(TriMap<Object, Object, Object> triMap, Map<Object, Map<Object, Object>> hashMap) {
+        for (int i = 0; i < size; i++) {
+            final Object key1 = keys1[i / ROW_WIDTH];
+            final Object key2 = keys2[i % ROW_WIDTH];
+            if (triMap != null) {
+                triMap.put(key1, key2, key2);
+            }
+            if (hashMap != null) {
+                hashMap.computeIfAbsent(key1, k -> new HashMap<>()).put(key2, key2);
+            }
+        }
+    }
+
+    private int next() {
+        return order[cursor++ & ACCESS_MASK];
+    }
+
+    @Benchmark
+    public Object triMapGet() {
+        final int i = next();
+        return triMap.get(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Object triMapTryGet() {
+        final int i = next();
+        return triMap.tryGet(keys1[i / ROW_WIDTH], keys2[i % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Object triMapTryGetMiss() {
+        final int i = next();
+        return triMap.tryGet(keys1[i / ROW_WIDTH], keys2[ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Object hashMapGet() {
+        final int i = next();
+        return hashMap.get(keys1[i / ROW_WIDTH]).get(keys2[i % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public TriMap<Object, Object, Object> triMapPut() {
+        final TriMap<Object, Object, Object> map = new TriHashMap<>();
+        fill(map, null);
+        return map;
+    }
+
+    @Benchmark
+    public Map<Object, Map<Object, Object>> hashMapPut() {
+        final Map<Object, Map<Object, Object>> map = new HashMap<>();
+        fill(null, map);
+        return map;
+    }
+
+    @Benchmark
+    public boolean triMapContainsKey2Hit() {
+        return triMap.containsKey2(keys2[next() % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public boolean triMapContainsKey2Miss() {
+        return triMap.containsKey2(keys2[ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public boolean indexedContainsKey2Hit() {
+        return indexedTriMap.containsKey2(keys2[next() % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public boolean indexedContainsKey2Miss() {
+        return indexedTriMap.containsKey2(keys2[ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Map<Object, Object> triMapColumn() {
+        return triMap.column(keys2[next() % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public Map<Object, Object> indexedColumn() {
+        return indexedTriMap.column(keys2[next() % ROW_WIDTH]);
+    }
+
+    @Benchmark
+    public int triMapSize() {
+        return triMap.size();
+    }
+
+    @Benchmark
+    public int triMapRowCount() {
+        return triMap.rowCount();
+    }
+
+    @Benchmark
+    public int indexedColumnCount() {
+        return indexedTriMap.columnCount();
+    }
+
+    @Benchmark
+    public void triMapEntrySet(Blackhole blackhole) {
+        for (TriMap.Entry<Object, Object, Object> entry : triMap.entrySet()) {
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void triMapValues(Blackhole blackhole) {
+        for (Object value : triMap.values()) {
+            blackhole.consume(value);
+        }
+    }
+
+    @Benchmark
+    public void triMapForEach(Blackhole blackhole) {
+        triMap.forEach((key1, key2, value) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public void hashMapEntrySet(Blackhole blackhole) {
+        for (Map<Object, Object> row : hashMap.values()) {
+            for (Map.Entry<Object, Object> entry : row.entrySet()) {
+                blackhole.consume(entry.getValue());
+            }
+        }
+    }
+
+}
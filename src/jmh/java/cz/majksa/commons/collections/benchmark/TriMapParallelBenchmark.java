@@ -0,0 +1,108 @@
+/*
+ *  collections - cz.majksa.commons.collections.benchmark.TriMapParallelBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.multi.ConcurrentTriHashMap;
+import cz.majksa.commons.collections.multi.FlatTriHashMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import cz.majksa.commons.collections.multi.TriMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p><b>Class {@link TriMapParallelBenchmark}</b></p>
+ * <p>Measures the sequential {@link TriMap#forEach(cz.majksa.commons.collections.function.TriConsumer)}
+ * next to the parallel bulk operations of {@link TriMap}, summing the values of the map.
+ * The entries are spread over {@code rows} rows, few rows can only be divided by splitting their cells.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+public class TriMapParallelBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"4", "100000"})
+    private int rows;
+
+    @Param({"TriHashMap", "FlatTriHashMap", "ConcurrentTriHashMap"})
+    private String implementation;
+
+    private TriMap<Integer, Integer, Long> map;
+
+    @Setup
+    public void setup() {
+        final TriHashMap<Integer, Integer, Long> triMap = new TriHashMap<>();
+        for (int i = 0; i < size; i++) {
+            triMap.put(i % rows, i / rows, (long) i);
+        }
+        switch (implementation) {
+            case "TriHashMap":
+                map = triMap;
+                break;
+            case "FlatTriHashMap":
+                map = new FlatTriHashMap<>(triMap);
+                break;
+            case "ConcurrentTriHashMap":
+                map = new ConcurrentTriHashMap<>(triMap);
+                break;
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+    }
+
+    @Benchmark
+    public long forEach() {
+        final long[] sum = new long[1];
+        map.forEach((key1, key2, value) -> sum[0] += value);
+        return sum[0];
+    }
+
+    @Benchmark
+    public long forEachParallel() {
+        final LongAdder sum = new LongAdder();
+        map.forEachParallel((key1, key2, value) -> sum.add(value));
+        return sum.sum();
+    }
+
+    @Benchmark
+    public long reduceValuesToLong() {
+        return map.reduceValuesToLong(Long::longValue, 0, Long::sum);
+    }
+
+    @Benchmark
+    public Long reduceValues() {
+        return map.reduceValues(value -> value, Long::sum);
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return map.parallelStream().mapToLong(entry -> entry.getValue()).sum();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *  collections - cz.majksa.commons.collections.cz.majksa.commons.collections.benchmark.ViolationBenchmark
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.benchmark;
+
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.map.CheckedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link ViolationBenchmark}</b></p>
+ * <p>Measures the cost of a missed {@link CheckedMap#get(Object)} under the different
+ * {@link ViolationPolicy violation policies}. {@code eagerMessage} reproduces the former behaviour,
+ * which rendered the whole map into the message of every thrown exception.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+public class ViolationBenchmark {
+
+    private static final Object ABSENT = "absent";
+
+    @Param({"10", "1000", "2000000"})
+    private int size;
+
+    private Map<Object, Object> hashMap;
+    private CheckedMap<Object, Object> defaultMap;
+    private CheckedMap<Object, Object> stacklessMap;
+    private CheckedMap<Object, Object> cheapMap;
+
+    @Setup
+    public void setup() {
+        hashMap = new HashMap<>(size);
+        for (Object key : KeyType.INTEGER.createAll(size)) {
+            hashMap.put(key, key);
+        }
+        defaultMap = new CheckedMap<>(hashMap);
+        defaultMap.setViolationPolicy(ViolationPolicy.DEFAULT);
+        stacklessMap = new CheckedMap<>(hashMap);
+        stacklessMap.setViolationPolicy(ViolationPolicy.DEFAULT.withStackTrace(false));
+        cheapMap = new CheckedMap<>(hashMap);
+        cheapMap.setViolationPolicy(ViolationPolicy.CHEAP);
+    }
+
+    private static Object miss(CheckedMap<Object, Object> map) {
+        try {
+            return map.get(ABSENT);
+        } catch (KeyDoesNotExistException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object eagerMessage() {
+        try {
+            throw new IllegalArgumentException(String.format("%s in %s", "Key absent does not exist", hashMap));
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object defaultPolicy() {
+        return miss(defaultMap);
+    }
+
+    @Benchmark
+    public String defaultPolicyWithMessage() {
+        return ((Exception) miss(defaultMap)).getMessage();
+    }
+
+    @Benchmark
+    public Object stacklessPolicy() {
+        return miss(stacklessMap);
+    }
+
+    @Benchmark
+    public Object cheapPolicy() {
+        return miss(cheapMap);
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.BinaryCodec
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import cz.majksa.commons.collections.function.TriConsumer;
+import cz.majksa.commons.collections.map.CheckedMap;
+import cz.majksa.commons.collections.multi.TriHashMap;
+import cz.majksa.commons.collections.multi.TriMap;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.BinaryCodec}</b></p>
+ * <p>Compact streaming format of {@link Map}s and {@link TriMap}s, written and read entry by entry
+ * through {@link BinaryOutput} and {@link BinaryInput}, so only a chunk of the stream is held in memory at a time.</p>
+ * <p>A map is written as a magic number and a version, then every entry is prefixed by a byte {@code 1},
+ * the end is marked by a byte {@code 0}. A tri map additionally writes the size of its dictionary of second keys;
+ * every entry is prefixed by a varint {@code 1} followed by the second key, which is added to the dictionary while
+ * it has room, or by {@code 2 + id} of a second key already in the dictionary. The end is marked by a varint {@code 0}.
+ * Both sides hold at most the declared number of second keys.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BinaryCodec {
+
+    /**
+     * the default maximum number of second keys remembered for the dictionary encoding
+     */
+    public static final int DEFAULT_DICTIONARY_SIZE = 1 << 16;
+
+    private static final int MAP_MAGIC = 0x434D4150;
+    private static final int TRI_MAP_MAGIC = 0x43544D50;
+    private static final int VERSION = 1;
+    private static final int END = 0;
+    private static final int ENTRY = 1;
+    private static final int INLINE_KEY2 = 1;
+    private static final int FIRST_KEY2_ID = 2;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Writes the map into the channel and flushes it.
+     *
+     * @param map the map
+     * @param channel the channel
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @throws IOException if the channel cannot be written
+     */
+    public static <K, V> void writeMap(@NonNull Map<K, V> map, @NonNull WritableByteChannel channel,
+                                       @NonNull StreamCodec<K> keyCodec, @NonNull StreamCodec<V> valueCodec) throws IOException {
+        final BinaryOutput output = new BinaryOutput(channel);
+        writeMap(map, output, keyCodec, valueCodec);
+        output.flush();
+    }
+
+    /**
+     * Writes the map into the output, without flushing it.
+     *
+     * @param map the map
+     * @param output the output
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @throws IOException if the output cannot be written
+     */
+    public static <K, V> void writeMap(@NonNull Map<K, V> map, @NonNull BinaryOutput output,
+                                       @NonNull StreamCodec<K> keyCodec, @NonNull StreamCodec<V> valueCodec) throws IOException {
+        final MapWriter<K, V> writer = new MapWriter<>(output, keyCodec, valueCodec);
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            writer.write(entry.getKey(), entry.getValue());
+        }
+        writer.finish();
+    }
+
+    /**
+     * Reads a map written by {@link #writeMap(Map, WritableByteChannel, StreamCodec, StreamCodec)}.
+     *
+     * @param channel the channel
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @return the map
+     * @throws IOException if the channel cannot be read, or does not hold a map
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the stream repeats a key
+     */
+    public static <K, V> @NonNull CheckedMap<K, V> readMap(@NonNull ReadableByteChannel channel,
+                                                            @NonNull StreamCodec<K> keyCodec,
+                                                            @NonNull StreamCodec<V> valueCodec) throws IOException {
+        final CheckedMap<K, V> map = new CheckedMap<>();
+        readMap(new BinaryInput(channel), keyCodec, valueCodec, map::put);
+        return map;
+    }
+
+    /**
+     * Reads a map written by {@link #writeMap(Map, BinaryOutput, StreamCodec, StreamCodec)},
+     * handing over the entries one by one as they are read.
+     *
+     * @param input the input
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @param action the action performed for every entry
+     * @throws IOException if the input cannot be read, or does not hold a map
+     */
+    public static <K, V> void readMap(@NonNull BinaryInput input, @NonNull StreamCodec<K> keyCodec,
+                                      @NonNull StreamCodec<V> valueCodec, @NonNull BiConsumer<? super K, ? super V> action) throws IOException {
+        readHeader(input, MAP_MAGIC);
+        for (int marker = input.readByte(); marker != END; marker = input.readByte()) {
+            if (marker != ENTRY) {
+                throw new StreamCorruptedException("Illegal entry marker: " + marker);
+            }
+            final K key = keyCodec.read(input);
+            action.accept(key, valueCodec.read(input));
+        }
+    }
+
+    /**
+     * Writes the tri map into the channel and flushes it.
+     *
+     * @param map the map
+     * @param channel the channel
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @throws IOException if the channel cannot be written
+     */
+    public static <K1, K2, V> void writeTriMap(@NonNull TriMap<K1, K2, V> map, @NonNull WritableByteChannel channel,
+                                               @NonNull StreamCodec<K1> key1Codec, @NonNull StreamCodec<K2> key2Codec,
+                                               @NonNull StreamCodec<V> valueCodec) throws IOException {
+        final BinaryOutput output = new BinaryOutput(channel);
+        writeTriMap(map, output, key1Codec, key2Codec, valueCodec, DEFAULT_DICTIONARY_SIZE);
+        output.flush();
+    }
+
+    /**
+     * Writes the tri map into the output, without flushing it.
+     *
+     * @param map the map
+     * @param output the output
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @param dictionarySize the maximum number of second keys remembered by both sides
+     * @throws IOException if the output cannot be written
+     */
+    public static <K1, K2, V> void writeTriMap(@NonNull TriMap<K1, K2, V> map, @NonNull BinaryOutput output,
+                                               @NonNull StreamCodec<K1> key1Codec, @NonNull StreamCodec<K2> key2Codec,
+                                               @NonNull StreamCodec<V> valueCodec, int dictionarySize) throws IOException {
+        final TriMapWriter<K1, K2, V> writer = new TriMapWriter<>(output, key1Codec, key2Codec, valueCodec, dictionarySize);
+        try {
+            map.forEach((key1, key2, value) -> {
+                try {
+                    writer.write(key1, key2, value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * Reads a tri map written by {@link #writeTriMap(TriMap, WritableByteChannel, StreamCodec, StreamCodec, StreamCodec)}.
+     *
+     * @param channel the channel
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @return the map
+     * @throws IOException if the channel cannot be read, or does not hold a tri map
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the stream repeats a pair of keys
+     */
+    public static <K1, K2, V> @NonNull TriHashMap<K1, K2, V> readTriMap(@NonNull ReadableByteChannel channel,
+                                                                        @NonNull StreamCodec<K1> key1Codec,
+                                                                        @NonNull StreamCodec<K2> key2Codec,
+                                                                        @NonNull StreamCodec<V> valueCodec) throws IOException {
+        final TriHashMap<K1, K2, V> map = new TriHashMap<>();
+        readTriMap(new BinaryInput(channel), key1Codec, key2Codec, valueCodec, map::put);
+        return map;
+    }
+
+    /**
+     * Reads a tri map written by {@link #writeTriMap(TriMap, BinaryOutput, StreamCodec, StreamCodec, StreamCodec, int)},
+     * handing over the entries one by one as they are read.
+     *
+     * @param input the input
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @param action the action performed for every entry
+     * @throws IOException if the input cannot be read, or does not hold a tri map
+     */
+    public static <K1, K2, V> void readTriMap(@NonNull BinaryInput input, @NonNull StreamCodec<K1> key1Codec,
+                                              @NonNull StreamCodec<K2> key2Codec, @NonNull StreamCodec<V> valueCodec,
+                                              @NonNull TriConsumer<? super K1, ? super K2, ? super V> action) throws IOException {
+        readHeader(input, TRI_MAP_MAGIC);
+        final int dictionarySize = input.readVarInt();
+        final List<K2> dictionary = new ArrayList<>(Math.min(dictionarySize, 1024));
+        for (int reference = input.readVarInt(); reference != END; reference = input.readVarInt()) {
+            final K2 key2;
+            if (reference == INLINE_KEY2) {
+                key2 = key2Codec.read(input);
+                if (dictionary.size() < dictionarySize) {
+                    dictionary.add(key2);
+                }
+            } else if (reference >= FIRST_KEY2_ID && reference - FIRST_KEY2_ID < dictionary.size()) {
+                key2 = dictionary.get(reference - FIRST_KEY2_ID);
+            } else {
+                throw new StreamCorruptedException("Unknown second key id: " + (reference - FIRST_KEY2_ID));
+            }
+            final K1 key1 = key1Codec.read(input);
+            action.accept(key1, key2, valueCodec.read(input));
+        }
+    }
+
+    private static void readHeader(BinaryInput input, int magic) throws IOException {
+        if (input.readInt() != magic) {
+            throw new StreamCorruptedException("Unexpected stream content");
+        }
+        final int version = input.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported stream version: " + version);
+        }
+    }
+
+    /**
+     * <p>Writes the entries of a map one by one, for maps that are never held in memory as a whole.
+     * The stream is complete once {@link #finish()} is called.</p>
+     */
+    public static final class MapWriter<K, V> {
+
+        private final BinaryOutput output;
+        private final StreamCodec<K> keyCodec;
+        private final StreamCodec<V> valueCodec;
+
+        /**
+         * Constructs a writer and writes the header of the map.
+         *
+         * @param output the output
+         * @param keyCodec the codec of the keys
+         * @param valueCodec the codec of the values
+         * @throws IOException if the output cannot be written
+         */
+        public MapWriter(@NonNull BinaryOutput output, @NonNull StreamCodec<K> keyCodec, @NonNull StreamCodec<V> valueCodec) throws IOException {
+            this.output = output;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+            output.writeInt(MAP_MAGIC);
+            output.writeByte(VERSION);
+        }
+
+        public void write(@NonNull K key, @NonNull V value) throws IOException {
+            output.writeByte(ENTRY);
+            keyCodec.write(output, key);
+            valueCodec.write(output, value);
+        }
+
+        /**
+         * Marks the end of the map, without flushing the output.
+         *
+         * @throws IOException if the output cannot be written
+         */
+        public void finish() throws IOException {
+            output.writeByte(END);
+        }
+
+    }
+
+    /**
+     * <p>Writes the entries of a tri map one by one, for maps that are never held in memory as a whole.
+     * The stream is complete once {@link #finish()} is called.</p>
+     */
+    public static final class TriMapWriter<K1, K2, V> {
+
+        private final BinaryOutput output;
+        private final StreamCodec<K1> key1Codec;
+        private final StreamCodec<K2> key2Codec;
+        private final StreamCodec<V> valueCodec;
+        private final int dictionarySize;
+
+        /**
+         * the ids of the second keys written so far, up to {@link #dictionarySize}
+         */
+        private final Map<K2, Integer> dictionary = new HashMap<>();
+
+        /**
+         * Constructs a writer and writes the header of the tri map.
+         *
+         * @param output the output
+         * @param key1Codec the codec of the first keys
+         * @param key2Codec the codec of the second keys
+         * @param valueCodec the codec of the values
+         * @param dictionarySize the maximum number of second keys remembered by both sides
+         * @throws IOException if the output cannot be written
+         * @throws IllegalArgumentException if the dictionary size is negative
+         */
+        public TriMapWriter(@NonNull BinaryOutput output, @NonNull StreamCodec<K1> key1Codec, @NonNull StreamCodec<K2> key2Codec,
+                            @NonNull StreamCodec<V> valueCodec, int dictionarySize) throws IOException {
+            if (dictionarySize < 0) {
+                throw new IllegalArgumentException("Illegal dictionary size: " + dictionarySize);
+            }
+            this.output = output;
+            this.key1Codec = key1Codec;
+            this.key2Codec = key2Codec;
+            this.valueCodec = valueCodec;
+            this.dictionarySize = dictionarySize;
+            output.writeInt(TRI_MAP_MAGIC);
+            output.writeByte(VERSION);
+            output.writeVarInt(dictionarySize);
+        }
+
+        public void write(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) throws IOException {
+            final Integer id = dictionary.get(key2);
+            if (id != null) {
+                output.writeVarInt(FIRST_KEY2_ID + id);
+            } else {
+                output.writeVarInt(INLINE_KEY2);
+                key2Codec.write(output, key2);
+                if (dictionary.size() < dictionarySize) {
+                    dictionary.put(key2, dictionary.size());
+                }
+            }
+            key1Codec.write(output, key1);
+            valueCodec.write(output, value);
+        }
+
+        /**
+         * Marks the end of the tri map, without flushing the output.
+         *
+         * @throws IOException if the output cannot be written
+         */
+        public void finish() throws IOException {
+            output.writeVarInt(END);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.BinaryInput
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.BinaryInput}</b></p>
+ * <p>Reads the primitives written by a {@link BinaryOutput} from a channel through a buffer of a fixed size.
+ * The input reads ahead, once it is used, the rest of the channel must be read through it.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BinaryInput {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public BinaryInput(@NonNull ReadableByteChannel channel) {
+        this(channel, BinaryOutput.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an input reading from the channel in chunks of the specified size.
+     *
+     * @param channel the channel
+     * @param chunkSize the size of the buffer
+     * @throws IllegalArgumentException if the chunk size cannot hold a {@code long}
+     */
+    public BinaryInput(@NonNull ReadableByteChannel channel, int chunkSize) {
+        if (chunkSize < Long.BYTES) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(chunkSize).flip();
+    }
+
+    /**
+     * Reads an unsigned byte.
+     *
+     * @return the byte, between {@code 0} and {@code 255}
+     * @throws EOFException if the channel ends
+     * @throws IOException if the channel cannot be read
+     */
+    public int readByte() throws IOException {
+        ensureAvailable(1);
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @return the value
+     * @throws StreamCorruptedException if the varint is longer than ten bytes
+     * @throws EOFException if the channel ends
+     * @throws IOException if the channel cannot be read
+     */
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @return the value
+     * @throws StreamCorruptedException if the varint does not fit into an {@code int}
+     * @throws EOFException if the channel ends
+     * @throws IOException if the channel cannot be read
+     */
+    public int readVarInt() throws IOException {
+        final long value = readVarLong();
+        if ((value & ~0xFFFFFFFFL) != 0) {
+            throw new StreamCorruptedException("Malformed varint");
+        }
+        return (int) value;
+    }
+
+    public long readSignedVarLong() throws IOException {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readSignedVarInt() throws IOException {
+        final int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() throws IOException {
+        ensureAvailable(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensureAvailable(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads exactly the specified number of bytes, chunk by chunk if they do not fit into the buffer.
+     * The array grows as the bytes arrive, so that a corrupt length cannot allocate more than the channel holds.
+     *
+     * @param length the number of bytes
+     * @return the bytes
+     * @throws StreamCorruptedException if the length is negative
+     * @throws EOFException if the channel ends
+     * @throws IOException if the channel cannot be read
+     */
+    public @NonNull byte[] readBytes(int length) throws IOException {
+        if (length < 0) {
+            throw new StreamCorruptedException("Negative length: " + length);
+        }
+        byte[] bytes = new byte[Math.min(length, buffer.capacity())];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            if (offset == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            final int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads a string written by {@link BinaryOutput#writeString(String)}.
+     *
+     * @return the string
+     * @throws EOFException if the channel ends
+     * @throws IOException if the channel cannot be read
+     */
+    public @NonNull String readString() throws IOException {
+        return new String(readBytes(readVarInt()), StandardCharsets.UTF_8);
+    }
+
+    private void ensureAvailable(int length) throws IOException {
+        while (buffer.remaining() < length) {
+            fill();
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads more behind them.
+     */
+    private void fill() throws IOException {
+        buffer.compact();
+        try {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.BinaryOutput
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.BinaryOutput}</b></p>
+ * <p>Writes primitives into a channel through a buffer of a fixed size, which is written out whenever it fills up.
+ * Integers are written as LEB128 varints, signed ones zigzag-encoded first, so small values take a single byte.
+ * The channel is neither flushed nor closed on its own, see {@link #flush()}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BinaryOutput implements Flushable {
+
+    /**
+     * the default size of the buffer
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * the longest varint, 64 bits in groups of 7
+     */
+    private static final int MAXIMUM_VARINT_SIZE = 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public BinaryOutput(@NonNull WritableByteChannel channel) {
+        this(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an output writing into the channel in chunks of the specified size.
+     *
+     * @param channel the channel
+     * @param chunkSize the size of the buffer
+     * @throws IllegalArgumentException if the chunk size cannot hold the longest varint
+     */
+    public BinaryOutput(@NonNull WritableByteChannel channel, int chunkSize) {
+        if (chunkSize < MAXIMUM_VARINT_SIZE) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(chunkSize);
+    }
+
+    public void writeByte(int value) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param value the value, negative values take ten bytes
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeVarLong(long value) throws IOException {
+        ensureRemaining(MAXIMUM_VARINT_SIZE);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param value the value, negative values take five bytes
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a signed varint, values close to zero take a single byte.
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a signed varint, values close to zero take a single byte.
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes the bytes as they are, chunk by chunk if they do not fit into the buffer.
+     *
+     * @param bytes the bytes
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBytes(@NonNull byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            final int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the string, prefixed by its length.
+     *
+     * @param value the string
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeString(@NonNull String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Writes the buffered bytes into the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
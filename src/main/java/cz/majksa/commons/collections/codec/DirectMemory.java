@@ -0,0 +1,90 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.DirectMemory
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.DirectMemory}</b></p>
+ * <p>Allocates and frees the direct buffers of the off-heap collections. A direct buffer is otherwise
+ * freed only once the garbage collector finds it unreachable, {@link #free(ByteBuffer)} releases it immediately
+ * where the runtime allows it.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class DirectMemory {
+
+    /**
+     * {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)} bound to the unsafe instance, {@code null} if unavailable
+     */
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private DirectMemory() {
+    }
+
+    /**
+     * Allocates a zeroed direct buffer in the native byte order.
+     *
+     * @param capacity the capacity of the buffer in bytes
+     * @return the buffer
+     */
+    public static @NonNull ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Releases the memory of a direct or mapped buffer. The buffer must not be used afterwards.
+     * Does nothing for heap buffers, or if the runtime does not allow releasing the memory early.
+     *
+     * @param buffer the buffer to release
+     */
+    public static void free(@NonNull ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            // slices and duplicates are freed with their parent buffer
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.EncodedBytes
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.EncodedBytes}</b></p>
+ * <p>Hashes and compares records encoded by {@link FixedWidthCodec}s in place, eight bytes at a time.
+ * Both buffers of a comparison must use the same byte order.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class EncodedBytes {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private EncodedBytes() {
+    }
+
+    /**
+     * Hashes a record.
+     *
+     * @param buffer the buffer holding the record
+     * @param offset the offset of the record
+     * @param width the width of the record
+     * @return the hash of the record, well spread in all bits
+     */
+    public static long hash(@NonNull ByteBuffer buffer, int offset, int width) {
+        long hash = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= width; i += Long.BYTES) {
+            hash = (hash ^ buffer.getLong(offset + i)) * GOLDEN_RATIO;
+        }
+        for (; i < width; i++) {
+            hash = (hash ^ buffer.get(offset + i)) * GOLDEN_RATIO;
+        }
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Compares two records of the same width.
+     *
+     * @param a the buffer holding the first record
+     * @param aOffset the offset of the first record
+     * @param b the buffer holding the second record
+     * @param bOffset the offset of the second record
+     * @param width the width of the records
+     * @return {@code true} if the records are equal byte by byte
+     */
+    public static boolean equal(@NonNull ByteBuffer a, int aOffset, @NonNull ByteBuffer b, int bOffset, int width) {
+        int i = 0;
+        for (; i + Long.BYTES <= width; i += Long.BYTES) {
+            if (a.getLong(aOffset + i) != b.getLong(bOffset + i)) {
+                return false;
+            }
+        }
+        for (; i < width; i++) {
+            if (a.get(aOffset + i) != b.get(bOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
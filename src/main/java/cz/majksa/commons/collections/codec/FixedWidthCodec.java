@@ -0,0 +1,135 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.FixedWidthCodec
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p><b>Interface {@link cz.majksa.commons.collections.codec.FixedWidthCodec}</b></p>
+ * <p>Encodes values of a type into a fixed number of bytes. Equal values must be encoded into equal bytes,
+ * the off-heap collections compare and hash the encoded bytes, never the decoded values.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface FixedWidthCodec<T> {
+
+    /**
+     * {@code long} values, encoded into 8 bytes
+     */
+    FixedWidthCodec<Long> LONG = new FixedWidthCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(@NonNull ByteBuffer buffer, int offset, @NonNull Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public @NonNull Long read(@NonNull ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * {@code int} values, encoded into 4 bytes
+     */
+    FixedWidthCodec<Integer> INTEGER = new FixedWidthCodec<>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(@NonNull ByteBuffer buffer, int offset, @NonNull Integer value) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public @NonNull Integer read(@NonNull ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Returns the codec of byte records of the specified width, stored as they are.
+     *
+     * @param width the length of every record
+     * @return the codec of the records
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    static @NonNull FixedWidthCodec<byte[]> bytes(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Illegal width: " + width);
+        }
+        return new FixedWidthCodec<>() {
+            @Override
+            public int width() {
+                return width;
+            }
+
+            @Override
+            public void write(@NonNull ByteBuffer buffer, int offset, @NonNull byte[] value) {
+                if (value.length != width) {
+                    throw new IllegalArgumentException("Record of " + value.length + " bytes, expected " + width);
+                }
+                buffer.put(offset, value);
+            }
+
+            @Override
+            public @NonNull byte[] read(@NonNull ByteBuffer buffer, int offset) {
+                final byte[] value = new byte[width];
+                buffer.get(offset, value);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of bytes every value is encoded into.
+     *
+     * @return the width of the encoded values
+     */
+    int width();
+
+    /**
+     * Encodes the value into the buffer at the absolute offset, without moving the position of the buffer.
+     *
+     * @param buffer the buffer to write into
+     * @param offset the offset of the first byte
+     * @param value the value
+     */
+    void write(@NonNull ByteBuffer buffer, int offset, @NonNull T value);
+
+    /**
+     * Decodes the value from the buffer at the absolute offset, without moving the position of the buffer.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the offset of the first byte
+     * @return the value
+     */
+    @NonNull T read(@NonNull ByteBuffer buffer, int offset);
+
+}
@@ -0,0 +1,458 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.MappedTable
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.codec.MappedTable}</b></p>
+ * <p>Read-only hash table of fixed-width records kept in a file and read through {@link FileChannel#map}.
+ * Lookups probe the mapped pages directly, nothing is deserialized when the table is opened,
+ * and processes mapping the same file share its pages in the page cache.</p>
+ * <p>The file starts with a header of {@value #HEADER_SIZE} bytes followed by an open-addressing table
+ * of slots {@code [state][key][value]}, probed linearly from the hash of the key bytes.
+ * The table is at most half full, so misses end after a few probes. The file is little-endian on every platform.</p>
+ * <p>Lookups are safe from several threads, each thread encodes into its own {@link #keyBuffer()}.
+ * {@link #close()} may race with them, the lookups in flight still read mapped pages and the later ones throw
+ * {@link IllegalStateException}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class MappedTable implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D415054;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final long MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_PAGE_SIZE = 1 << 30;
+
+    private final int keyWidth;
+    private final int valueWidth;
+    private final int slotWidth;
+    private final long size;
+    private final long mask;
+
+    /**
+     * log2 of the number of slots per page
+     */
+    private final int pageShift;
+
+    private final ThreadLocal<ByteBuffer> keyBuffer;
+    private final ThreadLocal<ByteBuffer> valueBuffer;
+
+    /**
+     * the mapped pages, {@code null} once closed. Closing only drops them, as the JDK does, so that the pages
+     * are unmapped by the garbage collector once no lookup in flight holds them any more.
+     */
+    private volatile MappedByteBuffer[] pages;
+
+    private MappedTable(FileChannel channel, FileChannel.MapMode mode, int keyWidth, int valueWidth, long size, long capacity) throws IOException {
+        this.keyWidth = keyWidth;
+        this.valueWidth = valueWidth;
+        this.slotWidth = 1 + keyWidth + valueWidth;
+        this.size = size;
+        this.mask = capacity - 1;
+        this.pageShift = Math.min(Long.numberOfTrailingZeros(capacity), 31 - Integer.numberOfLeadingZeros(MAXIMUM_PAGE_SIZE / slotWidth));
+        this.keyBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(keyWidth).order(ORDER));
+        this.valueBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(valueWidth).order(ORDER));
+        final long pageSize = (long) slotWidth << pageShift;
+        final MappedByteBuffer[] pages = new MappedByteBuffer[(int) (capacity >>> pageShift)];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = channel.map(mode, HEADER_SIZE + i * pageSize, pageSize);
+            pages[i].order(ORDER);
+        }
+        this.pages = pages;
+    }
+
+    /**
+     * Opens a table written by a {@link Writer}. The file may be closed or replaced afterwards,
+     * the mapping stays valid until {@link #close()}.
+     *
+     * @param path the file of the table
+     * @param keyWidth the expected width of the keys
+     * @param valueWidth the expected width of the values
+     * @return the table
+     * @throws IOException if the file cannot be read, or is not a complete table
+     * @throws IllegalArgumentException if the widths of the table differ from the expected ones
+     */
+    public static @NonNull MappedTable open(@NonNull Path path, int keyWidth, int valueWidth) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a mapped table: " + path);
+                }
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a mapped table: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported mapped table version " + header.getInt(4) + ": " + path);
+            }
+            if (header.getInt(8) != keyWidth || header.getInt(12) != valueWidth) {
+                throw new IllegalArgumentException("Expected widths " + keyWidth + "/" + valueWidth
+                        + " but the table has " + header.getInt(8) + "/" + header.getInt(12) + ": " + path);
+            }
+            final long size = header.getLong(16);
+            final long capacity = header.getLong(24);
+            if (Long.bitCount(capacity) != 1 || size >= capacity
+                    || channel.size() < HEADER_SIZE + capacity * (1 + keyWidth + valueWidth)) {
+                throw new IOException("Corrupted mapped table: " + path);
+            }
+            return new MappedTable(channel, FileChannel.MapMode.READ_ONLY, keyWidth, valueWidth, size, capacity);
+        }
+    }
+
+    /**
+     * Creates a writer of a new table, replacing the file if it exists once the writer is closed.
+     * Until then, the tables already open on the file keep reading the previous one.
+     *
+     * @param path the file of the table
+     * @param keyWidth the width of the keys
+     * @param valueWidth the width of the values
+     * @param size the exact number of entries to be written
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    public static @NonNull Writer writer(@NonNull Path path, int keyWidth, int valueWidth, long size) throws IOException {
+        if (keyWidth < 0 || valueWidth < 0 || size < 0) {
+            throw new IllegalArgumentException("Illegal table: widths " + keyWidth + "/" + valueWidth + ", size " + size);
+        }
+        return new Writer(path, keyWidth, valueWidth, size);
+    }
+
+    private static long capacityFor(long size) {
+        return Math.max(MINIMUM_CAPACITY, Long.highestOneBit(size) << 2);
+    }
+
+    public int keyWidth() {
+        return keyWidth;
+    }
+
+    public int valueWidth() {
+        return valueWidth;
+    }
+
+    /**
+     * Returns the number of entries of the table.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots of the table, the indexes of the slots are below it.
+     *
+     * @return the number of slots
+     */
+    public long capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the buffer of the current thread the searched key is encoded into, at offset {@code 0}.
+     *
+     * @return the key buffer of the current thread
+     */
+    public @NonNull ByteBuffer keyBuffer() {
+        return keyBuffer.get();
+    }
+
+    /**
+     * Returns the buffer of the current thread the searched value is encoded into, at offset {@code 0}.
+     *
+     * @return the value buffer of the current thread
+     */
+    public @NonNull ByteBuffer valueBuffer() {
+        return valueBuffer.get();
+    }
+
+    /**
+     * Looks up the key encoded in {@link #keyBuffer()}.
+     *
+     * @return the index of the slot of the key, or {@code -1} if it does not exist
+     * @throws IllegalStateException if the table is closed
+     */
+    public long find() {
+        final long index = probe(keyBuffer());
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Tells whether any entry holds the value encoded in {@link #valueBuffer()}, walking the whole table.
+     *
+     * @return {@code true} if the value exists
+     * @throws IllegalStateException if the table is closed
+     */
+    public boolean containsValue() {
+        final MappedByteBuffer[] pages = pages();
+        final ByteBuffer value = valueBuffer();
+        for (long index = next(pages, 0); index <= mask; index = next(pages, index + 1)) {
+            if (EncodedBytes.equal(page(pages, index), valueOffset(index), value, 0, valueWidth)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first slot holding an entry, starting with the specified one.
+     *
+     * @param from the index of the first slot to check
+     * @return the index of the slot, or {@link #capacity()} if there is none
+     * @throws IllegalStateException if the table is closed
+     */
+    public long next(long from) {
+        return next(pages(), from);
+    }
+
+    /**
+     * Returns the page holding the slot, to be read at {@link #keyOffset(long)} and {@link #valueOffset(long)}.
+     *
+     * @param index the index of the slot
+     * @return the page of the slot
+     * @throws IllegalStateException if the table is closed
+     */
+    public @NonNull ByteBuffer page(long index) {
+        return page(pages(), index);
+    }
+
+    public int keyOffset(long index) {
+        return offset(index) + 1;
+    }
+
+    public int valueOffset(long index) {
+        return offset(index) + 1 + keyWidth;
+    }
+
+    /**
+     * Closes the table. Any later lookup throws {@link IllegalStateException}, the pages are unmapped
+     * once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        pages = null;
+    }
+
+    /**
+     * Closes the table and unmaps the pages at once. Only for tables no other thread reads, such as the one of a {@link Writer},
+     * so that the file can be moved while the garbage collector has not run yet.
+     */
+    private void unmap() {
+        final MappedByteBuffer[] pages = this.pages;
+        if (pages != null) {
+            this.pages = null;
+            for (MappedByteBuffer page : pages) {
+                DirectMemory.free(page);
+            }
+        }
+    }
+
+    private MappedByteBuffer[] pages() {
+        final MappedByteBuffer[] pages = this.pages;
+        if (pages == null) {
+            throw new IllegalStateException("Mapped table is closed");
+        }
+        return pages;
+    }
+
+    private ByteBuffer page(MappedByteBuffer[] pages, long index) {
+        return pages[(int) (index >>> pageShift)];
+    }
+
+    private long next(MappedByteBuffer[] pages, long from) {
+        while (from <= mask && page(pages, from).get(offset(from)) != USED) {
+            from++;
+        }
+        return from;
+    }
+
+    private int offset(long index) {
+        return (int) (index & ((1L << pageShift) - 1)) * slotWidth;
+    }
+
+    /**
+     * @return the index of the slot of the key, or {@code -(index of the free slot) - 1} if it does not exist
+     */
+    private long probe(ByteBuffer key) {
+        final MappedByteBuffer[] pages = pages();
+        long index = EncodedBytes.hash(key, 0, keyWidth) & mask;
+        while (true) {
+            final ByteBuffer page = page(pages, index);
+            final int offset = offset(index);
+            if (page.get(offset) == FREE) {
+                return -index - 1;
+            }
+            if (EncodedBytes.equal(page, offset + 1, key, 0, keyWidth)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * <p>Writes a {@link MappedTable} straight into the mapped pages of a temporary file next to its file.
+     * Every entry is encoded into {@link #key()} and {@link #value()} and stored by {@link #append()}.
+     * {@link #close()} writes the header once all the declared entries are stored and atomically moves
+     * the temporary file over the target, so the file is never seen incomplete and the pages still mapped
+     * from the previous file stay valid. If the table cannot be completed, the temporary file is deleted
+     * and the previous file is left as it was.</p>
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final Path path;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final MappedTable table;
+        private final ByteBuffer key;
+        private final ByteBuffer value;
+        private long count;
+
+        private Writer(Path path, int keyWidth, int valueWidth, long size) throws IOException {
+            this.path = path;
+            // the same directory, so that the move is a rename within one file system
+            final Path directory = path.toAbsolutePath().getParent();
+            this.temporary = Files.createTempFile(directory, path.getFileName().toString() + ".", ".tmp");
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.table = new MappedTable(channel, FileChannel.MapMode.READ_WRITE, keyWidth, valueWidth, size, capacityFor(size));
+            } catch (IOException | RuntimeException e) {
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            this.channel = channel;
+            this.key = table.keyBuffer();
+            this.value = table.valueBuffer();
+        }
+
+        /**
+         * Returns the buffer the key of the next entry is encoded into, at offset {@code 0}.
+         *
+         * @return the key buffer
+         */
+        public @NonNull ByteBuffer key() {
+            return key;
+        }
+
+        /**
+         * Returns the buffer the value of the next entry is encoded into, at offset {@code 0}.
+         *
+         * @return the value buffer
+         */
+        public @NonNull ByteBuffer value() {
+            return value;
+        }
+
+        /**
+         * Stores the entry encoded in {@link #key()} and {@link #value()}.
+         *
+         * @throws IllegalStateException if all the declared entries are already stored
+         * @throws IllegalArgumentException if the encoded key is already stored
+         */
+        public void append() {
+            if (count == table.size) {
+                throw new IllegalStateException("More entries than the declared " + table.size);
+            }
+            final long found = table.probe(key);
+            if (found >= 0) {
+                throw new IllegalArgumentException("Duplicate encoded key in " + path);
+            }
+            final long index = -found - 1;
+            final ByteBuffer page = table.page(index);
+            final int offset = table.offset(index);
+            page.put(offset + 1, key, 0, table.keyWidth);
+            page.put(offset + 1 + table.keyWidth, value, 0, table.valueWidth);
+            page.put(offset, USED);
+            count++;
+        }
+
+        /**
+         * Flushes the table, writes its header and moves it over the file of the table.
+         *
+         * @throws IOException if the file cannot be written, the previous file is left as it was
+         * @throws IllegalStateException if fewer entries than declared were stored, the previous file is left as it was
+         */
+        @Override
+        public void close() throws IOException {
+            boolean written = false;
+            try {
+                complete();
+                written = true;
+            } finally {
+                if (!written) {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+        }
+
+        private void complete() throws IOException {
+            try (channel) {
+                if (count != table.size) {
+                    throw new IllegalStateException("Stored " + count + " of the declared " + table.size + " entries");
+                }
+                for (MappedByteBuffer page : table.pages) {
+                    page.force();
+                }
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(table.keyWidth)
+                        .putInt(table.valueWidth)
+                        .putLong(table.size)
+                        .putLong(table.capacity())
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            } finally {
+                table.unmap();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ *  collections - cz.majksa.commons.collections.codec.StreamCodec
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.codec;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p><b>Interface {@link cz.majksa.commons.collections.codec.StreamCodec}</b></p>
+ * <p>Writes values of a type into a {@link BinaryOutput} and reads them back from a {@link BinaryInput},
+ * in as many bytes as each value needs.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface StreamCodec<T> {
+
+    /**
+     * {@code long} values, written as signed varints
+     */
+    StreamCodec<Long> LONG = new StreamCodec<>() {
+        @Override
+        public void write(@NonNull BinaryOutput output, @NonNull Long value) throws IOException {
+            output.writeSignedVarLong(value);
+        }
+
+        @Override
+        public @NonNull Long read(@NonNull BinaryInput input) throws IOException {
+            return input.readSignedVarLong();
+        }
+    };
+
+    /**
+     * {@code int} values, written as signed varints
+     */
+    StreamCodec<Integer> INTEGER = new StreamCodec<>() {
+        @Override
+        public void write(@NonNull BinaryOutput output, @NonNull Integer value) throws IOException {
+            output.writeSignedVarInt(value);
+        }
+
+        @Override
+        public @NonNull Integer read(@NonNull BinaryInput input) throws IOException {
+            return input.readSignedVarInt();
+        }
+    };
+
+    /**
+     * {@code double} values, written as their 8 bytes
+     */
+    StreamCodec<Double> DOUBLE = new StreamCodec<>() {
+        @Override
+        public void write(@NonNull BinaryOutput output, @NonNull Double value) throws IOException {
+            output.writeDouble(value);
+        }
+
+        @Override
+        public @NonNull Double read(@NonNull BinaryInput input) throws IOException {
+            return input.readDouble();
+        }
+    };
+
+    /**
+     * strings, written as their UTF-8 encoding prefixed by its length
+     */
+    StreamCodec<String> STRING = new StreamCodec<>() {
+        @Override
+        public void write(@NonNull BinaryOutput output, @NonNull String value) throws IOException {
+            output.writeString(value);
+        }
+
+        @Override
+        public @NonNull String read(@NonNull BinaryInput input) throws IOException {
+            return input.readString();
+        }
+    };
+
+    /**
+     * byte arrays, written as they are prefixed by their length
+     */
+    StreamCodec<byte[]> BYTES = new StreamCodec<>() {
+        @Override
+        public void write(@NonNull BinaryOutput output, @NonNull byte[] value) throws IOException {
+            output.writeVarInt(value.length);
+            output.writeBytes(value);
+        }
+
+        @Override
+        public @NonNull byte[] read(@NonNull BinaryInput input) throws IOException {
+            return input.readBytes(input.readVarInt());
+        }
+    };
+
+    /**
+     * Adapts a {@link FixedWidthCodec}, the values are written as the bytes it encodes them into.
+     *
+     * @param codec the fixed-width codec
+     * @return the stream codec
+     */
+    static <T> @NonNull StreamCodec<T> fixed(@NonNull FixedWidthCodec<T> codec) {
+        final int width = codec.width();
+        return new StreamCodec<>() {
+            @Override
+            public void write(@NonNull BinaryOutput output, @NonNull T value) throws IOException {
+                final ByteBuffer buffer = ByteBuffer.allocate(width).order(ByteOrder.LITTLE_ENDIAN);
+                codec.write(buffer, 0, value);
+                output.writeBytes(buffer.array());
+            }
+
+            @Override
+            public @NonNull T read(@NonNull BinaryInput input) throws IOException {
+                return codec.read(ByteBuffer.wrap(input.readBytes(width)).order(ByteOrder.LITTLE_ENDIAN), 0);
+            }
+        };
+    }
+
+    /**
+     * Writes the value.
+     *
+     * @param output the output
+     * @param value the value
+     * @throws IOException if the output cannot be written
+     */
+    void write(@NonNull BinaryOutput output, @NonNull T value) throws IOException;
+
+    /**
+     * Reads a value written by {@link #write(BinaryOutput, Object)}.
+     *
+     * @param input the input
+     * @return the value
+     * @throws IOException if the input cannot be read or ends prematurely
+     */
+    @NonNull T read(@NonNull BinaryInput input) throws IOException;
+
+}
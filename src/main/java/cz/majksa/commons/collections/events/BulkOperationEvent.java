@@ -0,0 +1,106 @@
+/*
+ *  collections - cz.majksa.commons.collections.events.BulkOperationEvent
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.events;
+
+import cz.majksa.commons.collections.metrics.Instrumented;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.events.BulkOperationEvent}</b></p>
+ * <p>Times an operation walking or copying many entries of a map, such as a batch insertion or a copy,
+ * by default only when it takes ten milliseconds or more.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Name("cz.majksa.commons.collections.BulkOperation")
+@Label("Map Bulk Operation")
+@Description("An operation of a checked map walking or copying many entries")
+@Threshold("10 ms")
+@StackTrace(true)
+public final class BulkOperationEvent extends MapEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entries")
+    @Description("The number of entries processed")
+    int entries;
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the started event
+     */
+    public static @NonNull BulkOperationEvent start() {
+        final BulkOperationEvent event = new BulkOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the operation and records it if the event is enabled and the operation took long enough.
+     *
+     * @param map the map
+     * @param size the size of the map after the operation
+     * @param key a key of the processed entries, {@code null} if there are none
+     * @param operation the name of the operation
+     * @param entries the number of processed entries
+     */
+    public void finish(@NonNull Instrumented map, int size, @Nullable Object key, @NonNull String operation, int entries) {
+        end();
+        if (shouldCommit()) {
+            set(map, size, key);
+            this.operation = operation;
+            this.entries = entries;
+            commit();
+        }
+    }
+
+    /**
+     * Stops timing an operation on a batch of entries and records it if the event is enabled and the operation took
+     * long enough. The batch is read only when the event is recorded, its first key is reported.
+     *
+     * @param map the map
+     * @param size the size of the map after the operation
+     * @param entries the processed entries
+     * @param operation the name of the operation
+     */
+    public void finish(@NonNull Instrumented map, int size, @NonNull Collection<? extends Map.Entry<?, ?>> entries, @NonNull String operation) {
+        end();
+        if (shouldCommit()) {
+            set(map, size, entries.isEmpty() ? null : entries.iterator().next().getKey());
+            this.operation = operation;
+            this.entries = entries.size();
+            commit();
+        }
+    }
+
+}
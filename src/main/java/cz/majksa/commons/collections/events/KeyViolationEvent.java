@@ -0,0 +1,73 @@
+/*
+ *  collections - cz.majksa.commons.collections.events.KeyViolationEvent
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.events;
+
+import cz.majksa.commons.collections.metrics.Instrumented;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.NonNull;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.events.KeyViolationEvent}</b></p>
+ * <p>Emitted when a map throws because a key does not exist or already exists.
+ * Disabled by default, as misses may be frequent, enable {@code cz.majksa.commons.collections.KeyViolation}
+ * in the recording settings.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Name("cz.majksa.commons.collections.KeyViolation")
+@Label("Key Violation")
+@Description("A checked map rejected a key that does not exist or already exists")
+@Enabled(false)
+@StackTrace(true)
+public final class KeyViolationEvent extends MapEvent {
+
+    @Label("Violation")
+    Class<?> violation;
+
+    @Label("Keys")
+    @Description("The number of rejected keys")
+    int keys;
+
+    /**
+     * Records the violation if the event is enabled.
+     *
+     * @param map the map
+     * @param size the size of the map
+     * @param key the rejected key, the first one of several
+     * @param violation the thrown exception
+     * @param keys the number of rejected keys
+     */
+    public static void emit(@NonNull Instrumented map, int size, @NonNull Object key, @NonNull RuntimeException violation, int keys) {
+        final KeyViolationEvent event = new KeyViolationEvent();
+        if (event.shouldCommit()) {
+            event.set(map, size, key);
+            event.violation = violation.getClass();
+            event.keys = keys;
+            event.commit();
+        }
+    }
+
+}
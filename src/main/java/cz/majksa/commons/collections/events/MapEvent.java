@@ -0,0 +1,68 @@
+/*
+ *  collections - cz.majksa.commons.collections.events.MapEvent
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.events;
+
+import cz.majksa.commons.collections.metrics.Instrumented;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.events.MapEvent}</b></p>
+ * <p>Base of the Java Flight Recorder events of the maps, identifying the map and the key.
+ * The events are configured by the usual JFR settings under their names, an event that is not enabled
+ * is never filled, so it costs nothing but the check.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Category({"Collections", "Maps"})
+abstract class MapEvent extends Event {
+
+    @Label("Map Class")
+    Class<?> mapClass;
+
+    @Label("Map Name")
+    @Description("The name set by Instrumented#setName(String), if any")
+    String mapName;
+
+    @Label("Map Identity")
+    @Description("The identity hash code of the map, telling apart unnamed maps of the same class")
+    int mapIdentity;
+
+    @Label("Map Size")
+    int mapSize;
+
+    @Label("Key Class")
+    Class<?> keyClass;
+
+    void set(@NonNull Instrumented map, int size, @Nullable Object key) {
+        mapClass = map.getClass();
+        mapName = map.getName();
+        mapIdentity = System.identityHashCode(map);
+        mapSize = size;
+        keyClass = key == null ? null : key.getClass();
+    }
+
+}
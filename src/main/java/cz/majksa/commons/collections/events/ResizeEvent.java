@@ -0,0 +1,93 @@
+/*
+ *  collections - cz.majksa.commons.collections.events.ResizeEvent
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.events;
+
+import cz.majksa.commons.collections.metrics.Instrumented;
+import cz.majksa.commons.collections.metrics.MapMetrics;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.NonNull;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.events.ResizeEvent}</b></p>
+ * <p>Times an insertion that grows a hash table of a map, by default only when it takes a millisecond or more.</p>
+ * <p>The tables do not tell when they grow, so an insertion is timed when the size reaches a threshold
+ * {@link java.util.HashMap} grows at with its default capacity, {@code 12, 24, 48, ...}.
+ * A presized table skips some of them, the duration then tells that it did not grow.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Name("cz.majksa.commons.collections.Resize")
+@Label("Map Resize")
+@Description("An insertion growing a hash table of a checked map")
+@Threshold("1 ms")
+@StackTrace(true)
+public final class ResizeEvent extends MapEvent {
+
+    private static final int FIRST_THRESHOLD = 12;
+
+    @Label("Capacity")
+    @Description("The estimated capacity of the grown table")
+    int capacity;
+
+    /**
+     * Tells whether an insertion into a table of the specified size may grow it.
+     *
+     * @param size the size of the table before the insertion
+     * @return {@code true} if the size is {@code 12, 24, 48, ...}
+     */
+    public static boolean isThreshold(int size) {
+        return size >= FIRST_THRESHOLD && (size & -size) * 3 == size;
+    }
+
+    /**
+     * Starts timing an insertion.
+     *
+     * @return the started event
+     */
+    public static @NonNull ResizeEvent start() {
+        final ResizeEvent event = new ResizeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the insertion and records it if the event is enabled and the insertion took long enough.
+     *
+     * @param map the map
+     * @param size the size of the map after the insertion
+     * @param key the inserted key
+     * @param tableSize the size of the grown table after the insertion
+     */
+    public void finish(@NonNull Instrumented map, int size, @NonNull Object key, int tableSize) {
+        end();
+        if (shouldCommit()) {
+            set(map, size, key);
+            capacity = MapMetrics.capacityFor(tableSize);
+            commit();
+        }
+    }
+
+}
@@ -1,34 +1,200 @@
 package cz.majksa.commons.collections.exceptions;
 
-import lombok.Getter;
 import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
  * Thrown when there is an exception when handling map argument.
+ * <p>
+ * The message is rendered lazily by {@link #getMessage()} and shows at most
+ * {@link cz.majksa.commons.collections.exceptions.ViolationPolicy#getPreviewSize()} entries of the map,
+ * so throwing does not depend on the size of the map. The preview shows the map as it is
+ * when the message is first rendered.
  *
  * @see java.lang.IllegalArgumentException
+ * @see cz.majksa.commons.collections.exceptions.ViolationPolicy
  * @author Majksa
  */
 public class IllegalMapArgumentException extends IllegalArgumentException {
 
     private static final long serialVersionUID = -5044849357797216639L;
 
+    private final String description;
+
+    /**
+     * the map, the {@link java.lang.ref.WeakReference} to the map or {@code null},
+     * depending on the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy.Retention}
+     */
+    private final transient Object reference;
+
     /**
-     * the {@link java.util.Map} with the problem
+     * the size of the map at the time of the violation
      */
-    @Getter
-    protected final Map<?, ?> map;
+    private final int size;
+
+    private final int previewSize;
+
+    private final boolean stackTrace;
+
+    private String message;
 
     /**
      * {@link cz.majksa.commons.collections.exceptions.IllegalMapArgumentException} constructor
      *
+     * @param description the description of the problem
      * @param map the {@link java.util.Map} with the problem
      */
     public IllegalMapArgumentException(@NonNull String description, @NonNull Map<?, ?> map) {
-        super(String.format("%s in %s", description, map));
-        this.map = map;
+        this(description, map, ViolationPolicy.getGlobal());
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.IllegalMapArgumentException} constructor
+     *
+     * @param description the description of the problem
+     * @param map the {@link java.util.Map} with the problem
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public IllegalMapArgumentException(@NonNull String description, @NonNull Map<?, ?> map, @NonNull ViolationPolicy policy) {
+        this(description, map, map.size(), policy);
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.IllegalMapArgumentException} constructor
+     *
+     * @param description the description of the problem, {@code null} if the subclass overrides {@link #describe()}
+     * @param container the collection with the problem, rendered as a preview only if it is
+     *                  a {@link java.util.Map} or a {@link java.util.Collection}
+     * @param size the size of the collection
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    protected IllegalMapArgumentException(@Nullable String description, @NonNull Object container, int size, @NonNull ViolationPolicy policy) {
+        super(description);
+        this.description = description;
+        switch (policy.getRetention()) {
+            case STRONG:
+                this.reference = container;
+                break;
+            case WEAK:
+                this.reference = new WeakReference<>(container);
+                break;
+            default:
+                this.reference = null;
+        }
+        this.size = size;
+        this.previewSize = policy.getPreviewSize();
+        this.stackTrace = policy.isStackTrace();
+        if (stackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    /**
+     * Returns the {@link java.util.Map} with the problem.
+     *
+     * @return the map, or {@code null} if it was not retained or has already been collected
+     */
+    public @Nullable Map<?, ?> getMap() {
+        final Object container = getContainer();
+        return container instanceof Map ? (Map<?, ?>) container : null;
+    }
+
+    /**
+     * Returns the size of the map at the time of the violation.
+     *
+     * @return the size of the map
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the description of the problem, without the map.
+     *
+     * @return the description
+     */
+    protected String describe() {
+        return description;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = this.message;
+        if (message == null) {
+            message = String.format("%s in %s", describe(), preview());
+            this.message = message;
+        }
+        return message;
+    }
+
+    /**
+     * The stack trace is captured by the constructor if the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} asks for it.
+     *
+     * @return this exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return stackTrace ? super.fillInStackTrace() : this;
+    }
+
+    private @Nullable Object getContainer() {
+        if (reference instanceof WeakReference) {
+            return ((WeakReference<?>) reference).get();
+        }
+        return reference;
+    }
+
+    private String preview() {
+        final Object container = getContainer();
+        final Iterator<?> iterator;
+        final StringBuilder builder;
+        if (container instanceof Map && previewSize > 0) {
+            iterator = ((Map<?, ?>) container).entrySet().iterator();
+            builder = new StringBuilder("{");
+        } else if (container instanceof Collection && previewSize > 0) {
+            iterator = ((Collection<?>) container).iterator();
+            builder = new StringBuilder("[");
+        } else {
+            return String.format("map of %d entries", size);
+        }
+        try {
+            int rendered = 0;
+            while (iterator.hasNext() && rendered < previewSize) {
+                final Object element = iterator.next();
+                if (rendered++ > 0) {
+                    builder.append(", ");
+                }
+                if (element instanceof Map.Entry) {
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+                    builder.append(render(entry.getKey(), container)).append('=').append(render(entry.getValue(), container));
+                } else {
+                    builder.append(render(element, container));
+                }
+            }
+            if (iterator.hasNext()) {
+                builder.append(", ... (").append(size).append(" entries)");
+            }
+        } catch (ConcurrentModificationException | IllegalStateException e) {
+            return String.format("map of %d entries", size);
+        }
+        return builder.append(builder.charAt(0) == '{' ? '}' : ']').toString();
+    }
+
+    private static String render(Object object, Object container) {
+        return object == container ? "(this Map)" : String.valueOf(object);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
     }
 
 }
@@ -2,6 +2,9 @@ package cz.majksa.commons.collections.exceptions;
 
 import lombok.NonNull;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -16,19 +19,71 @@ public class KeyAlreadyExistsException extends IllegalMapArgumentException {
     private static final long serialVersionUID = 6014089554908080967L;
 
     /**
-     * the {@link String} key that already exists
+     * the key that already exists, rendered only with the message
      */
-    protected final String key;
+    protected final transient Object key;
+
+    /**
+     * the rendered key, kept when the exception is serialized
+     */
+    private String renderedKey;
 
     /**
      * {@link cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException} constructor
      *
-     * @param key {@link String} the key that already exists
+     * @param key the key that already exists
      * @param map the {@link java.util.Map} with the problem
      */
-    public KeyAlreadyExistsException(@NonNull String key, @NonNull Map<?, ?> map) {
-        super(String.format("Key %s already exists", key), map);
+    public KeyAlreadyExistsException(@NonNull Object key, @NonNull Map<?, ?> map) {
+        this(key, map, ViolationPolicy.getGlobal());
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException} constructor
+     *
+     * @param key the key that already exists
+     * @param map the {@link java.util.Map} with the problem
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public KeyAlreadyExistsException(@NonNull Object key, @NonNull Map<?, ?> map, @NonNull ViolationPolicy policy) {
+        super(null, map, map.size(), policy);
+        this.key = key;
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException} constructor
+     *
+     * @param key the key that already exists
+     * @param collection the view of the collection with the problem, used when the collection is not a {@link java.util.Map}
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public KeyAlreadyExistsException(@NonNull Object key, @NonNull Collection<?> collection, @NonNull ViolationPolicy policy) {
+        super(null, collection, collection.size(), policy);
         this.key = key;
     }
 
+    /**
+     * Returns the key that already exists, rendered when first needed.
+     *
+     * @return the {@link String} key
+     */
+    public @NonNull String getKey() {
+        String renderedKey = this.renderedKey;
+        if (renderedKey == null) {
+            renderedKey = String.valueOf(key);
+            this.renderedKey = renderedKey;
+        }
+        return renderedKey;
+    }
+
+    @Override
+    protected String describe() {
+        return String.format("Key %s already exists", getKey());
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getKey();
+        out.defaultWriteObject();
+    }
+
 }
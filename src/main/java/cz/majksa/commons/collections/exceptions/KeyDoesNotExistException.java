@@ -1,8 +1,10 @@
 package cz.majksa.commons.collections.exceptions;
 
-import lombok.Getter;
 import lombok.NonNull;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -12,25 +14,76 @@ import java.util.Map;
  * @see java.lang.IllegalArgumentException
  * @author Majksa
  */
-@Getter
 public class KeyDoesNotExistException extends IllegalMapArgumentException {
 
     private static final long serialVersionUID = -2637065731730377159L;
 
     /**
-     * the {@link String} key that does not found
+     * the key that was not found, rendered only with the message
      */
-    protected final String key;
+    protected final transient Object key;
+
+    /**
+     * the rendered key, kept when the exception is serialized
+     */
+    private String renderedKey;
 
     /**
      * {@link cz.majksa.commons.collections.exceptions.KeyDoesNotExistException} constructor
      *
-     * @param key the {@link String} key that was not found
+     * @param key the key that was not found
      * @param map the {@link java.util.Map} with the problem
      */
-    public KeyDoesNotExistException(@NonNull String key, @NonNull Map<?, ?> map) {
-        super(String.format("Key %s does not exist", key), map);
+    public KeyDoesNotExistException(@NonNull Object key, @NonNull Map<?, ?> map) {
+        this(key, map, ViolationPolicy.getGlobal());
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.KeyDoesNotExistException} constructor
+     *
+     * @param key the key that was not found
+     * @param map the {@link java.util.Map} with the problem
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public KeyDoesNotExistException(@NonNull Object key, @NonNull Map<?, ?> map, @NonNull ViolationPolicy policy) {
+        super(null, map, map.size(), policy);
+        this.key = key;
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.KeyDoesNotExistException} constructor
+     *
+     * @param key the key that was not found
+     * @param collection the view of the collection with the problem, used when the collection is not a {@link java.util.Map}
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public KeyDoesNotExistException(@NonNull Object key, @NonNull Collection<?> collection, @NonNull ViolationPolicy policy) {
+        super(null, collection, collection.size(), policy);
         this.key = key;
     }
 
+    /**
+     * Returns the key that was not found, rendered when first needed.
+     *
+     * @return the {@link String} key
+     */
+    public @NonNull String getKey() {
+        String renderedKey = this.renderedKey;
+        if (renderedKey == null) {
+            renderedKey = String.valueOf(key);
+            this.renderedKey = renderedKey;
+        }
+        return renderedKey;
+    }
+
+    @Override
+    protected String describe() {
+        return String.format("Key %s does not exist", getKey());
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getKey();
+        out.defaultWriteObject();
+    }
+
 }
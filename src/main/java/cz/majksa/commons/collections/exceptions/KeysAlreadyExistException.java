@@ -0,0 +1,102 @@
+package cz.majksa.commons.collections.exceptions;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when a batch of entries holds keys that already exist, in the map or earlier in the batch.
+ * Lists every conflicting key, the map is left as it was before the batch.
+ *
+ * @see cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException
+ * @see java.lang.IllegalArgumentException
+ * @author Majksa
+ */
+public class KeysAlreadyExistException extends KeyAlreadyExistsException {
+
+    private static final long serialVersionUID = -3518729427364105922L;
+
+    /**
+     * the keys that already exist, in the order of the batch, rendered only with the message
+     */
+    protected final transient List<?> keys;
+
+    /**
+     * the rendered keys, kept when the exception is serialized
+     */
+    private List<String> renderedKeys;
+
+    /**
+     * the maximum number of keys rendered into the message
+     */
+    private final int previewSize;
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.KeysAlreadyExistException} constructor
+     *
+     * @param keys the keys that already exist, at least one
+     * @param map the {@link java.util.Map} with the problem
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     * @throws IllegalArgumentException if there are no keys
+     */
+    public KeysAlreadyExistException(@NonNull List<?> keys, @NonNull Map<?, ?> map, @NonNull ViolationPolicy policy) {
+        super(firstKey(keys), map, policy);
+        this.keys = List.copyOf(keys);
+        this.previewSize = Math.max(1, policy.getPreviewSize());
+    }
+
+    private static Object firstKey(List<?> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("No conflicting keys");
+        }
+        return keys.get(0);
+    }
+
+    /**
+     * Returns the keys that already exist, rendered when first needed.
+     *
+     * @return the {@link String} keys, in the order of the batch
+     */
+    public @NonNull List<String> getKeys() {
+        List<String> renderedKeys = this.renderedKeys;
+        if (renderedKeys == null) {
+            final List<String> rendered = new ArrayList<>(keys.size());
+            for (Object key : keys) {
+                rendered.add(String.valueOf(key));
+            }
+            renderedKeys = Collections.unmodifiableList(rendered);
+            this.renderedKeys = renderedKeys;
+        }
+        return renderedKeys;
+    }
+
+    @Override
+    protected String describe() {
+        final List<String> keys = getKeys();
+        if (keys.size() == 1) {
+            return super.describe();
+        }
+        final StringBuilder builder = new StringBuilder("Keys [");
+        for (int i = 0; i < keys.size() && i < previewSize; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys.get(i));
+        }
+        if (keys.size() > previewSize) {
+            builder.append(", ... (").append(keys.size()).append(" keys)");
+        }
+        return builder.append("] already exist").toString();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getKeys();
+        out.defaultWriteObject();
+    }
+
+}
@@ -0,0 +1,76 @@
+package cz.majksa.commons.collections.exceptions;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+/**
+ * Thrown when value of the map already exists, in a map whose values are unique.
+ *
+ * @see cz.majksa.commons.collections.exceptions.IllegalMapArgumentException
+ * @see java.lang.IllegalArgumentException
+ * @author Majksa
+ */
+public class ValueAlreadyExistsException extends IllegalMapArgumentException {
+
+    private static final long serialVersionUID = -2871360472915033571L;
+
+    /**
+     * the value that already exists, rendered only with the message
+     */
+    protected final transient Object value;
+
+    /**
+     * the rendered value, kept when the exception is serialized
+     */
+    private String renderedValue;
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException} constructor
+     *
+     * @param value the value that already exists
+     * @param map the {@link java.util.Map} with the problem
+     */
+    public ValueAlreadyExistsException(@NonNull Object value, @NonNull Map<?, ?> map) {
+        this(value, map, ViolationPolicy.getGlobal());
+    }
+
+    /**
+     * {@link cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException} constructor
+     *
+     * @param value the value that already exists
+     * @param map the {@link java.util.Map} with the problem
+     * @param policy the {@link cz.majksa.commons.collections.exceptions.ViolationPolicy} to follow
+     */
+    public ValueAlreadyExistsException(@NonNull Object value, @NonNull Map<?, ?> map, @NonNull ViolationPolicy policy) {
+        super(null, map, map.size(), policy);
+        this.value = value;
+    }
+
+    /**
+     * Returns the value that already exists, rendered when first needed.
+     *
+     * @return the {@link String} value
+     */
+    public @NonNull String getValue() {
+        String renderedValue = this.renderedValue;
+        if (renderedValue == null) {
+            renderedValue = String.valueOf(value);
+            this.renderedValue = renderedValue;
+        }
+        return renderedValue;
+    }
+
+    @Override
+    protected String describe() {
+        return String.format("Value %s already exists", getValue());
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getValue();
+        out.defaultWriteObject();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *  collections - cz.majksa.commons.collections.exceptions.ViolationPolicy
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.exceptions;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.With;
+
+import java.io.Serializable;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.exceptions.ViolationPolicy}</b></p>
+ * <p>Describes how expensive a thrown {@link cz.majksa.commons.collections.exceptions.IllegalMapArgumentException}
+ * is allowed to be: what it keeps of the map, how much of the map its message shows
+ * and whether it captures a stack trace.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Getter
+@With
+@RequiredArgsConstructor
+public final class ViolationPolicy implements Serializable {
+
+    private static final long serialVersionUID = 3287196514327937012L;
+
+    /**
+     * keeps a strong reference to the map, previews up to 16 entries and captures the stack trace
+     */
+    public static final ViolationPolicy DEFAULT = new ViolationPolicy(Retention.STRONG, 16, true);
+
+    /**
+     * keeps only the size of the map and does not capture the stack trace,
+     * meant for maps where the violations are used as a control-flow signal
+     */
+    public static final ViolationPolicy CHEAP = new ViolationPolicy(Retention.NONE, 0, false);
+
+    private static volatile @NonNull ViolationPolicy global = DEFAULT;
+
+    /**
+     * what the exception keeps of the map
+     */
+    private final @NonNull Retention retention;
+
+    /**
+     * the maximum number of entries rendered into the exception message
+     */
+    private final int previewSize;
+
+    /**
+     * whether the exception captures the stack trace
+     */
+    private final boolean stackTrace;
+
+    /**
+     * Returns the policy used by maps that do not have their own policy set.
+     *
+     * @return the global policy
+     */
+    public static @NonNull ViolationPolicy getGlobal() {
+        return global;
+    }
+
+    /**
+     * Sets the policy used by maps that do not have their own policy set.
+     *
+     * @param policy the new global policy
+     */
+    public static void setGlobal(@NonNull ViolationPolicy policy) {
+        global = policy;
+    }
+
+    /**
+     * What an {@link cz.majksa.commons.collections.exceptions.IllegalMapArgumentException} keeps of the map.
+     */
+    public enum Retention {
+
+        /**
+         * keeps a strong reference, the map stays reachable for as long as the exception is
+         */
+        STRONG,
+
+        /**
+         * keeps a weak reference, the map can be collected while the exception is still reachable
+         */
+        WEAK,
+
+        /**
+         * keeps only the size of the map
+         */
+        NONE
+
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *  collections - cz.majksa.commons.collections.function.LongLongObjConsumer
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.function;
+
+/**
+ * <p><b>Interface {@link cz.majksa.commons.collections.function.LongLongObjConsumer}</b></p>
+ * <p>Operation accepting two {@code long} and an object argument, the {@code long}-keyed specialization of {@link TriConsumer}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface LongLongObjConsumer<V> {
+
+    /**
+     * Performs this operation on the given arguments.
+     *
+     * @param key1 the first argument
+     * @param key2 the second argument
+     * @param value the third argument
+     */
+    void accept(long key1, long key2, V value);
+
+}
@@ -0,0 +1,40 @@
+/*
+ *  collections - cz.majksa.commons.collections.function.LongObjConsumer
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.function;
+
+/**
+ * <p><b>Interface {@link cz.majksa.commons.collections.function.LongObjConsumer}</b></p>
+ * <p>Operation accepting a {@code long} and an object argument, the {@code long}-keyed specialization of {@link java.util.function.BiConsumer}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface LongObjConsumer<V> {
+
+    /**
+     * Performs this operation on the given arguments.
+     *
+     * @param key the first argument
+     * @param value the second argument
+     */
+    void accept(long key, V value);
+
+}
@@ -0,0 +1,471 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.CheckedBiMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.KeysAlreadyExistException;
+import cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * <p><b>Class {@link CheckedBiMap}</b></p>
+ * <p>{@link CheckedMap} whose values are unique as well, keeping an index of the keys by the values.
+ * A put throws a {@link KeyAlreadyExistsException} on a duplicate key and a {@link ValueAlreadyExistsException}
+ * on a duplicate value, {@link #containsValue(Object)} is a single lookup and {@link #inverse()}
+ * is a view mapping the values back to the keys, with the same checks.</p>
+ * <p>Neither keys nor values may be {@code null}. The views are read-only, so that both directions stay in step.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class CheckedBiMap<K, V> implements Map<K, V>, Serializable {
+
+    private static final long serialVersionUID = 4830257913064571178L;
+
+    private final @NonNull HashMap<K, V> forward;
+
+    private final @NonNull HashMap<V, K> backward;
+
+    private final @NonNull CheckedBiMap<V, K> inverse;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, shared with the inverse view,
+     * {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    private ViolationPolicy violationPolicy;
+
+    public CheckedBiMap() {
+        this(new HashMap<>(), new HashMap<>());
+    }
+
+    public CheckedBiMap(int initialCapacity) {
+        this(new HashMap<>(initialCapacity), new HashMap<>(initialCapacity));
+    }
+
+    /**
+     * Constructs a {@link CheckedBiMap} with the entries of the specified map.
+     *
+     * @param map the map whose entries are to be placed in this map
+     * @throws java.lang.NullPointerException if the map holds a null key or value
+     * @throws cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException if the map holds a value twice
+     */
+    public CheckedBiMap(@NonNull Map<? extends K, ? extends V> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    private CheckedBiMap(HashMap<K, V> forward, HashMap<V, K> backward) {
+        this.forward = forward;
+        this.backward = backward;
+        this.inverse = new CheckedBiMap<>(backward, forward, this);
+    }
+
+    private CheckedBiMap(HashMap<K, V> forward, HashMap<V, K> backward, CheckedBiMap<V, K> inverse) {
+        this.forward = forward;
+        this.backward = backward;
+        this.inverse = inverse;
+    }
+
+    /**
+     * Returns the inverse view of this map, mapping the values to the keys. The view is backed by this map,
+     * so the changes of either are seen by the other.
+     *
+     * @return the inverse view, whose inverse is this map
+     */
+    public @NonNull CheckedBiMap<V, K> inverse() {
+        return inverse;
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Sets the {@link ViolationPolicy} of the exceptions thrown by this map and its inverse view.
+     *
+     * @param violationPolicy the policy, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    public void setViolationPolicy(ViolationPolicy violationPolicy) {
+        this.violationPolicy = violationPolicy;
+        inverse.violationPolicy = violationPolicy;
+    }
+
+    @Override
+    public int size() {
+        return forward.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return forward.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return forward.containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A single lookup in the index of the values.</p>
+     */
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        return backward.containsKey(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final V value = forward.get(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final V value = forward.get(key);
+        if (value == null) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        return forward.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, neither the key nor the value existed
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     * @throws cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException if the specified value already exists
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) throws KeyAlreadyExistsException, ValueAlreadyExistsException {
+        if (forward.putIfAbsent(key, value) != null) {
+            throw keyAlreadyExists(key);
+        }
+        if (backward.putIfAbsent(value, key) != null) {
+            forward.remove(key);
+            throw valueAlreadyExists(value);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if neither exists yet, without throwing if either does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key or the value already exists
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     */
+    public boolean tryPut(@NonNull K key, @NonNull V value) {
+        if (forward.putIfAbsent(key, value) != null) {
+            return false;
+        }
+        if (backward.putIfAbsent(value, key) != null) {
+            forward.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        final V value = forward.remove(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        backward.remove(value);
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        final V value = forward.remove(key);
+        if (value == null) {
+            return false;
+        }
+        backward.remove(value);
+        return true;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final V value = forward.remove(key);
+        if (value == null) {
+            return false;
+        }
+        backward.remove(value);
+        slot.setValue(value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws java.lang.NullPointerException if the specified key or new value is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     * @throws cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException if the new value is associated with another key
+     */
+    @Override
+    public boolean replace(@NonNull K key, V oldValue, @NonNull V newValue) throws KeyDoesNotExistException, ValueAlreadyExistsException {
+        final V value = forward.get(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        if (!value.equals(oldValue)) {
+            return false;
+        }
+        relink(key, value, newValue);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     * @throws cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException if the value is associated with another key
+     */
+    @Override
+    public V replace(@NonNull K key, @NonNull V value) throws KeyDoesNotExistException, ValueAlreadyExistsException {
+        final V previous = forward.get(key);
+        if (previous == null) {
+            throw keyDoesNotExist(key);
+        }
+        relink(key, previous, value);
+        return previous;
+    }
+
+    private void relink(K key, V previous, V value) {
+        if (previous.equals(value)) {
+            return;
+        }
+        if (backward.putIfAbsent(value, key) != null) {
+            throw valueAlreadyExists(value);
+        }
+        backward.remove(previous);
+        forward.put(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>All or nothing: if any key or value already exists, or a value repeats in the specified map,
+     * the map is left as it was. The conflicting keys are reported first, then the first conflicting value.</p>
+     *
+     * @param m mappings to be stored in this map
+     * @throws java.lang.NullPointerException if the specified map holds a null key or value
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     * @throws cz.majksa.commons.collections.exceptions.ValueAlreadyExistsException if a value already exists
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        final Set<V> batch = new HashSet<>((int) Math.min(Integer.MAX_VALUE, m.size() * 4L / 3 + 1));
+        List<Object> conflicts = null;
+        V conflict = null;
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            final K key = entry.getKey();
+            final V value = entry.getValue();
+            if (key == null || value == null) {
+                throw new NullPointerException("key or value is marked non-null but is null");
+            }
+            if (forward.containsKey(key)) {
+                if (conflicts == null) {
+                    conflicts = new ArrayList<>();
+                }
+                conflicts.add(key);
+            }
+            if (conflict == null && (backward.containsKey(value) || !batch.add(value))) {
+                conflict = value;
+            }
+        }
+        if (conflicts != null) {
+            throw conflicts.size() == 1
+                    ? keyAlreadyExists(conflicts.get(0))
+                    : new KeysAlreadyExistException(conflicts, this, getViolationPolicy());
+        }
+        if (conflict != null) {
+            throw valueAlreadyExists(conflict);
+        }
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            forward.put(entry.getKey(), entry.getValue());
+            backward.put(entry.getValue(), entry.getKey());
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull BiConsumer<? super K, ? super V> action) {
+        forward.forEach(action);
+    }
+
+    @Override
+    public void clear() {
+        forward.clear();
+        backward.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only.</p>
+     */
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(forward.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, a set as the values are unique, iterated in the order of {@link #keySet()}.</p>
+     */
+    @Override
+    public Set<V> values() {
+        return new Values();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only.</p>
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableMap(forward).entrySet();
+    }
+
+    private final class Values extends AbstractSet<V> {
+
+        @Override
+        public @NonNull Iterator<V> iterator() {
+            return Collections.unmodifiableCollection(forward.values()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return forward.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return backward.containsKey(o);
+        }
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || forward.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return forward.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return forward.toString();
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+    private ValueAlreadyExistsException valueAlreadyExists(Object value) {
+        return new ValueAlreadyExistsException(value, this, getViolationPolicy());
+    }
+
+}
@@ -18,32 +18,81 @@
 
 package cz.majksa.commons.collections.map;
 
+import cz.majksa.commons.collections.events.BulkOperationEvent;
+import cz.majksa.commons.collections.events.KeyViolationEvent;
+import cz.majksa.commons.collections.events.ResizeEvent;
 import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
 import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.KeysAlreadyExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.metrics.Instrumented;
+import cz.majksa.commons.collections.metrics.MapMetrics;
+import cz.majksa.commons.collections.metrics.MetricsSnapshot;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p><b>Class {@link CheckedMap}</b></p>
+ * <p>The checked contract is kept on top of a backing {@link Map}, a {@link HashMap} unless another one
+ * is passed to {@link #wrap(Map)} or by a subclass, see {@link #CheckedMap(Map, ViolationPolicy)}.</p>
  *
  * @author majksa
  * @version 1.0.0
  * @since 1.0.0
  */
-public class CheckedMap<K, V> implements Map<K, V> {
+public class CheckedMap<K, V> implements Map<K, V>, Instrumented, Serializable {
+
+    private static final long serialVersionUID = 2203924573387275795L;
+
+    /**
+     * the sentinel returned by {@link Map#getOrDefault(Object, Object)} for absent keys,
+     * so that a single probe tells an absent key from a {@code null} value
+     */
+    private static final Object ABSENT = new Object();
 
     private final @NonNull Map<K, V> map;
 
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    /**
+     * the counters of the operations, {@code null} unless enabled by {@link #setMetricsEnabled(boolean)}
+     */
+    private transient MapMetrics metrics;
+
+    /**
+     * the name of this map in its flight recorder events, {@code null} if not set
+     */
+    @Getter
+    @Setter
+    private String name;
+
     public CheckedMap() {
         this.map = new HashMap<>();
     }
 
     public CheckedMap(@NonNull Map<K, V> map) {
+        final BulkOperationEvent event = BulkOperationEvent.start();
         this.map = new HashMap<>(map);
+        event.finish(this, map.size(), null, "copy", map.size());
     }
 
     public CheckedMap(int initialCapacity, float loadFactor) {
@@ -61,6 +110,70 @@ public class CheckedMap<K, V> implements Map<K, V> {
         this.map = new HashMap<>(initialCapacity);
     }
 
+    /**
+     * Constructs a map keeping the checked contract on top of the backing map, which is used as is, not copied.
+     * Any {@link Map} can back it, for example a {@link java.util.TreeMap} for sorted keys,
+     * an {@link java.util.IdentityHashMap} for keys compared by identity or a {@link java.util.LinkedHashMap}
+     * for insertion order, see {@link LinkedCheckedMap}. The checks rely on the size of the backing map,
+     * so a concurrently modified one does not make them atomic, see {@link ConcurrentCheckedMap} instead.
+     *
+     * @param map the backing map
+     * @param violationPolicy the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    protected CheckedMap(@NonNull Map<K, V> map, @Nullable ViolationPolicy violationPolicy) {
+        this.map = map;
+        this.violationPolicy = violationPolicy;
+    }
+
+    /**
+     * Returns a {@link CheckedMap} backed by the map, without copying it.
+     * Changes made through either are visible in the other, the checked map is serializable if the backing map is.
+     *
+     * @param map the backing map
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the checked map backed by the map
+     * @see #CheckedMap(Map, ViolationPolicy)
+     */
+    public static <K, V> @NonNull CheckedMap<K, V> wrap(@NonNull Map<K, V> map) {
+        return new CheckedMap<>(map, null);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            metrics = null;
+        } else if (metrics == null) {
+            metrics = new MapMetrics(map.size());
+        }
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The layout is known only for a {@link HashMap} or a {@link ConcurrentHashMap} backing map,
+     * the rows are the occupied buckets of its table.</p>
+     */
+    @Override
+    public @NonNull MetricsSnapshot metrics() {
+        final MapMetrics metrics = this.metrics;
+        final boolean hashed = map instanceof HashMap || map instanceof ConcurrentHashMap;
+        return (metrics != null ? metrics : new MapMetrics(map.size())).snapshot(hashed ? map.keySet() : null, map.size(), 0);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -126,11 +239,59 @@ public class CheckedMap<K, V> implements Map<K, V> {
      * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
      */
     @Override
+    @SuppressWarnings("unchecked")
     public V get(@NonNull Object key) throws KeyDoesNotExistException {
-        if (!containsKey(key)) {
-            throw new KeyDoesNotExistException(key.toString(), this);
+        final V value = map.getOrDefault(key, (V) ABSENT);
+        final MapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordGet(value != ABSENT);
+        }
+        if (value == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final V value = map.getOrDefault(key, (V) ABSENT);
+        final MapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordGet(value != ABSENT);
+        }
+        if (value == ABSENT) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final MapMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return map.getOrDefault(key, defaultValue);
         }
-        return map.get(key);
+        final V value = map.getOrDefault(key, (V) ABSENT);
+        metrics.recordGet(value != ABSENT);
+        return value == ABSENT ? defaultValue : value;
     }
 
     /**
@@ -155,10 +316,49 @@ public class CheckedMap<K, V> implements Map<K, V> {
      */
     @Override
     public V put(@NonNull K key, V value) throws KeyAlreadyExistsException {
-        if (containsKey(key)) {
-            throw new KeyAlreadyExistsException(key.toString(), this);
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
         }
-        return map.put(key, value);
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryPut(@NonNull K key, V value) {
+        final int size = map.size();
+        if (ResizeEvent.isThreshold(size)) {
+            final ResizeEvent event = ResizeEvent.start();
+            final boolean stored = insert(key, value, size);
+            if (stored) {
+                event.finish(this, size + 1, key, size + 1);
+            }
+            return stored;
+        }
+        return insert(key, value, size);
+    }
+
+    private boolean insert(K key, V value, int size) {
+        final V previous = map.putIfAbsent(key, value);
+        final boolean stored = map.size() != size;
+        if (!stored && previous == null) {
+            // putIfAbsent overwrites a null value, restore it
+            map.put(key, null);
+        }
+        final MapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordPut(stored);
+            if (stored) {
+                metrics.recordSize(size + 1);
+            }
+        }
+        return stored;
     }
 
     /**
@@ -177,14 +377,49 @@ public class CheckedMap<K, V> implements Map<K, V> {
      */
     @Override
     public V remove(@NonNull Object key) {
-        if (!containsKey(key)) {
-            throw new KeyDoesNotExistException(key.toString(), this);
+        final int size = map.size();
+        final V value = map.remove(key);
+        if (map.size() == size) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        final int size = map.size();
+        map.remove(key);
+        return map.size() != size;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final int size = map.size();
+        final V value = map.remove(key);
+        if (map.size() == size) {
+            return false;
         }
-        return map.remove(key);
+        slot.setValue(value);
+        return true;
     }
 
     /**
      * {@inheritDoc}
+     * <p>All or nothing: the table is grown once for all the mappings, which are then stored with a single probe each.
+     * If any key already exists, every conflicting key is reported and the map is left as it was.</p>
      *
      * @param m mappings to be stored in this map
      * @throws java.lang.UnsupportedOperationException if the {@code putAll} operation
@@ -195,15 +430,108 @@ public class CheckedMap<K, V> implements Map<K, V> {
      *         this map does not permit null keys or values
      * @throws java.lang.IllegalArgumentException if some property of a key or value in
      *         the specified map prevents it from being stored in this map
-     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
      */
     @Override
-    public void putAll(Map<? extends K, ? extends V> m) {
-        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
-            put(entry.getKey(), entry.getValue());
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        putAll(m.entrySet());
+    }
+
+    /**
+     * Copies all of the entries into this map, all or nothing. Unlike a map, the entries may repeat a key,
+     * which is reported as conflicting with its first occurrence.
+     *
+     * @param entries entries to be stored in this map
+     * @throws java.lang.NullPointerException if any key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     */
+    public void putAll(@NonNull Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        try {
+            putAllOrNothing(entries);
+        } finally {
+            event.finish(this, map.size(), entries, "putAll");
         }
     }
 
+    private void putAllOrNothing(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        ensureCapacity((int) Math.min(Integer.MAX_VALUE, (long) map.size() + entries.size()));
+        // positions of the stored entries, tracked only once an entry was rejected, all the previous ones were stored
+        BitSet stored = null;
+        List<Object> conflicts = null;
+        Object conflict = null;
+        int index = 0;
+        try {
+            for (Entry<? extends K, ? extends V> entry : entries) {
+                if (tryPut(entry.getKey(), entry.getValue())) {
+                    if (stored != null) {
+                        stored.set(index);
+                    }
+                } else {
+                    if (conflicts == null) {
+                        conflicts = new ArrayList<>();
+                        conflict = entry.getKey();
+                        stored = new BitSet(entries.size());
+                        stored.set(0, index);
+                    }
+                    conflicts.add(entry.getKey());
+                }
+                index++;
+            }
+        } catch (RuntimeException e) {
+            undo(entries, stored, index);
+            throw e;
+        }
+        if (conflicts != null) {
+            undo(entries, stored, index);
+            throw keysAlreadyExist(conflicts, conflict);
+        }
+    }
+
+    /**
+     * Removes the entries stored by an interrupted {@link #putAll(Collection)}.
+     *
+     * @param stored the positions of the stored entries, {@code null} if all the entries before {@code end} were stored
+     * @param end the position the batch stopped at
+     */
+    private void undo(Collection<? extends Entry<? extends K, ? extends V>> entries, BitSet stored, int end) {
+        int index = 0;
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            if (index == end) {
+                break;
+            }
+            if (stored == null || stored.get(index)) {
+                map.remove(entry.getKey());
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Grows the table of the backing map at once to hold the expected number of mappings.
+     * {@link HashMap#putAll(Map)} grows its table up front for the size of its argument,
+     * an empty map reporting the expected size triggers just that growth.
+     * The other hash tables of the JDK presize the same way, the rest of the maps just iterate the empty argument.
+     */
+    private void ensureCapacity(int expectedSize) {
+        if (expectedSize <= map.size()) {
+            return;
+        }
+        map.putAll(new AbstractMap<K, V>() {
+            @Override
+            public int size() {
+                return expectedSize;
+            }
+
+            @Override
+            public @NonNull Set<Entry<K, V>> entrySet() {
+                return Collections.emptySet();
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -268,10 +596,13 @@ public class CheckedMap<K, V> implements Map<K, V> {
      */
     @Override
     public boolean replace(K key, V oldValue, V newValue) {
-        if (!containsKey(key)) {
-            throw new KeyDoesNotExistException(key.toString(), this);
+        if (map.replace(key, oldValue, newValue)) {
+            return true;
+        }
+        if (!map.containsKey(key)) {
+            throw keyDoesNotExist(key);
         }
-        return map.replace(key, oldValue, newValue);
+        return false;
     }
 
     /**
@@ -298,10 +629,52 @@ public class CheckedMap<K, V> implements Map<K, V> {
      */
     @Override
     public V replace(K key, V value) {
-        if (!containsKey(key)) {
-            throw new KeyDoesNotExistException(key.toString(), this);
+        final V previous = map.replace(key, value);
+        if (previous == null && !map.containsKey(key)) {
+            throw keyDoesNotExist(key);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns an immutable copy of this map, probing a single slot per lookup, see {@link FrozenCheckedMap}.
+     *
+     * @return the frozen copy, sharing the violation policy of this map
+     */
+    public @NonNull FrozenCheckedMap<K, V> freeze() {
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        final FrozenCheckedMap<K, V> frozen = FrozenCheckedMap.copyOf(map);
+        frozen.setViolationPolicy(violationPolicy);
+        event.finish(this, map.size(), null, "freeze", map.size());
+        return frozen;
+    }
+
+    protected KeyDoesNotExistException keyDoesNotExist(@NonNull Object key) {
+        final KeyDoesNotExistException exception = new KeyDoesNotExistException(key, this, getViolationPolicy());
+        KeyViolationEvent.emit(this, map.size(), key, exception, 1);
+        return exception;
+    }
+
+    protected KeyAlreadyExistsException keyAlreadyExists(@NonNull Object key) {
+        final KeyAlreadyExistsException exception = new KeyAlreadyExistsException(key, this, getViolationPolicy());
+        KeyViolationEvent.emit(this, map.size(), key, exception, 1);
+        return exception;
+    }
+
+    /**
+     * Creates the exception reporting the conflicting keys of a batch.
+     *
+     * @param keys the conflicting keys, at least one
+     * @param key the first conflicting key
+     * @return a {@link KeyAlreadyExistsException} for a single key, a {@link KeysAlreadyExistException} for several
+     */
+    protected KeyAlreadyExistsException keysAlreadyExist(@NonNull List<?> keys, @NonNull Object key) {
+        if (keys.size() == 1) {
+            return keyAlreadyExists(key);
         }
-        return map.replace(key, value);
+        final KeysAlreadyExistException exception = new KeysAlreadyExistException(keys, this, getViolationPolicy());
+        KeyViolationEvent.emit(this, map.size(), key, exception, keys.size());
+        return exception;
     }
 
 }
@@ -0,0 +1,376 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.ConcurrentCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p><b>Class {@link ConcurrentCheckedMap}</b></p>
+ * <p>Thread-safe {@link CheckedMap} backed by a {@link ConcurrentHashMap}. Every check is made by the same
+ * atomic operation that acts on the map, so a put succeeds only if the key is absent and a remove
+ * or a replace only if it is present, whatever the other threads do. Reads do not lock.</p>
+ * <p>Neither keys nor values may be {@code null}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ConcurrentCheckedMap<K, V> implements ConcurrentMap<K, V> {
+
+    private final @NonNull ConcurrentHashMap<K, V> map;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private volatile ViolationPolicy violationPolicy;
+
+    public ConcurrentCheckedMap() {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentCheckedMap(@NonNull Map<K, V> map) {
+        this.map = new ConcurrentHashMap<>(map);
+    }
+
+    public ConcurrentCheckedMap(int initialCapacity) {
+        this.map = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    public ConcurrentCheckedMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        this.map = new ConcurrentHashMap<>(initialCapacity, loadFactor, concurrencyLevel);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        final ViolationPolicy violationPolicy = this.violationPolicy;
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        return map.containsValue(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final V value = map.get(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final V value = map.get(key);
+        if (value == null) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) throws KeyAlreadyExistsException {
+        if (map.putIfAbsent(key, value) != null) {
+            throw keyAlreadyExists(key);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     */
+    public boolean tryPut(@NonNull K key, @NonNull V value) {
+        return map.putIfAbsent(key, value) == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Unlike {@link #put(Object, Object)}, does not throw if the key already exists.</p>
+     */
+    @Override
+    public V putIfAbsent(@NonNull K key, @NonNull V value) {
+        return map.putIfAbsent(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        final V value = map.remove(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        return map.remove(key) != null;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final V value = map.remove(key);
+        if (value == null) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Does not throw if the key does not exist.</p>
+     */
+    @Override
+    public boolean remove(@NonNull Object key, Object value) {
+        return map.remove(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws java.lang.NullPointerException if any of the arguments is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public boolean replace(@NonNull K key, @NonNull V oldValue, @NonNull V newValue) throws KeyDoesNotExistException {
+        if (map.replace(key, oldValue, newValue)) {
+            return true;
+        }
+        // nothing was replaced, so the check can be made after the fact
+        if (!map.containsKey(key)) {
+            throw keyDoesNotExist(key);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V replace(@NonNull K key, @NonNull V value) throws KeyDoesNotExistException {
+        final V previous = map.replace(key, value);
+        if (previous == null) {
+            throw keyDoesNotExist(key);
+        }
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param m mappings to be stored in this map
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if any of the keys already exists,
+     *         the mappings before it are kept
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(@NonNull K key, @NonNull Function<? super K, ? extends V> mappingFunction) {
+        return map.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(@NonNull K key, @NonNull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return map.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(@NonNull K key, @NonNull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return map.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(@NonNull K key, @NonNull V value, @NonNull BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return map.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void forEach(@NonNull BiConsumer<? super K, ? super V> action) {
+        map.forEach(action);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Delegates to the backing map, so the keys removed by other threads meanwhile are skipped
+     * rather than reported as missing by {@link #replace(Object, Object, Object)}.</p>
+     *
+     * @throws java.lang.NullPointerException if the function is null or returns null
+     */
+    @Override
+    public void replaceAll(@NonNull BiFunction<? super K, ? super V, ? extends V> function) {
+        map.replaceAll((key, value) -> {
+            final V newValue = function.apply(key, value);
+            if (newValue == null) {
+                throw new NullPointerException("replacement of " + key + " is null");
+            }
+            return newValue;
+        });
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return map.values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return map.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || map.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+}
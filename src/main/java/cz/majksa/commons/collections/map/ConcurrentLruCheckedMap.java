@@ -0,0 +1,559 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.ConcurrentLruCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.KeysAlreadyExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <p><b>Class {@link ConcurrentLruCheckedMap}</b></p>
+ * <p>Thread-safe {@link LruCheckedMap}, split by the hash of the key into segments of their own lock, order and
+ * share of the bounds. The bounds hold for the whole map, but the least recently used entry is evicted per segment,
+ * so the order is approximate. The threads contend only when they touch the same segment,
+ * lookups included, as every lookup reorders its segment.</p>
+ * <p>The eviction listener is called while the segment is locked. The views are read-only snapshots.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ConcurrentLruCheckedMap<K, V> implements Map<K, V> {
+
+    private static final Object ABSENT = new Object();
+
+    private final LruCheckedMap<K, V>[] segments;
+
+    private final ReentrantLock[] locks;
+
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private volatile ViolationPolicy violationPolicy;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ConcurrentLruCheckedMap(@NonNull LruCheckedMap.Builder<K, V> builder) {
+        int count = Integer.highestOneBit(Math.min(builder.concurrencyLevel, 1 << 16));
+        if (count < builder.concurrencyLevel) {
+            count <<= 1;
+        }
+        // every segment holds at least one entry and one unit of weight
+        while (count > 1 && (count > builder.maximumSize || count > builder.maximumWeight)) {
+            count >>= 1;
+        }
+        this.segments = new LruCheckedMap[count];
+        this.locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new LruCheckedMap<>(builder, share(builder.maximumSize, count, i), share(builder.maximumWeight, count, i));
+            locks[i] = new ReentrantLock();
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.segmentMask = count - 1;
+        this.violationPolicy = builder.violationPolicy;
+    }
+
+    /**
+     * Returns the share of the bound of the specified segment, the shares add up to the bound.
+     */
+    private static long share(long bound, int count, int segment) {
+        return bound == Long.MAX_VALUE ? bound : bound / count + (segment < bound % count ? 1 : 0);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        final ViolationPolicy violationPolicy = this.violationPolicy;
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Returns the segment of the key. The segments take the high bits of the hash,
+     * their hash tables take the low ones.
+     */
+    private int segmentFor(Object key) {
+        return ((key.hashCode() * 0x9E3779B9) >>> segmentShift) & segmentMask;
+    }
+
+    /**
+     * Returns the total weight of the entries.
+     *
+     * @return the weight, {@code 0} without a weigher
+     */
+    public long getWeight() {
+        long weight = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                weight += segments[i].getWeight();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return weight;
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].containsKey(key);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                if (segments[i].containsValue(value)) {
+                    return true;
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final V value = getOrDefault(key, absent());
+        if (value == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].tryGet(key, slot);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].getOrDefault(key, defaultValue);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    @Override
+    public V put(@NonNull K key, V value) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryPut(@NonNull K key, V value) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].tryPut(key, value);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Unlike {@link #put(Object, Object)}, does not throw if the key already exists.</p>
+     */
+    @Override
+    public V putIfAbsent(@NonNull K key, V value) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            final V previous = segments[segment].getOrDefault(key, absent());
+            if (previous != ABSENT) {
+                return previous;
+            }
+            segments[segment].tryPut(key, value);
+            return null;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The computed value is stored, possibly evicting other entries, unless it is {@code null}.</p>
+     */
+    @Override
+    public V computeIfAbsent(@NonNull K key, @NonNull Function<? super K, ? extends V> mappingFunction) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            final V previous = segments[segment].getOrDefault(key, absent());
+            if (previous != ABSENT) {
+                return previous;
+            }
+            final V value = mappingFunction.apply(key);
+            if (value != null) {
+                segments[segment].tryPut(key, value);
+            }
+            return value;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        final Slot<V> slot = new Slot<>();
+        if (!tryRemove(key, slot)) {
+            throw keyDoesNotExist(key);
+        }
+        return slot.getValue();
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].tryRemove(key);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].tryRemove(key, slot);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public boolean replace(@NonNull K key, V oldValue, V newValue) throws KeyDoesNotExistException {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            if (!segments[segment].containsKey(key)) {
+                throw keyDoesNotExist(key);
+            }
+            return segments[segment].replace(key, oldValue, newValue);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V replace(@NonNull K key, V value) throws KeyDoesNotExistException {
+        final int segment = segmentFor(key);
+        locks[segment].lock();
+        try {
+            if (!segments[segment].containsKey(key)) {
+                throw keyDoesNotExist(key);
+            }
+            return segments[segment].replace(key, value);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>All or nothing, see {@link #putAll(Collection)}.</p>
+     *
+     * @param m mappings to be stored in this map
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        putAll(m.entrySet());
+    }
+
+    /**
+     * Copies all of the entries into this map, all or nothing. All the segments are locked for the whole batch,
+     * the conflicts are looked for before anything is stored.
+     *
+     * @param entries entries to be stored in this map
+     * @throws java.lang.NullPointerException if any key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     */
+    public void putAll(@NonNull Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        // locked in order, so that two batches do not deadlock
+        int locked = 0;
+        try {
+            for (; locked < locks.length; locked++) {
+                locks[locked].lock();
+            }
+            final Map<Object, Boolean> batch = new HashMap<>();
+            List<Object> conflicts = null;
+            for (Entry<? extends K, ? extends V> entry : entries) {
+                final K key = entry.getKey();
+                if (key == null) {
+                    throw new NullPointerException("key is marked non-null but is null");
+                }
+                if (segments[segmentFor(key)].containsKey(key) || batch.put(key, Boolean.TRUE) != null) {
+                    if (conflicts == null) {
+                        conflicts = new ArrayList<>();
+                    }
+                    conflicts.add(key);
+                }
+            }
+            if (conflicts != null) {
+                throw conflicts.size() == 1
+                        ? new KeyAlreadyExistsException(conflicts.get(0), this, getViolationPolicy())
+                        : new KeysAlreadyExistException(conflicts, this, getViolationPolicy());
+            }
+            for (Entry<? extends K, ? extends V> entry : entries) {
+                segments[segmentFor(entry.getKey())].tryPut(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            while (locked > 0) {
+                locks[--locked].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].forEach(action);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A read-only snapshot, each segment from the least to the most recently used key.</p>
+     */
+    @Override
+    public Set<K> keySet() {
+        return snapshot().keySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A read-only snapshot, each segment from the least to the most recently used value.</p>
+     */
+    @Override
+    public Collection<V> values() {
+        return snapshot().values();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A read-only snapshot, each segment from the least to the most recently used entry.</p>
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return snapshot().entrySet();
+    }
+
+    /**
+     * Copies the segments one by one, without reordering them.
+     */
+    private Map<K, V> snapshot() {
+        final Map<K, V> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                for (Entry<K, V> entry : segments[i].entrySet()) {
+                    snapshot.put(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || snapshot().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return snapshot().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V absent() {
+        return (V) ABSENT;
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+}
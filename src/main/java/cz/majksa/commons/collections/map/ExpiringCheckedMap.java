@@ -0,0 +1,848 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.ExpiringCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.KeysAlreadyExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * <p><b>Class {@link ExpiringCheckedMap}</b></p>
+ * <p>{@link CheckedMap} whose entries may carry a time to live. An expired key is absent:
+ * {@link #get(Object)} throws a {@link KeyDoesNotExistException} and {@link #put(Object, Object)} stores a new value.</p>
+ * <p>The expiring entries are kept in a hierarchical timer wheel, so scheduling an entry takes constant time.
+ * Every operation first advances the wheel to the current time, which removes the expired entries
+ * of the elapsed ticks and moves the rest closer to their expiry. Cleanup is thus spread over the accesses,
+ * without a scan of the whole map or a thread of its own. A lookup checks the expiry itself, while {@link #size()}
+ * and the views may still count entries that expired during the current tick, about a millisecond.</p>
+ * <p>Not thread-safe.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ExpiringCheckedMap<K, V> implements Map<K, V> {
+
+    /**
+     * the tick of each level of the wheel in nanoseconds, as a power of two: about 1 ms, 67 ms, 4.3 s, 4.6 min,
+     * 4.9 h and 13 days
+     */
+    private static final int[] SHIFTS = {20, 26, 32, 38, 44, 50};
+
+    /**
+     * the number of buckets of each level, each level spans a single tick of the next one,
+     * the last level holds everything beyond
+     */
+    private static final int[] BUCKETS = {64, 64, 64, 64, 64, 1};
+
+    /**
+     * the longest time to live, any longer lasts forever
+     */
+    private static final Duration MAXIMUM_TIME_TO_LIVE = Duration.ofNanos(Long.MAX_VALUE >> 2);
+
+    private final @NonNull HashMap<K, Node<K, V>> map;
+
+    /**
+     * the sentinels of the circular lists of the buckets
+     */
+    private final Node<K, V>[][] wheel;
+
+    private final @NonNull LongSupplier ticker;
+
+    /**
+     * the time to live of the entries stored without one, {@code null} if they do not expire
+     */
+    @Getter
+    private final @Nullable Duration defaultTimeToLive;
+
+    /**
+     * the time the wheel was advanced to
+     */
+    private long time;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    /**
+     * the listener called with every entry removed because it expired, {@code null} for none
+     */
+    @Setter
+    private @Nullable BiConsumer<? super K, ? super V> expirationListener;
+
+    /**
+     * Constructs a map whose entries do not expire unless stored with a time to live.
+     */
+    public ExpiringCheckedMap() {
+        this(null);
+    }
+
+    /**
+     * Constructs a map whose entries expire after the specified time unless stored with a time to live of their own.
+     *
+     * @param defaultTimeToLive the default time to live, {@code null} if the entries do not expire by default
+     * @throws IllegalArgumentException if the time to live is not positive
+     */
+    public ExpiringCheckedMap(@Nullable Duration defaultTimeToLive) {
+        this(defaultTimeToLive, System::nanoTime);
+    }
+
+    /**
+     * Constructs a map reading the time from the specified ticker.
+     *
+     * @param defaultTimeToLive the default time to live, {@code null} if the entries do not expire by default
+     * @param ticker the source of the time in nanoseconds, such as {@link System#nanoTime()}
+     * @throws IllegalArgumentException if the time to live is not positive
+     */
+    public ExpiringCheckedMap(@Nullable Duration defaultTimeToLive, @NonNull LongSupplier ticker) {
+        if (defaultTimeToLive != null) {
+            checkTimeToLive(defaultTimeToLive);
+        }
+        this.map = new HashMap<>();
+        this.wheel = newWheel();
+        this.ticker = ticker;
+        this.defaultTimeToLive = defaultTimeToLive;
+        this.time = ticker.getAsLong();
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        final ViolationPolicy violationPolicy = this.violationPolicy;
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Removes the entries expired since the last operation. Every operation does so on its own,
+     * calling this is only needed to release the expired entries of a map that is not accessed.
+     */
+    public void cleanUp() {
+        advance();
+    }
+
+    @Override
+    public int size() {
+        advance();
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return find(key, advance()) != null;
+    }
+
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        final long now = advance();
+        for (Node<K, V> node : map.values()) {
+            if (!node.isExpired(now) && Objects.equals(value, node.value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        return node.value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists and did not expire
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            return false;
+        }
+        slot.setValue(node.value);
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final Node<K, V> node = find(key, advance());
+        return node == null ? defaultValue : node.value;
+    }
+
+    /**
+     * Returns the remaining time to live of the specified key.
+     *
+     * @param key the key
+     * @return the remaining time, {@code null} if the entry does not expire
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    public @Nullable Duration getTimeToLive(@NonNull Object key) throws KeyDoesNotExistException {
+        final long now = advance();
+        final Node<K, V> node = find(key, now);
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        return node.isScheduled() ? Duration.ofNanos(node.expiry - now) : null;
+    }
+
+    /**
+     * Sets the time to live of the specified key, counted from now, such as to renew a session.
+     *
+     * @param key the key
+     * @param timeToLive the time to live, {@code null} if the entry is not to expire
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalArgumentException if the time to live is not positive
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    public void setTimeToLive(@NonNull K key, @Nullable Duration timeToLive) throws KeyDoesNotExistException {
+        if (timeToLive != null) {
+            checkTimeToLive(timeToLive);
+        }
+        final long now = advance();
+        final Node<K, V> node = find(key, now);
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        node.unlink();
+        schedule(node, timeToLive, now);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The entry expires after the {@link #getDefaultTimeToLive()}.</p>
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    @Override
+    public V put(@NonNull K key, V value) throws KeyAlreadyExistsException {
+        return put(key, value, defaultTimeToLive);
+    }
+
+    /**
+     * Associates the specified value with the specified key, expiring after the specified time.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @param timeToLive the time to live, {@code null} if the entry is not to expire
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalArgumentException if the time to live is not positive
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    public V put(@NonNull K key, V value, @Nullable Duration timeToLive) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value, timeToLive)) {
+            throw keyAlreadyExists(key);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet or expired,
+     * without throwing if it does. The entry expires after the {@link #getDefaultTimeToLive()}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryPut(@NonNull K key, V value) {
+        return tryPut(key, value, defaultTimeToLive);
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet or expired,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @param timeToLive the time to live, {@code null} if the entry is not to expire
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalArgumentException if the time to live is not positive
+     */
+    public boolean tryPut(@NonNull K key, V value, @Nullable Duration timeToLive) {
+        if (timeToLive != null) {
+            checkTimeToLive(timeToLive);
+        }
+        final long now = advance();
+        final Node<K, V> node = new Node<>(key, value);
+        final Node<K, V> previous = map.putIfAbsent(key, node);
+        if (previous != null) {
+            if (!previous.isExpired(now)) {
+                return false;
+            }
+            map.put(key, node);
+            expire(previous);
+        }
+        schedule(node, timeToLive, now);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        map.remove(key);
+        node.unlink();
+        return node.value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            return false;
+        }
+        map.remove(key);
+        node.unlink();
+        return true;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            return false;
+        }
+        map.remove(key);
+        node.unlink();
+        slot.setValue(node.value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The entry keeps its expiry.</p>
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    @Override
+    public boolean replace(@NonNull K key, V oldValue, V newValue) throws KeyDoesNotExistException {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        if (!Objects.equals(node.value, oldValue)) {
+            return false;
+        }
+        node.value = newValue;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The entry keeps its expiry.</p>
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or expired
+     */
+    @Override
+    public V replace(@NonNull K key, V value) throws KeyDoesNotExistException {
+        final Node<K, V> node = find(key, advance());
+        if (node == null) {
+            throw keyDoesNotExist(key);
+        }
+        return node.setValue(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>All or nothing, the entries expire after the {@link #getDefaultTimeToLive()}.
+     * If any key already exists, every conflicting key is reported and the map is left as it was.</p>
+     *
+     * @param m mappings to be stored in this map
+     * @throws java.lang.NullPointerException if the specified map holds a null key
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        final long now = advance();
+        List<Object> conflicts = null;
+        for (K key : m.keySet()) {
+            if (key == null) {
+                throw new NullPointerException("key is marked non-null but is null");
+            }
+            if (find(key, now) != null) {
+                if (conflicts == null) {
+                    conflicts = new ArrayList<>();
+                }
+                conflicts.add(key);
+            }
+        }
+        if (conflicts != null) {
+            throw conflicts.size() == 1
+                    ? new KeyAlreadyExistsException(conflicts.get(0), this, getViolationPolicy())
+                    : new KeysAlreadyExistException(conflicts, this, getViolationPolicy());
+        }
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            final Node<K, V> node = new Node<>(entry.getKey(), entry.getValue());
+            map.put(entry.getKey(), node);
+            schedule(node, defaultTimeToLive, now);
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull BiConsumer<? super K, ? super V> action) {
+        final long now = advance();
+        for (Node<K, V> node : map.values()) {
+            if (!node.isExpired(now)) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        for (Node<K, V>[] level : wheel) {
+            for (Node<K, V> sentinel : level) {
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Removing a key removes its entry.</p>
+     */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NonNull Iterator<K> iterator() {
+                return new NodeIterator<>() {
+                    @Override
+                    K map(Node<K, V> node) {
+                        return node.key;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ExpiringCheckedMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o != null && containsKey(o);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Removing a value removes its entry.</p>
+     */
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public @NonNull Iterator<V> iterator() {
+                return new NodeIterator<>() {
+                    @Override
+                    V map(Node<K, V> node) {
+                        return node.value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ExpiringCheckedMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Removing an entry or setting its value writes through.</p>
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NonNull Iterator<Entry<K, V>> iterator() {
+                return new NodeIterator<>() {
+                    @Override
+                    Entry<K, V> map(Node<K, V> node) {
+                        return node;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ExpiringCheckedMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        return snapshot().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return snapshot().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private Map<K, V> snapshot() {
+        final Map<K, V> snapshot = new HashMap<>();
+        forEach(snapshot::put);
+        return snapshot;
+    }
+
+    /**
+     * Returns the live node of the key, removing it if it expired.
+     */
+    private @Nullable Node<K, V> find(Object key, long now) {
+        final Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.isExpired(now)) {
+            map.remove(key);
+            expire(node);
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Schedules the node to expire after the time to live, counted from now.
+     */
+    private void schedule(Node<K, V> node, @Nullable Duration timeToLive, long now) {
+        if (timeToLive == null || timeToLive.compareTo(MAXIMUM_TIME_TO_LIVE) >= 0) {
+            return;
+        }
+        node.expiry = now + timeToLive.toNanos();
+        link(node);
+    }
+
+    /**
+     * Links the node into the bucket of the finest level it fits, relative to the time of the wheel.
+     */
+    private void link(Node<K, V> node) {
+        final long delay = node.expiry - time;
+        int level = 0;
+        while (level < SHIFTS.length - 1 && delay >= 1L << SHIFTS[level + 1]) {
+            level++;
+        }
+        final Node<K, V>[] buckets = wheel[level];
+        final Node<K, V> sentinel = buckets[(int) (node.expiry >> SHIFTS[level]) & (buckets.length - 1)];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    /**
+     * Advances the wheel to the current time. The finest level removes the expired entries of the elapsed ticks,
+     * the coarser levels move the entries of the ticks just entered to the finer levels.
+     *
+     * @return the current time
+     */
+    private long advance() {
+        final long now = ticker.getAsLong();
+        final long previous = time;
+        if ((now >> SHIFTS[0]) - (previous >> SHIFTS[0]) <= 0) {
+            return now;
+        }
+        time = now;
+        for (int i = 0; i < SHIFTS.length; i++) {
+            final long previousTicks = previous >> SHIFTS[i];
+            final long delta = (now >> SHIFTS[i]) - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            // the finest level is drained for the ticks left, the coarser ones for the ticks entered
+            final long first = i == 0 ? previousTicks : previousTicks + 1;
+            final Node<K, V>[] buckets = wheel[i];
+            final int count = (int) Math.min(delta, buckets.length);
+            for (int j = 0; j < count; j++) {
+                drain(buckets[(int) (first + j) & (buckets.length - 1)], now);
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Empties the bucket, removing the expired entries and linking the rest anew.
+     */
+    private void drain(Node<K, V> sentinel, long now) {
+        Node<K, V> node = sentinel.next;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        while (node != sentinel) {
+            final Node<K, V> next = node.next;
+            if (node.expiry - now <= 0) {
+                node.prev = null;
+                node.next = null;
+                map.remove(node.key);
+                expire(node);
+            } else {
+                link(node);
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Unlinks the node removed from the map and reports it to the listener.
+     */
+    private void expire(Node<K, V> node) {
+        node.unlink();
+        final BiConsumer<? super K, ? super V> expirationListener = this.expirationListener;
+        if (expirationListener != null) {
+            expirationListener.accept(node.key, node.value);
+        }
+    }
+
+    /**
+     * Creates the levels of the wheel, each with its buckets empty.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[][] newWheel() {
+        final Node<K, V>[][] wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                wheel[i][j] = new Node<>(null, null);
+            }
+        }
+        return wheel;
+    }
+
+    private static void checkTimeToLive(Duration timeToLive) {
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+    /**
+     * Iterates the nodes left after advancing the wheel, removing a node unschedules it.
+     */
+    private abstract class NodeIterator<T> implements Iterator<T> {
+
+        private final Iterator<Node<K, V>> iterator;
+        private Node<K, V> current;
+
+        NodeIterator() {
+            advance();
+            iterator = map.values().iterator();
+        }
+
+        abstract T map(Node<K, V> node);
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            current = iterator.next();
+            return map(current);
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            current.unlink();
+            current = null;
+        }
+
+    }
+
+    /**
+     * Entry of the map and a node of the list of its bucket, unlinked if it does not expire.
+     */
+    private static final class Node<K, V> implements Entry<K, V> {
+
+        private final K key;
+        private V value;
+        private long expiry;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+            if (key == null) {
+                // a sentinel, an empty circular list
+                prev = this;
+                next = this;
+            }
+        }
+
+        private boolean isScheduled() {
+            return prev != null;
+        }
+
+        private boolean isExpired(long now) {
+            return prev != null && expiry - now <= 0;
+        }
+
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            final V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && Objects.equals(key, ((Entry<?, ?>) o).getKey())
+                    && Objects.equals(value, ((Entry<?, ?>) o).getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+    }
+
+}
@@ -0,0 +1,580 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.FrozenCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p><b>Class {@link FrozenCheckedMap}</b></p>
+ * <p>Immutable {@link CheckedMap} built once and read many times. The keys are placed by a minimal perfect hash
+ * in the style of CHD (hash, displace and compress): every key hashes into a bucket of about
+ * {@value #AVERAGE_BUCKET_SIZE} keys, and the bucket stores the displacement that sends its keys into distinct slots.
+ * A lookup therefore reads one displacement and probes exactly one slot, the keys and the values are kept in a single
+ * array of as many slots as there are distinct hash codes, without any node per entry.</p>
+ * <p>Keys sharing a hash code cannot be told apart by any hash derived from it, they share a slot and are
+ * compared one by one. Building takes time roughly linear in the number of entries, far more than filling a
+ * {@link java.util.HashMap}. Every mutator throws {@link UnsupportedOperationException}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class FrozenCheckedMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 6120588735211620489L;
+
+    private static final int AVERAGE_BUCKET_SIZE = 4;
+
+    /**
+     * the sentinel returned for absent keys, so that a single probe tells an absent key from a {@code null} value
+     */
+    private static final Object ABSENT = new Object();
+
+    /**
+     * the displacement of every bucket, or {@code -slot - 1} for buckets of a single hash code placed directly
+     */
+    private final int[] displacements;
+
+    /**
+     * the key of every slot followed by its value, so that a hit reads a single cache line;
+     * a {@link Collision} of the keys sharing a hash code takes the place of the key
+     */
+    private final Object[] table;
+
+    private final int slots;
+
+    private final int size;
+
+    private transient Set<Entry<K, V>> entrySet;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    private FrozenCheckedMap(Map<? extends K, ? extends V> map) {
+        final Map<Integer, List<Entry<? extends K, ? extends V>>> groups = new HashMap<>();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            groups.computeIfAbsent(Objects.requireNonNull(entry.getKey()).hashCode(), hash -> new ArrayList<>(1)).add(entry);
+        }
+        final int slots = groups.size();
+        final int[] hashes = new int[slots];
+        int next = 0;
+        for (int hash : groups.keySet()) {
+            hashes[next++] = hash;
+        }
+        this.displacements = new int[Math.max(1, slots / AVERAGE_BUCKET_SIZE)];
+        this.table = new Object[slots * 2];
+        this.slots = slots;
+        this.size = map.size();
+        final int[] placement = place(hashes, displacements);
+        for (int i = 0; i < slots; i++) {
+            final List<Entry<? extends K, ? extends V>> group = groups.get(hashes[i]);
+            final int slot = placement[i];
+            if (group.size() == 1) {
+                table[slot * 2] = group.get(0).getKey();
+                table[slot * 2 + 1] = group.get(0).getValue();
+            } else {
+                table[slot * 2] = new Collision(group);
+            }
+        }
+    }
+
+    /**
+     * Returns a builder of a {@link FrozenCheckedMap}.
+     *
+     * @return the builder
+     */
+    public static <K, V> @NonNull Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns a {@link FrozenCheckedMap} holding the entries of the specified map.
+     *
+     * @param map the map whose entries are to be placed in the frozen map
+     * @return the frozen map
+     * @throws NullPointerException if the map holds a {@code null} key
+     */
+    public static <K, V> @NonNull FrozenCheckedMap<K, V> copyOf(@NonNull Map<? extends K, ? extends V> map) {
+        return new FrozenCheckedMap<>(map);
+    }
+
+    /**
+     * Finds the displacement of every bucket such that all the hashes land in distinct slots,
+     * placing the largest buckets first while most of the slots are still free.
+     *
+     * @return the slot of every hash
+     */
+    private static int[] place(int[] hashes, int[] displacements) {
+        final int slots = hashes.length;
+        final int bucketCount = displacements.length;
+        final int[] bucketSizes = new int[bucketCount];
+        final int[] buckets = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            buckets[i] = reduce(bucketHash(hashes[i]), bucketCount);
+            bucketSizes[buckets[i]]++;
+        }
+        // the hashes grouped by bucket, the buckets ordered from the largest
+        final int[] start = new int[bucketCount + 1];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            start[bucket + 1] = start[bucket] + bucketSizes[bucket];
+        }
+        final int[] members = new int[slots];
+        final int[] fill = Arrays.copyOf(start, bucketCount);
+        for (int i = 0; i < slots; i++) {
+            members[fill[buckets[i]]++] = i;
+        }
+        final Integer[] order = new Integer[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            order[bucket] = bucket;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(bucketSizes[b], bucketSizes[a]));
+
+        final int[] placement = new int[slots];
+        final BitSet occupied = new BitSet(slots);
+        final int[] candidate = new int[slots == 0 ? 0 : bucketSizes[order[0]]];
+        int freeSlot = 0;
+        for (int bucket : order) {
+            final int bucketSize = bucketSizes[bucket];
+            if (bucketSize == 0) {
+                break;
+            }
+            if (bucketSize == 1) {
+                freeSlot = occupied.nextClearBit(freeSlot);
+                occupied.set(freeSlot);
+                placement[members[start[bucket]]] = freeSlot;
+                displacements[bucket] = -freeSlot - 1;
+                continue;
+            }
+            for (int displacement = 0; ; displacement++) {
+                if (displacement < 0) {
+                    throw new IllegalStateException("No displacement places a bucket of " + bucketSize + " hashes");
+                }
+                if (fits(hashes, members, start[bucket], bucketSize, displacement, occupied, candidate)) {
+                    for (int i = 0; i < bucketSize; i++) {
+                        occupied.set(candidate[i]);
+                        placement[members[start[bucket] + i]] = candidate[i];
+                    }
+                    displacements[bucket] = displacement;
+                    break;
+                }
+            }
+        }
+        return placement;
+    }
+
+    /**
+     * Computes the slots of the bucket for the displacement into {@code candidate}.
+     *
+     * @return {@code true} if all the slots are free and distinct
+     */
+    private static boolean fits(int[] hashes, int[] members, int from, int bucketSize, int displacement, BitSet occupied, int[] candidate) {
+        for (int i = 0; i < bucketSize; i++) {
+            final int slot = reduce(slotHash(hashes[members[from + i]], displacement), hashes.length);
+            if (occupied.get(slot)) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (candidate[j] == slot) {
+                    return false;
+                }
+            }
+            candidate[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, a bijection mixing every input bit into every output bit.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static int bucketHash(int hash) {
+        return (int) (mix(hash & 0xFFFFFFFFL) >>> 32);
+    }
+
+    private static int slotHash(int hash, int displacement) {
+        return (int) (mix(((long) displacement + 1) << 32 | (hash & 0xFFFFFFFFL)) >>> 32);
+    }
+
+    /**
+     * Maps a uniformly distributed hash to {@code [0, range)} without a division.
+     */
+    private static int reduce(int hash, int range) {
+        return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return lookup(key) != ABSENT;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final Object value = lookup(key);
+        if (value == ABSENT) {
+            throw new KeyDoesNotExistException(key, this, getViolationPolicy());
+        }
+        return (V) value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final Object value = lookup(key);
+        if (value == ABSENT) {
+            return false;
+        }
+        slot.setValue((V) value);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final Object value = lookup(key);
+        return value == ABSENT ? defaultValue : (V) value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is read-only.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Serializes the entries only, the placement depends on hash codes that may differ in another JVM.
+     */
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialized form required");
+    }
+
+    /**
+     * Returns the value of the key, probing a single slot.
+     *
+     * @return the value, or {@link #ABSENT} if the key does not exist
+     */
+    private Object lookup(Object key) {
+        if (slots == 0) {
+            return ABSENT;
+        }
+        final int hash = key.hashCode();
+        final int displacement = displacements[reduce(bucketHash(hash), displacements.length)];
+        final int slot = displacement < 0 ? -displacement - 1 : reduce(slotHash(hash, displacement), slots);
+        final Object candidate = table[slot * 2];
+        if (key.equals(candidate)) {
+            return table[slot * 2 + 1];
+        }
+        if (candidate instanceof Collision) {
+            return ((Collision) candidate).lookup(key);
+        }
+        return ABSENT;
+    }
+
+    /**
+     * The keys sharing a hash code and their values.
+     */
+    private static final class Collision {
+
+        private final Object[] keys;
+        private final Object[] values;
+
+        private Collision(List<? extends Entry<?, ?>> entries) {
+            keys = new Object[entries.size()];
+            values = new Object[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+                values[i] = entries.get(i).getValue();
+            }
+        }
+
+        private Object lookup(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return values[i];
+                }
+            }
+            return ABSENT;
+        }
+
+    }
+
+    /**
+     * The entries of a {@link FrozenCheckedMap}, placed anew when deserialized.
+     */
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 8431906128475563071L;
+
+        private final Object[] keys;
+        private final Object[] values;
+        private final ViolationPolicy violationPolicy;
+
+        private SerializedForm(FrozenCheckedMap<?, ?> map) {
+            keys = new Object[map.size];
+            values = new Object[map.size];
+            int i = 0;
+            for (Entry<?, ?> entry : map.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i++] = entry.getValue();
+            }
+            violationPolicy = map.violationPolicy;
+        }
+
+        private Object readResolve() {
+            final Map<Object, Object> entries = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                entries.put(keys[i], values[i]);
+            }
+            final FrozenCheckedMap<Object, Object> map = new FrozenCheckedMap<>(entries);
+            map.violationPolicy = violationPolicy;
+            return map;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private int slot;
+                private int member;
+
+                @Override
+                public boolean hasNext() {
+                    return slot < slots;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Entry<K, V> next() {
+                    if (slot >= slots) {
+                        throw new NoSuchElementException();
+                    }
+                    if (table[slot * 2] instanceof Collision) {
+                        final Collision collision = (Collision) table[slot * 2];
+                        final Entry<K, V> entry = new SimpleImmutableEntry<>((K) collision.keys[member], (V) collision.values[member]);
+                        if (++member == collision.keys.length) {
+                            member = 0;
+                            slot++;
+                        }
+                        return entry;
+                    }
+                    final Entry<K, V> entry = new SimpleImmutableEntry<>((K) table[slot * 2], (V) table[slot * 2 + 1]);
+                    slot++;
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+    /**
+     * <p>Collects the entries of a {@link FrozenCheckedMap}, with the checks of a {@link CheckedMap}.</p>
+     */
+    public static final class Builder<K, V> {
+
+        private final CheckedMap<K, V> entries = new CheckedMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an entry.
+         *
+         * @param key the key
+         * @param value the value
+         * @return this builder
+         * @throws NullPointerException if the key is null
+         * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the key was already added
+         */
+        public @NonNull Builder<K, V> put(@NonNull K key, V value) {
+            entries.put(key, value);
+            return this;
+        }
+
+        /**
+         * Adds the entries of the specified map.
+         *
+         * @param map the entries to add
+         * @return this builder
+         * @throws NullPointerException if the map holds a {@code null} key
+         * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a key was already added
+         */
+        public @NonNull Builder<K, V> putAll(@NonNull Map<? extends K, ? extends V> map) {
+            entries.putAll(map);
+            return this;
+        }
+
+        /**
+         * Builds the frozen map, the builder may be reused afterwards.
+         *
+         * @return the frozen map
+         */
+        public @NonNull FrozenCheckedMap<K, V> build() {
+            return new FrozenCheckedMap<>(entries);
+        }
+
+    }
+
+}
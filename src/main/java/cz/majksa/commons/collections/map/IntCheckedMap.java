@@ -0,0 +1,448 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.IntCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.IntObjConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p><b>Class {@link IntCheckedMap}</b></p>
+ * <p>Counterpart of {@link CheckedMap} for {@code int} keys. The keys and the values are kept in
+ * two parallel arrays probed linearly, so no key is boxed and no node is allocated per entry.
+ * Values must not be {@code null}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class IntCheckedMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private int[] keys;
+
+    /**
+     * the values, {@code null} marks a free slot
+     */
+    private Object[] values;
+
+    private int size;
+
+    private int threshold;
+
+    private int modCount;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    public IntCheckedMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@link IntCheckedMap} able to hold the expected number of entries without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public IntCheckedMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the specified value. Walks the whole table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the specified value
+     */
+    public boolean containsValue(@NonNull Object value) {
+        for (Object current : values) {
+            if (value.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @NonNull V get(int key) throws KeyDoesNotExistException {
+        final int index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        return (V) values[index];
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or {@code null} if the key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V tryGet(int key) {
+        final int index = find(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the default value if the key does not exist.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or {@code defaultValue} if the key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        final int index = find(key);
+        return index < 0 ? defaultValue : (V) values[index];
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    public void put(int key, @NonNull V value) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
+        }
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws IllegalStateException if the table has no free slot left
+     */
+    public boolean tryPut(int key, @NonNull V value) {
+        final int mask = values.length - 1;
+        int index = home(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == threshold && values.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the value of the specified key.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @NonNull V replace(int key, @NonNull V value) throws KeyDoesNotExistException {
+        final int index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        final V oldValue = (V) values[index];
+        values[index] = value;
+        return oldValue;
+    }
+
+    /**
+     * Removes the mapping for the specified key.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    public @NonNull V remove(int key) throws KeyDoesNotExistException {
+        final V value = tryRemove(key);
+        if (value == null) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the specified key, or {@code null} if the key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V tryRemove(int key) {
+        final int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        final V value = (V) values[index];
+        removeAt(index);
+        return value;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Performs the given action for each entry of this map, without boxing the keys.
+     *
+     * @param action the action to be performed for each entry
+     * @throws java.util.ConcurrentModificationException if the map is modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(@NonNull IntObjConsumer<? super V> action) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                action.accept(keys[i], (V) value);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEachEntry((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Returns the slot the probe sequence of the key starts at, in a table of {@code mask + 1} slots.
+     */
+    static int home(int key, int mask) {
+        return hash(key) & mask;
+    }
+
+    private static int hash(int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(Math.max(size, DEFAULT_CAPACITY), MAXIMUM_CAPACITY);
+    }
+
+    private int find(int key) {
+        final int mask = values.length - 1;
+        int index = home(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the slot and shifts the following entries of its probe sequence back, so that no tombstone is needed.
+     */
+    private void removeAt(int index) {
+        final int mask = values.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            final int home = home(keys[i], mask);
+            // the entry may move to the free slot only if the free slot lies on its probe sequence
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        values[free] = null;
+        size--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        final int mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = home(oldKeys[i], mask);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Boxed view of the entries, rendered by the previews of the thrown exceptions only.
+     */
+    private Collection<Map.Entry<Integer, V>> entries() {
+        return new AbstractCollection<>() {
+            @Override
+            public @NonNull Iterator<Map.Entry<Integer, V>> iterator() {
+                return new Iterator<>() {
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < values.length && values[from] == null) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<Integer, V> next() {
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        final Map.Entry<Integer, V> entry = new SimpleEntry<>(keys[next], (V) values[next]);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(int key) {
+        return new KeyDoesNotExistException(key, entries(), getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(int key) {
+        return new KeyAlreadyExistsException(key, entries(), getViolationPolicy());
+    }
+
+}
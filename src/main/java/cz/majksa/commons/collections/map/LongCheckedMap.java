@@ -0,0 +1,496 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.LongCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.LongLongConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p><b>Class {@link LongCheckedMap}</b></p>
+ * <p>Counterpart of {@link CheckedMap} for {@code long} keys and {@code long} values. The keys and the values
+ * are kept in two parallel arrays probed linearly, so nothing is boxed and no node is allocated per entry.
+ * The key {@code 0} marks a free slot in the table and is stored on the side.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class LongCheckedMap {
+
+    private static final long FREE = 0L;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * the keys, {@link #FREE} marks a free slot
+     */
+    private long[] keys;
+
+    private long[] values;
+
+    private boolean hasFreeKey;
+
+    private long freeKeyValue;
+
+    /**
+     * the number of entries in the table, the {@link #FREE} key excluded
+     */
+    private int used;
+
+    private int threshold;
+
+    private int modCount;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    public LongCheckedMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@link LongCheckedMap} able to hold the expected number of entries without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public LongCheckedMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return hasFreeKey ? used + 1 : used;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(long key) {
+        return key == FREE ? hasFreeKey : find(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the specified value. Walks the whole table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the specified value
+     */
+    public boolean containsValue(long value) {
+        if (hasFreeKey && freeKeyValue == value) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    public long get(long key) throws KeyDoesNotExistException {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key);
+            }
+            return freeKeyValue;
+        }
+        final int index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the default value if the key does not exist.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or {@code defaultValue} if the key does not exist
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        final int index = find(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    public void put(long key, long value) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
+        }
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws IllegalStateException if the table has no free slot left
+     */
+    public boolean tryPut(long key, long value) {
+        if (key == FREE) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            freeKeyValue = value;
+            modCount++;
+            return true;
+        }
+        final int mask = keys.length - 1;
+        int index = home(key, mask);
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (used == threshold && keys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++used > threshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the value of the specified key.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    public long replace(long key, long value) throws KeyDoesNotExistException {
+        final long oldValue;
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key);
+            }
+            oldValue = freeKeyValue;
+            freeKeyValue = value;
+        } else {
+            final int index = find(key);
+            if (index < 0) {
+                throw keyDoesNotExist(key);
+            }
+            oldValue = values[index];
+            values[index] = value;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Removes the mapping for the specified key.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the specified key
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    public long remove(long key) throws KeyDoesNotExistException {
+        final long value;
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key);
+            }
+            value = freeKeyValue;
+            hasFreeKey = false;
+            modCount++;
+        } else {
+            final int index = find(key);
+            if (index < 0) {
+                throw keyDoesNotExist(key);
+            }
+            value = values[index];
+            removeAt(index);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     */
+    public boolean tryRemove(long key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            modCount++;
+            return true;
+        }
+        final int index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        if (!isEmpty()) {
+            Arrays.fill(keys, FREE);
+            hasFreeKey = false;
+            used = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Performs the given action for each entry of this map, without boxing the keys or the values.
+     *
+     * @param action the action to be performed for each entry
+     * @throws java.util.ConcurrentModificationException if the map is modified by the action
+     */
+    public void forEachEntry(@NonNull LongLongConsumer action) {
+        final int expectedModCount = modCount;
+        if (hasFreeKey) {
+            action.accept(FREE, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            final long key = keys[i];
+            if (key != FREE) {
+                action.accept(key, values[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEachEntry((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Returns the slot the probe sequence of the key starts at, in a table of {@code mask + 1} slots.
+     */
+    static int home(long key, int mask) {
+        return hash(key) & mask;
+    }
+
+    private static int hash(long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(Math.max(size, DEFAULT_CAPACITY), MAXIMUM_CAPACITY);
+    }
+
+    private int find(long key) {
+        final int mask = keys.length - 1;
+        int index = home(key, mask);
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the slot and shifts the following entries of its probe sequence back, so that no tombstone is needed.
+     */
+    private void removeAt(int index) {
+        final int mask = keys.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            final int home = home(keys[i], mask);
+            // the entry may move to the free slot only if the free slot lies on its probe sequence
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        keys[free] = FREE;
+        used--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocate(capacity);
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != FREE) {
+                int index = home(key, mask);
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Boxed view of the entries, rendered by the previews of the thrown exceptions only.
+     */
+    private Collection<Map.Entry<Long, Long>> entries() {
+        return new AbstractCollection<>() {
+            @Override
+            public @NonNull Iterator<Map.Entry<Long, Long>> iterator() {
+                return new Iterator<>() {
+                    private boolean freeKeyPending = hasFreeKey;
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < keys.length && keys[from] == FREE) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return freeKeyPending || next < keys.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Long, Long> next() {
+                        if (freeKeyPending) {
+                            freeKeyPending = false;
+                            return new SimpleEntry<>(FREE, freeKeyValue);
+                        }
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        final Map.Entry<Long, Long> entry = new SimpleEntry<>(keys[next], values[next]);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LongCheckedMap.this.size();
+            }
+        };
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(long key) {
+        return new KeyDoesNotExistException(key, entries(), getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(long key) {
+        return new KeyAlreadyExistsException(key, entries(), getViolationPolicy());
+    }
+
+}
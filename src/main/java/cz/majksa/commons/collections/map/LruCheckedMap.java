@@ -0,0 +1,440 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.LruCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.events.BulkOperationEvent;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.Getter;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * <p><b>Class {@link LruCheckedMap}</b></p>
+ * <p>{@link LinkedCheckedMap} in access order, bounded by the number of entries, their total weight or both.
+ * Storing an entry past a bound evicts the least recently used entries and reports each of them
+ * to the eviction listener. Every lookup, the throwing {@link #get(Object)} as well as the non-throwing
+ * {@link #tryGet(Object, Slot)} and {@link #getOrDefault(Object, Object)}, makes the entry the most recently used.</p>
+ * <p>The views are read-only, so that the weight is kept in step with the entries.
+ * The map is serializable only if the weigher and the eviction listener are.
+ * Not thread-safe, see {@link ConcurrentLruCheckedMap}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class LruCheckedMap<K, V> extends LinkedCheckedMap<K, V> {
+
+    private static final long serialVersionUID = -3141771058617524406L;
+
+    private final @NonNull LinkedHashMap<K, V> cache;
+
+    /**
+     * the maximum number of entries, {@link Long#MAX_VALUE} if unbounded
+     */
+    @Getter
+    private final long maximumSize;
+
+    /**
+     * the maximum total weight of the entries, {@link Long#MAX_VALUE} if unbounded
+     */
+    @Getter
+    private final long maximumWeight;
+
+    private final @Nullable ToLongBiFunction<? super K, ? super V> weigher;
+
+    private final @Nullable BiConsumer<? super K, ? super V> evictionListener;
+
+    /**
+     * the total weight of the entries, {@code 0} without a weigher
+     */
+    @Getter
+    private long weight;
+
+    /**
+     * Constructs a map holding at most the specified number of entries.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if the maximum size is negative
+     */
+    public LruCheckedMap(long maximumSize) {
+        this(LruCheckedMap.<K, V>builder().maximumSize(maximumSize), maximumSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a map with the settings of the builder and the specified bounds.
+     *
+     * @param builder the settings
+     * @param maximumSize the maximum number of entries
+     * @param maximumWeight the maximum total weight of the entries
+     */
+    LruCheckedMap(@NonNull Builder<K, V> builder, long maximumSize, long maximumWeight) {
+        this(new LinkedHashMap<>(builder.initialCapacity(maximumSize), 0.75f, true), builder, maximumSize, maximumWeight);
+    }
+
+    private LruCheckedMap(LinkedHashMap<K, V> cache, Builder<K, V> builder, long maximumSize, long maximumWeight) {
+        super(cache, builder.violationPolicy);
+        this.cache = cache;
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.weigher = builder.weigher;
+        this.evictionListener = builder.evictionListener;
+    }
+
+    /**
+     * Returns a builder of a {@link LruCheckedMap} or a {@link ConcurrentLruCheckedMap}.
+     *
+     * @return the builder
+     */
+    public static <K, V> @NonNull Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Evicts the least recently used entries if the stored entry exceeds a bound,
+     * an entry heavier than the maximum weight is evicted right away.</p>
+     */
+    @Override
+    public boolean tryPut(@NonNull K key, V value) {
+        if (!super.tryPut(key, value)) {
+            return false;
+        }
+        weight += weigh(key, value);
+        evict();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The conflicts are looked for before anything is stored, as the evicted entries could not be restored.
+     * The entries are then stored in order, so a batch larger than the maximum size keeps just its tail.</p>
+     */
+    @Override
+    public void putAll(@NonNull Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        try {
+            checkAbsent(entries);
+            for (Entry<? extends K, ? extends V> entry : entries) {
+                tryPut(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            event.finish(this, size(), entries, "putAll");
+        }
+    }
+
+    private void checkAbsent(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        final Set<Object> batch = new HashSet<>((int) Math.min(Integer.MAX_VALUE, entries.size() * 4L / 3 + 1));
+        List<Object> conflicts = null;
+        Object conflict = null;
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            final K key = entry.getKey();
+            if (key == null) {
+                throw new NullPointerException("key is marked non-null but is null");
+            }
+            // containsKey does not count as an access
+            if (cache.containsKey(key) || !batch.add(key)) {
+                if (conflicts == null) {
+                    conflicts = new ArrayList<>();
+                    conflict = key;
+                }
+                conflicts.add(key);
+            }
+        }
+        if (conflicts != null) {
+            throw keysAlreadyExist(conflicts, conflict);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(@NonNull Object key) {
+        final V value = super.remove(key);
+        weight -= weigh((K) key, value);
+        return value;
+    }
+
+    @Override
+    public boolean tryRemove(@NonNull Object key) {
+        if (weigher == null) {
+            return super.tryRemove(key);
+        }
+        return tryRemove(key, new Slot<>());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        if (weigher == null) {
+            return super.tryRemove(key, slot);
+        }
+        final Slot<V> removed = new Slot<>();
+        if (!super.tryRemove(key, removed)) {
+            return false;
+        }
+        weight -= weigh((K) key, removed.getValue());
+        slot.setValue(removed.getValue());
+        return true;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (!super.replace(key, oldValue, newValue)) {
+            return false;
+        }
+        weight += weigh(key, newValue) - weigh(key, oldValue);
+        evict();
+        return true;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        final V previous = super.replace(key, value);
+        weight += weigh(key, value) - weigh(key, previous);
+        evict();
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        weight = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, from the least to the most recently used key.</p>
+     */
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(super.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, from the least to the most recently used value.</p>
+     */
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(super.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, from the least to the most recently used entry.</p>
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableMap(cache).entrySet();
+    }
+
+    private long weigh(K key, V value) {
+        return weigher == null ? 0 : weigher.applyAsLong(key, value);
+    }
+
+    /**
+     * Removes the least recently used entries while a bound is exceeded.
+     */
+    private void evict() {
+        if (cache.size() <= maximumSize && weight <= maximumWeight) {
+            return;
+        }
+        final Iterator<Entry<K, V>> iterator = cache.entrySet().iterator();
+        while ((cache.size() > maximumSize || weight > maximumWeight) && iterator.hasNext()) {
+            final Entry<K, V> eldest = iterator.next();
+            final K key = eldest.getKey();
+            final V value = eldest.getValue();
+            iterator.remove();
+            weight -= weigh(key, value);
+            if (evictionListener != null) {
+                evictionListener.accept(key, value);
+            }
+        }
+    }
+
+    /**
+     * <p>Collects the settings of a {@link LruCheckedMap} or a {@link ConcurrentLruCheckedMap}.
+     * At least one of the bounds must be set, the maximum weight only along with a weigher.</p>
+     */
+    public static final class Builder<K, V> {
+
+        long maximumSize = Long.MAX_VALUE;
+        long maximumWeight = Long.MAX_VALUE;
+        ToLongBiFunction<? super K, ? super V> weigher;
+        BiConsumer<? super K, ? super V> evictionListener;
+        int initialCapacity = -1;
+        ViolationPolicy violationPolicy;
+        int concurrencyLevel = 16;
+
+        private Builder() {
+        }
+
+        /**
+         * Bounds the number of entries.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if the maximum size is negative
+         */
+        public @NonNull Builder<K, V> maximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("Maximum size must not be negative: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the total weight of the entries, requires a {@link #weigher(ToLongBiFunction)}.
+         *
+         * @param maximumWeight the maximum total weight
+         * @return this builder
+         * @throws IllegalArgumentException if the maximum weight is negative
+         */
+        public @NonNull Builder<K, V> maximumWeight(long maximumWeight) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("Maximum weight must not be negative: " + maximumWeight);
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the weigher of the entries. It is called once when an entry is stored and once when it leaves,
+         * so it must return the same non-negative weight for the same entry.
+         *
+         * @param weigher the weigher
+         * @return this builder
+         */
+        public @NonNull Builder<K, V> weigher(@NonNull ToLongBiFunction<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Sets the listener called with every evicted entry, after it was removed.
+         * Explicit removals are not reported.
+         *
+         * @param evictionListener the listener
+         * @return this builder
+         */
+        public @NonNull Builder<K, V> evictionListener(@NonNull BiConsumer<? super K, ? super V> evictionListener) {
+            this.evictionListener = evictionListener;
+            return this;
+        }
+
+        /**
+         * Sets the initial capacity, by default derived from the maximum size.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if the initial capacity is negative
+         */
+        public @NonNull Builder<K, V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0) {
+                throw new IllegalArgumentException("Initial capacity must not be negative: " + initialCapacity);
+            }
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the {@link ViolationPolicy} of the thrown exceptions, by default {@link ViolationPolicy#getGlobal()}.
+         *
+         * @param violationPolicy the policy
+         * @return this builder
+         */
+        public @NonNull Builder<K, V> violationPolicy(@Nullable ViolationPolicy violationPolicy) {
+            this.violationPolicy = violationPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the expected number of concurrently updating threads of a {@link ConcurrentLruCheckedMap},
+         * the number of its segments.
+         *
+         * @param concurrencyLevel the expected number of threads
+         * @return this builder
+         * @throws IllegalArgumentException if the level is not positive
+         */
+        public @NonNull Builder<K, V> concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel <= 0) {
+                throw new IllegalArgumentException("Concurrency level must be positive: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        /**
+         * Builds the map, the builder may be reused afterwards.
+         *
+         * @return the map
+         * @throws IllegalStateException if no bound is set, or the maximum weight is set without a weigher
+         */
+        public @NonNull LruCheckedMap<K, V> build() {
+            validate();
+            return new LruCheckedMap<>(this, maximumSize, maximumWeight);
+        }
+
+        /**
+         * Builds a thread-safe map, the builder may be reused afterwards.
+         *
+         * @return the map
+         * @throws IllegalStateException if no bound is set, or the maximum weight is set without a weigher
+         */
+        public @NonNull ConcurrentLruCheckedMap<K, V> buildConcurrent() {
+            validate();
+            return new ConcurrentLruCheckedMap<>(this);
+        }
+
+        private void validate() {
+            if (maximumSize == Long.MAX_VALUE && maximumWeight == Long.MAX_VALUE) {
+                throw new IllegalStateException("Either the maximum size or the maximum weight must be set");
+            }
+            if (maximumWeight != Long.MAX_VALUE && weigher == null) {
+                throw new IllegalStateException("The maximum weight requires a weigher");
+            }
+        }
+
+        /**
+         * Returns the initial capacity of a map holding at most the specified number of entries.
+         */
+        int initialCapacity(long maximumSize) {
+            if (initialCapacity >= 0) {
+                return initialCapacity;
+            }
+            // no need to grow before the first eviction, but do not allocate for a far bound up front
+            return (int) (Math.min(maximumSize, 3 << 10) * 4 / 3 + 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,348 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.MappedCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.codec.EncodedBytes;
+import cz.majksa.commons.collections.codec.FixedWidthCodec;
+import cz.majksa.commons.collections.codec.MappedTable;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p><b>Class {@link MappedCheckedMap}</b></p>
+ * <p>Read-only {@link CheckedMap} answering straight from a file mapped into memory, see {@link MappedTable}.
+ * A map is written once by {@link #write(Map, Path, FixedWidthCodec, FixedWidthCodec)}, then any number of processes
+ * may {@link #open(Path, FixedWidthCodec, FixedWidthCodec)} it in constant time and share its pages.</p>
+ * <p>Lookups decode only the value found, iteration follows the order of the table, not the one of the written map.
+ * Every mutator throws {@link UnsupportedOperationException}. Lookups are safe from several threads.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class MappedCheckedMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    private final MappedTable table;
+    private final FixedWidthCodec<K> keyCodec;
+    private final FixedWidthCodec<V> valueCodec;
+
+    private Set<Entry<K, V>> entrySet;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    private MappedCheckedMap(MappedTable table, FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec) {
+        this.table = table;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Writes the entries of the map into a file to be opened by {@link #open(Path, FixedWidthCodec, FixedWidthCodec)}.
+     * The file is replaced atomically if it exists, the maps already open on it keep reading the previous one.
+     *
+     * @param map the map to write, usually a {@link CheckedMap} or a {@link LinkedCheckedMap}
+     * @param path the file
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @throws IOException if the file cannot be written
+     * @throws NullPointerException if the map holds a {@code null} key or value
+     * @throws IllegalArgumentException if two keys of the map share an encoding
+     */
+    public static <K, V> void write(@NonNull Map<K, V> map, @NonNull Path path,
+                                    @NonNull FixedWidthCodec<K> keyCodec, @NonNull FixedWidthCodec<V> valueCodec) throws IOException {
+        try (MappedTable.Writer writer = MappedTable.writer(path, keyCodec.width(), valueCodec.width(), map.size())) {
+            for (Entry<K, V> entry : map.entrySet()) {
+                keyCodec.write(writer.key(), 0, entry.getKey());
+                valueCodec.write(writer.value(), 0, entry.getValue());
+                writer.append();
+            }
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write(Map, Path, FixedWidthCodec, FixedWidthCodec)}.
+     *
+     * @param path the file
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @return the read-only map
+     * @throws IOException if the file cannot be read, or is not a complete map
+     * @throws IllegalArgumentException if the codecs do not match the widths of the file
+     */
+    public static <K, V> @NonNull MappedCheckedMap<K, V> open(@NonNull Path path,
+                                                               @NonNull FixedWidthCodec<K> keyCodec,
+                                                               @NonNull FixedWidthCodec<V> valueCodec) throws IOException {
+        return new MappedCheckedMap<>(MappedTable.open(path, keyCodec.width(), valueCodec.width()), keyCodec, valueCodec);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the number of key-value mappings in this map, or {@link Integer#MAX_VALUE} if there are more
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(table.size(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map, which may exceed {@link Integer#MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public long longSize() {
+        return table.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return table.size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table, comparing the encoded values.</p>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsValue(@NonNull Object value) {
+        valueCodec.write(table.valueBuffer(), 0, (V) value);
+        return table.containsValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.ClassCastException if the key cannot be encoded by the key codec
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalStateException if the map is closed
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final long index = find(key);
+        if (index < 0) {
+            throw new KeyDoesNotExistException(key, this, getViolationPolicy());
+        }
+        return valueCodec.read(table.page(index), table.valueOffset(index));
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final long index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        slot.setValue(valueCodec.read(table.page(index), table.valueOffset(index)));
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final long index = find(key);
+        return index < 0 ? defaultValue : valueCodec.read(table.page(index), table.valueOffset(index));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is read-only, its entries are decoded copies of the stored ones.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Closes the file. Any later operation throws {@link IllegalStateException}, the lookups in flight complete
+     * and the pages are unmapped once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private long find(Object key) {
+        keyCodec.write(table.keyBuffer(), 0, (K) key);
+        return table.find();
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private long next = table.next(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < table.capacity();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (next >= table.capacity()) {
+                        throw new NoSuchElementException();
+                    }
+                    final ByteBuffer page = table.page(next);
+                    final Entry<K, V> entry = new SimpleImmutableEntry<>(
+                            keyCodec.read(page, table.keyOffset(next)), valueCodec.read(page, table.valueOffset(next)));
+                    next = table.next(next + 1);
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return MappedCheckedMap.this.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?> entry = (Entry<?, ?>) o;
+            if (entry.getKey() == null || entry.getValue() == null) {
+                return false;
+            }
+            final long index = find(entry.getKey());
+            if (index < 0) {
+                return false;
+            }
+            final ByteBuffer value = table.valueBuffer();
+            valueCodec.write(value, 0, (V) entry.getValue());
+            return EncodedBytes.equal(table.page(index), table.valueOffset(index), value, 0, table.valueWidth());
+        }
+
+    }
+
+}
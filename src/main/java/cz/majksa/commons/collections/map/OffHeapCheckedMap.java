@@ -0,0 +1,609 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.OffHeapCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.codec.DirectMemory;
+import cz.majksa.commons.collections.codec.EncodedBytes;
+import cz.majksa.commons.collections.codec.FixedWidthCodec;
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p><b>Class {@link OffHeapCheckedMap}</b></p>
+ * <p>{@link CheckedMap} keeping its entries outside of the Java heap, in pages of direct memory.
+ * Keys and values are encoded by {@link FixedWidthCodec}s into fixed-width slots of an open-addressing table,
+ * keys are hashed and compared by their encoded bytes. The garbage collector sees only a handful of objects,
+ * whatever the size of the map.</p>
+ * <p>The memory is released by {@link #close()}, the map cannot be used afterwards. Neither keys nor values
+ * may be {@code null} and the views are read-only. The map is not thread-safe.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class OffHeapCheckedMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final long DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_PAGE_SIZE = 1 << 30;
+
+    private final FixedWidthCodec<K> keyCodec;
+    private final FixedWidthCodec<V> valueCodec;
+    private final int keyWidth;
+    private final int valueWidth;
+
+    /**
+     * the width of a slot, a state byte followed by the key and the value
+     */
+    private final int slotWidth;
+
+    /**
+     * the encoded key of the current operation
+     */
+    private final ByteBuffer keyScratch;
+
+    /**
+     * the encoded value of the current comparison
+     */
+    private final ByteBuffer valueScratch;
+
+    /**
+     * the pages of the table, {@code null} once closed
+     */
+    private ByteBuffer[] pages;
+
+    /**
+     * log2 of the number of slots per page
+     */
+    private int pageShift;
+
+    private long mask;
+
+    private long size;
+
+    private long threshold;
+
+    private int modCount;
+
+    private Set<Entry<K, V>> entrySet;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    public OffHeapCheckedMap(@NonNull FixedWidthCodec<K> keyCodec, @NonNull FixedWidthCodec<V> valueCodec) {
+        this(keyCodec, valueCodec, 0);
+    }
+
+    /**
+     * Constructs an empty {@link OffHeapCheckedMap} able to hold the expected number of entries without growing.
+     *
+     * @param keyCodec the codec of the keys
+     * @param valueCodec the codec of the values
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OffHeapCheckedMap(@NonNull FixedWidthCodec<K> keyCodec, @NonNull FixedWidthCodec<V> valueCodec, long expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keyWidth = keyCodec.width();
+        this.valueWidth = valueCodec.width();
+        this.slotWidth = 1 + keyWidth + valueWidth;
+        this.keyScratch = ByteBuffer.allocate(keyWidth).order(ByteOrder.nativeOrder());
+        this.valueScratch = ByteBuffer.allocate(valueWidth).order(ByteOrder.nativeOrder());
+        this.pages = allocate(tableSizeFor((long) (expectedSize / LOAD_FACTOR) + 1));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the number of key-value mappings in this map, or {@link Integer#MAX_VALUE} if there are more
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map, which may exceed {@link Integer#MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public long longSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory held by this map.
+     *
+     * @return the size of the table in bytes
+     */
+    public long offHeapSize() {
+        ensureOpen();
+        return (mask + 1) * slotWidth;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table, comparing the encoded values.</p>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsValue(@NonNull Object value) {
+        ensureOpen();
+        valueCodec.write(valueScratch, 0, (V) value);
+        for (long index = 0; index <= mask; index++) {
+            final ByteBuffer page = page(index);
+            final int offset = offset(index);
+            if (page.get(offset) == USED && EncodedBytes.equal(page, offset + 1 + keyWidth, valueScratch, 0, valueWidth)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.ClassCastException if the key cannot be encoded by the key codec
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalStateException if the map is closed
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        final long index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        return readValue(index);
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final long index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        slot.setValue(readValue(index));
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        final long index = find(key);
+        return index < 0 ? defaultValue : readValue(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws java.lang.IllegalStateException if the map is closed
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     */
+    public boolean tryPut(@NonNull K key, @NonNull V value) {
+        final long found = find(key);
+        if (found >= 0) {
+            return false;
+        }
+        final long index = -found - 1;
+        final ByteBuffer page = page(index);
+        final int offset = offset(index);
+        keyCodec.write(page, offset + 1, key);
+        valueCodec.write(page, offset + 1 + keyWidth, value);
+        page.put(offset, USED);
+        modCount++;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Unlike {@link #put(Object, Object)}, does not throw if the key already exists.</p>
+     */
+    @Override
+    public V putIfAbsent(@NonNull K key, @NonNull V value) {
+        final long index = find(key);
+        if (index >= 0) {
+            return readValue(index);
+        }
+        tryPut(key, value);
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws java.lang.IllegalStateException if the map is closed
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        final long index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        final V value = readValue(index);
+        removeAt(index);
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        final long index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        final long index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        slot.setValue(readValue(index));
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Does not throw if the key does not exist.</p>
+     */
+    @Override
+    public boolean remove(@NonNull Object key, @NonNull Object value) {
+        final long index = find(key);
+        if (index < 0 || !valueEquals(index, value)) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key or value is null
+     * @throws java.lang.IllegalStateException if the map is closed
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public V replace(@NonNull K key, @NonNull V value) throws KeyDoesNotExistException {
+        final long index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        final V previous = readValue(index);
+        valueCodec.write(page(index), offset(index) + 1 + keyWidth, value);
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The values are compared by their encoded bytes.</p>
+     *
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist
+     */
+    @Override
+    public boolean replace(@NonNull K key, @NonNull V oldValue, @NonNull V newValue) throws KeyDoesNotExistException {
+        final long index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key);
+        }
+        if (!valueEquals(index, oldValue)) {
+            return false;
+        }
+        valueCodec.write(page(index), offset(index) + 1 + keyWidth, newValue);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        ensureOpen();
+        final ByteBuffer[] oldPages = pages;
+        pages = allocate(DEFAULT_CAPACITY);
+        size = 0;
+        modCount++;
+        free(oldPages);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is read-only, its entries are decoded copies of the stored ones.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Releases the direct memory of this map. Any later operation throws {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (pages != null) {
+            final ByteBuffer[] oldPages = pages;
+            pages = null;
+            size = 0;
+            modCount++;
+            free(oldPages);
+        }
+    }
+
+    private static long tableSizeFor(long capacity) {
+        return Math.max(DEFAULT_CAPACITY, Long.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+    }
+
+    private static void free(ByteBuffer[] pages) {
+        for (ByteBuffer page : pages) {
+            DirectMemory.free(page);
+        }
+    }
+
+    private void ensureOpen() {
+        if (pages == null) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    private ByteBuffer page(long index) {
+        return pages[(int) (index >>> pageShift)];
+    }
+
+    private int offset(long index) {
+        return (int) (index & ((1L << pageShift) - 1)) * slotWidth;
+    }
+
+    /**
+     * Allocates an empty table and sets the mask, the threshold and the page size for it.
+     */
+    private ByteBuffer[] allocate(long capacity) {
+        final int shift = Long.numberOfTrailingZeros(capacity);
+        final int maximumShift = 31 - Integer.numberOfLeadingZeros(MAXIMUM_PAGE_SIZE / slotWidth);
+        pageShift = Math.min(shift, maximumShift);
+        final ByteBuffer[] table = new ByteBuffer[(int) (capacity >>> pageShift)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = DirectMemory.allocate((1 << pageShift) * slotWidth);
+        }
+        mask = capacity - 1;
+        threshold = (long) (capacity * LOAD_FACTOR);
+        return table;
+    }
+
+    /**
+     * Encodes the key and probes for it.
+     *
+     * @return the index of the key, or {@code -(index of the free slot) - 1} if it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    private long find(Object key) {
+        ensureOpen();
+        keyCodec.write(keyScratch, 0, (K) key);
+        long index = EncodedBytes.hash(keyScratch, 0, keyWidth) & mask;
+        while (true) {
+            final ByteBuffer page = page(index);
+            final int offset = offset(index);
+            if (page.get(offset) == FREE) {
+                return -index - 1;
+            }
+            if (EncodedBytes.equal(page, offset + 1, keyScratch, 0, keyWidth)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private V readValue(long index) {
+        return valueCodec.read(page(index), offset(index) + 1 + keyWidth);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean valueEquals(long index, Object value) {
+        valueCodec.write(valueScratch, 0, (V) value);
+        return EncodedBytes.equal(page(index), offset(index) + 1 + keyWidth, valueScratch, 0, valueWidth);
+    }
+
+    /**
+     * Frees the slot and shifts the following entries of its probe sequence back, so that no tombstone is needed.
+     */
+    private void removeAt(long index) {
+        long free = index;
+        for (long i = (index + 1) & mask; page(i).get(offset(i)) == USED; i = (i + 1) & mask) {
+            final long home = EncodedBytes.hash(page(i), offset(i) + 1, keyWidth) & mask;
+            // the entry may move to the free slot only if the free slot lies on its probe sequence
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                page(free).put(offset(free), page(i), offset(i), slotWidth);
+                free = i;
+            }
+        }
+        page(free).put(offset(free), FREE);
+        size--;
+        modCount++;
+    }
+
+    private void rehash() {
+        final ByteBuffer[] oldPages = pages;
+        final long oldCapacity = mask + 1;
+        final int oldPageShift = pageShift;
+        final int oldPageMask = (1 << oldPageShift) - 1;
+        pages = allocate(oldCapacity << 1);
+        for (long oldIndex = 0; oldIndex < oldCapacity; oldIndex++) {
+            final ByteBuffer oldPage = oldPages[(int) (oldIndex >>> oldPageShift)];
+            final int oldOffset = (int) (oldIndex & oldPageMask) * slotWidth;
+            if (oldPage.get(oldOffset) == USED) {
+                long index = EncodedBytes.hash(oldPage, oldOffset + 1, keyWidth) & mask;
+                while (page(index).get(offset(index)) == USED) {
+                    index = (index + 1) & mask;
+                }
+                page(index).put(offset(index), oldPage, oldOffset, slotWidth);
+            }
+        }
+        free(oldPages);
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K, V>> iterator() {
+            ensureOpen();
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private long next = advance(0);
+
+                private long advance(long from) {
+                    while (from <= mask && page(from).get(offset(from)) != USED) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next <= mask;
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next > mask) {
+                        throw new NoSuchElementException();
+                    }
+                    final ByteBuffer page = page(next);
+                    final int offset = offset(next);
+                    final Entry<K, V> entry = new SimpleImmutableEntry<>(keyCodec.read(page, offset + 1), valueCodec.read(page, offset + 1 + keyWidth));
+                    next = advance(next + 1);
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return OffHeapCheckedMap.this.size();
+        }
+
+    }
+
+}
@@ -0,0 +1,855 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.ReferenceCheckedMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.KeysAlreadyExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * <p><b>Class {@link ReferenceCheckedMap}</b></p>
+ * <p>{@link CheckedMap} holding its keys, its values or both by weak or soft references, so that they do not keep
+ * the referenced objects reachable. Once the garbage collector clears a reference, its entry is absent:
+ * {@link #get(Object)} throws a {@link KeyDoesNotExistException} and {@link #put(Object, Object)} stores a new value.
+ * The cleared references are collected by a {@link ReferenceQueue} and their entries are purged
+ * at the start of every operation, without any cleanup by hand.</p>
+ * <p>Weak or soft keys are compared by identity, as an equal key is a different object that would not keep
+ * the entry alive. {@link #size()} and the views may still count the entries whose references were cleared,
+ * but not yet enqueued. The views are read-only.</p>
+ * <p>Not thread-safe.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ReferenceCheckedMap<K, V> implements Map<K, V> {
+
+    private static final Object ABSENT = new Object();
+
+    /**
+     * the keys, or their references, mapped to the values, or their references
+     */
+    private final @NonNull HashMap<Object, Object> map = new HashMap<>();
+
+    private final @NonNull ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * the reused key of the lookups by identity
+     */
+    private final @NonNull Probe probe = new Probe();
+
+    /**
+     * how the keys are referenced
+     */
+    @Getter
+    private final @NonNull Strength keyStrength;
+
+    /**
+     * how the values are referenced
+     */
+    @Getter
+    private final @NonNull Strength valueStrength;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    /**
+     * Constructs a map referencing the keys and the values as specified.
+     *
+     * @param keyStrength how the keys are referenced
+     * @param valueStrength how the values are referenced
+     */
+    public ReferenceCheckedMap(@NonNull Strength keyStrength, @NonNull Strength valueStrength) {
+        this.keyStrength = keyStrength;
+        this.valueStrength = valueStrength;
+    }
+
+    /**
+     * Returns a map with weak keys and strong values, such as to attach metadata to objects.
+     *
+     * @return the map
+     */
+    public static <K, V> @NonNull ReferenceCheckedMap<K, V> weakKeys() {
+        return new ReferenceCheckedMap<>(Strength.WEAK, Strength.STRONG);
+    }
+
+    /**
+     * Returns a map with strong keys and soft values, such as a memory-sensitive cache.
+     *
+     * @return the map
+     */
+    public static <K, V> @NonNull ReferenceCheckedMap<K, V> softValues() {
+        return new ReferenceCheckedMap<>(Strength.STRONG, Strength.SOFT);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        final ViolationPolicy violationPolicy = this.violationPolicy;
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    /**
+     * Purges the entries whose references were cleared. Every operation does so on its own,
+     * calling this is only needed to release the entries of a map that is not accessed.
+     */
+    public void cleanUp() {
+        purge();
+    }
+
+    @Override
+    public int size() {
+        purge();
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        purge();
+        return find(key) != ABSENT;
+    }
+
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        purge();
+        for (Object raw : map.values()) {
+            if (Objects.equals(value, unwrap(raw))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or was collected
+     */
+    @Override
+    public V get(@NonNull Object key) throws KeyDoesNotExistException {
+        purge();
+        final V value = find(key);
+        if (value == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the value of the specified key without throwing on a miss.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param slot the slot the value is stored into, left untouched on a miss
+     * @return {@code true} if the key exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryGet(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        purge();
+        final V value = find(key);
+        if (value == ABSENT) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    @Override
+    public V getOrDefault(@NonNull Object key, V defaultValue) {
+        purge();
+        final V value = find(key);
+        return value == ABSENT ? defaultValue : value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code null}, the key did not exist
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if the specified key already exists
+     */
+    @Override
+    public V put(@NonNull K key, V value) throws KeyAlreadyExistsException {
+        if (!tryPut(key, value)) {
+            throw keyAlreadyExists(key);
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key does not exist yet,
+     * without throwing if it does.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the value was stored, {@code false} if the key already exists
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryPut(@NonNull K key, V value) {
+        purge();
+        if (find(key) != ABSENT) {
+            return false;
+        }
+        final Object mapKey = wrapKey(key);
+        map.put(mapKey, wrapValue(mapKey, value));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or was collected
+     */
+    @Override
+    public V remove(@NonNull Object key) throws KeyDoesNotExistException {
+        purge();
+        final V value = unwrap(removeRaw(key));
+        if (value == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key) {
+        purge();
+        return unwrap(removeRaw(key)) != ABSENT;
+    }
+
+    /**
+     * Removes the mapping for the specified key without throwing if it does not exist.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @param slot the slot the removed value is stored into, left untouched on a miss
+     * @return {@code true} if the mapping was removed
+     * @throws java.lang.NullPointerException if the specified key is null
+     */
+    public boolean tryRemove(@NonNull Object key, @NonNull Slot<? super V> slot) {
+        purge();
+        final V value = unwrap(removeRaw(key));
+        if (value == ABSENT) {
+            return false;
+        }
+        slot.setValue(value);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or was collected
+     */
+    @Override
+    public boolean replace(@NonNull K key, V oldValue, V newValue) throws KeyDoesNotExistException {
+        purge();
+        final V value = find(key);
+        if (value == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        if (!Objects.equals(value, oldValue)) {
+            return false;
+        }
+        store(key, newValue);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key
+     * @throws java.lang.NullPointerException if the specified key is null
+     * @throws cz.majksa.commons.collections.exceptions.KeyDoesNotExistException if the specified key does not exist or was collected
+     */
+    @Override
+    public V replace(@NonNull K key, V value) throws KeyDoesNotExistException {
+        purge();
+        final V previous = find(key);
+        if (previous == ABSENT) {
+            throw keyDoesNotExist(key);
+        }
+        store(key, value);
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>All or nothing, if any key already exists, every conflicting key is reported and the map is left as it was.</p>
+     *
+     * @param m mappings to be stored in this map
+     * @throws java.lang.NullPointerException if the specified map holds a null key
+     * @throws cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException if a single key already exists
+     * @throws cz.majksa.commons.collections.exceptions.KeysAlreadyExistException if several keys already exist
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> m) {
+        purge();
+        List<Object> conflicts = null;
+        for (K key : m.keySet()) {
+            if (key == null) {
+                throw new NullPointerException("key is marked non-null but is null");
+            }
+            if (find(key) != ABSENT) {
+                if (conflicts == null) {
+                    conflicts = new ArrayList<>();
+                }
+                conflicts.add(key);
+            }
+        }
+        if (conflicts != null) {
+            throw conflicts.size() == 1
+                    ? new KeyAlreadyExistsException(conflicts.get(0), this, getViolationPolicy())
+                    : new KeysAlreadyExistException(conflicts, this, getViolationPolicy());
+        }
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            final Object mapKey = wrapKey(entry.getKey());
+            map.put(mapKey, wrapValue(mapKey, entry.getValue()));
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> entry : entrySet()) {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        // the cleared references of the dropped entries have nothing left to purge
+        while (queue.poll() != null) {
+            continue;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, skips the entries whose references were cleared.</p>
+     */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NonNull Iterator<K> iterator() {
+                final Iterator<Entry<K, V>> iterator = entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return iterator.next().getKey();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ReferenceCheckedMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o != null && containsKey(o);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, skips the entries whose references were cleared.</p>
+     */
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public @NonNull Iterator<V> iterator() {
+                final Iterator<Entry<K, V>> iterator = entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return iterator.next().getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ReferenceCheckedMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Read-only, skips the entries whose references were cleared. Each entry holds its key and value strongly.</p>
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NonNull Iterator<Entry<K, V>> iterator() {
+                purge();
+                return new LiveIterator();
+            }
+
+            @Override
+            public int size() {
+                return ReferenceCheckedMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        final Map<Object, Object> other = (Map<Object, Object>) o;
+        int size = 0;
+        for (Entry<K, V> entry : entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.getOrDefault(entry.getKey(), ABSENT))) {
+                return false;
+            }
+            size++;
+        }
+        return size == other.size();
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Entry<K, V> entry : entrySet()) {
+            hashCode += entry.hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        for (Entry<K, V> entry : entrySet()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Removes the entries of the enqueued references. A key reference removes its entry by identity,
+     * a value reference only if the entry still holds it.
+     */
+    private void purge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            if (reference instanceof ValueReference) {
+                map.remove(((ValueReference) reference).key(), reference);
+            } else {
+                map.remove(reference);
+            }
+        }
+    }
+
+    /**
+     * Returns the live value of the key, removing the entry if its value was collected.
+     *
+     * @return the value, or {@link #ABSENT}
+     */
+    private V find(Object key) {
+        final Object raw = lookup(key);
+        if (raw == ABSENT) {
+            return absent();
+        }
+        final V value = unwrap(raw);
+        if (value == ABSENT) {
+            removeRaw(key);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the stored value or value reference of the key.
+     *
+     * @return the raw value, or {@link #ABSENT}
+     */
+    private Object lookup(Object key) {
+        if (keyStrength == Strength.STRONG) {
+            return map.getOrDefault(key, ABSENT);
+        }
+        probe.referent = key;
+        try {
+            return map.getOrDefault(probe, ABSENT);
+        } finally {
+            probe.referent = null;
+        }
+    }
+
+    /**
+     * Removes the entry of the key.
+     *
+     * @return the removed raw value, or {@link #ABSENT}
+     */
+    private Object removeRaw(Object key) {
+        final Object lookupKey;
+        if (keyStrength == Strength.STRONG) {
+            lookupKey = key;
+        } else {
+            probe.referent = key;
+            lookupKey = probe;
+        }
+        try {
+            final int size = map.size();
+            final Object raw = map.remove(lookupKey);
+            return map.size() == size ? ABSENT : raw;
+        } finally {
+            probe.referent = null;
+        }
+    }
+
+    /**
+     * Replaces the value of an existing key, the entry keeps its key reference.
+     */
+    private void store(K key, V value) {
+        // the value reference needs a key of its own, equal to the one of the entry while the key lives
+        final Object raw = wrapValue(valueStrength == Strength.STRONG ? key : wrapKey(key), value);
+        if (keyStrength == Strength.STRONG) {
+            map.put(key, raw);
+            return;
+        }
+        probe.referent = key;
+        try {
+            map.replace(probe, raw);
+        } finally {
+            probe.referent = null;
+        }
+    }
+
+    private Object wrapKey(K key) {
+        switch (keyStrength) {
+            case WEAK:
+                return new WeakKey(key, queue);
+            case SOFT:
+                return new SoftKey(key, queue);
+            default:
+                return key;
+        }
+    }
+
+    /**
+     * Wraps the value, its reference keeps the key of the map to purge the entry by.
+     */
+    private Object wrapValue(Object mapKey, V value) {
+        if (value == null) {
+            // null is never collected
+            return null;
+        }
+        switch (valueStrength) {
+            case WEAK:
+                return new WeakValue(value, mapKey, queue);
+            case SOFT:
+                return new SoftValue(value, mapKey, queue);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Returns the value of the raw value.
+     *
+     * @return the value, or {@link #ABSENT} if it was collected
+     */
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object raw) {
+        if (raw instanceof ValueReference) {
+            final Object value = ((ValueReference) raw).get();
+            return value == null ? absent() : (V) value;
+        }
+        return (V) raw;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V absent() {
+        return (V) ABSENT;
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(Object key) {
+        return new KeyDoesNotExistException(key, this, getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(Object key) {
+        return new KeyAlreadyExistsException(key, this, getViolationPolicy());
+    }
+
+    /**
+     * How the keys or the values of a {@link ReferenceCheckedMap} are referenced.
+     */
+    public enum Strength {
+
+        /**
+         * held as is, never collected while in the map
+         */
+        STRONG,
+
+        /**
+         * held by a {@link WeakReference}, collected once not strongly reachable
+         */
+        WEAK,
+
+        /**
+         * held by a {@link SoftReference}, collected only when the memory runs low
+         */
+        SOFT
+
+    }
+
+    /**
+     * Reference of a key, equal to another one of the same live referent.
+     */
+    private interface KeyReference {
+
+        Object get();
+
+        static boolean equals(KeyReference reference, Object o) {
+            if (reference == o) {
+                return true;
+            }
+            if (!(o instanceof KeyReference)) {
+                return false;
+            }
+            final Object referent = reference.get();
+            return referent != null && referent == ((KeyReference) o).get();
+        }
+
+    }
+
+    /**
+     * Reference of a value, knowing the key of its entry.
+     */
+    private interface ValueReference {
+
+        Object get();
+
+        Object key();
+
+    }
+
+    private static final class WeakKey extends WeakReference<Object> implements KeyReference {
+
+        private final int hash;
+
+        private WeakKey(Object key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return KeyReference.equals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class SoftKey extends SoftReference<Object> implements KeyReference {
+
+        private final int hash;
+
+        private SoftKey(Object key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return KeyReference.equals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class WeakValue extends WeakReference<Object> implements ValueReference {
+
+        private final Object key;
+
+        private WeakValue(Object value, Object key, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+    }
+
+    private static final class SoftValue extends SoftReference<Object> implements ValueReference {
+
+        private final Object key;
+
+        private SoftValue(Object value, Object key, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+    }
+
+    /**
+     * Key of the lookups by identity, equal to the references of its referent.
+     */
+    private static final class Probe implements KeyReference {
+
+        private Object referent;
+
+        @Override
+        public Object get() {
+            return referent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return KeyReference.equals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+
+    }
+
+    /**
+     * Iterates the live entries, looking one ahead to skip the collected ones.
+     */
+    private final class LiveIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<Entry<Object, Object>> iterator = map.entrySet().iterator();
+        private Entry<K, V> next = seek();
+
+        @SuppressWarnings("unchecked")
+        private Entry<K, V> seek() {
+            while (iterator.hasNext()) {
+                final Entry<Object, Object> entry = iterator.next();
+                final Object key = entry.getKey() instanceof KeyReference ? ((KeyReference) entry.getKey()).get() : entry.getKey();
+                final V value = unwrap(entry.getValue());
+                if (key != null && value != ABSENT) {
+                    return new AbstractMap.SimpleImmutableEntry<>((K) key, value);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final Entry<K, V> current = next;
+            next = seek();
+            return current;
+        }
+
+    }
+
+}
@@ -22,6 +22,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.io.Serializable;
 import java.util.Map;
 
 /**
@@ -34,7 +35,9 @@ import java.util.Map;
 @Getter
 @AllArgsConstructor
 @RequiredArgsConstructor
-public class SimpleEntry<K, V> implements Map.Entry<K, V> {
+public class SimpleEntry<K, V> implements Map.Entry<K, V>, Serializable {
+
+    private static final long serialVersionUID = 1927503454538439676L;
 
     private final K key;
     private V value = null;
@@ -0,0 +1,72 @@
+/*
+ *  collections - cz.majksa.commons.collections.metrics.Instrumented
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.metrics;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.metrics.Instrumented}</b></p>
+ * <p>A map able to count its operations. Counting is disabled by default and enabled per instance,
+ * a disabled map only checks that it has no {@link MapMetrics}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface Instrumented {
+
+    /**
+     * Returns the name telling this map apart in its flight recorder events.
+     *
+     * @return the name, {@code null} if not set
+     */
+    @Nullable String getName();
+
+    /**
+     * Names this map in its flight recorder events.
+     *
+     * @param name the name, {@code null} to clear it
+     */
+    void setName(@Nullable String name);
+
+    /**
+     * Enables or disables counting. Enabling a disabled map starts from zero, disabling drops the counts.
+     *
+     * @param enabled {@code true} to count the operations of this map
+     */
+    void setMetricsEnabled(boolean enabled);
+
+    /**
+     * Tells whether the operations of this map are counted.
+     *
+     * @return {@code true} if counting is enabled
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * Takes a snapshot of the metrics of this map. The layout of the table is computed even if counting
+     * is disabled, which walks all the keys, so it is meant for sampling rather than for every operation.
+     *
+     * @return the snapshot
+     */
+    @NonNull MetricsSnapshot metrics();
+
+}
@@ -0,0 +1,181 @@
+/*
+ *  collections - cz.majksa.commons.collections.metrics.MapMetrics
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.metrics;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.metrics.MapMetrics}</b></p>
+ * <p>Counters of an {@link Instrumented} map. They are {@link LongAdder}s, so threads reading a map
+ * concurrently do not contend on a single counter.</p>
+ * <p>Hash tables do not expose their capacity, it is estimated here by replaying the growth of
+ * {@link java.util.HashMap}, starting from the smallest table holding the size the counting started at.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class MapMetrics {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * the size of a table of {@link #DEFAULT_CAPACITY} at which the next insertion grows it
+     */
+    private static final int DEFAULT_THRESHOLD = (int) (DEFAULT_CAPACITY * LOAD_FACTOR);
+
+    // every operation increments a single counter, the totals are summed up by snapshot
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder storedPuts = new LongAdder();
+    private final LongAdder duplicatePuts = new LongAdder();
+    private final LongAdder resizes = new LongAdder();
+
+    /**
+     * the estimated capacity of the table of the map, only updated by the writers of the map
+     */
+    private volatile int capacity;
+
+    /**
+     * Starts counting for a map of the specified size.
+     *
+     * @param size the current size of the map
+     */
+    public MapMetrics(int size) {
+        this.capacity = capacityFor(size);
+    }
+
+    /**
+     * Returns the capacity of the smallest {@link java.util.HashMap} table holding the specified number of entries.
+     *
+     * @param size the number of entries
+     * @return the capacity, a power of two
+     */
+    public static int capacityFor(int size) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < MAXIMUM_CAPACITY && size > capacity * LOAD_FACTOR) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Records a lookup.
+     *
+     * @param hit {@code true} if the key exists
+     */
+    public void recordGet(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    /**
+     * Records an insertion.
+     *
+     * @param stored {@code true} if the value was stored, {@code false} if the key already exists
+     */
+    public void recordPut(boolean stored) {
+        (stored ? storedPuts : duplicatePuts).increment();
+    }
+
+    /**
+     * Records the growth of the table of the map to hold its new size.
+     *
+     * @param size the size of the map after an insertion
+     */
+    public void recordSize(int size) {
+        int capacity = this.capacity;
+        while (capacity < MAXIMUM_CAPACITY && size > capacity * LOAD_FACTOR) {
+            capacity <<= 1;
+            resizes.increment();
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records the growth of a nested {@link java.util.HashMap} created with the default capacity,
+     * whose capacity is not tracked.
+     *
+     * @param size the size of the nested map after an insertion
+     */
+    public void recordNestedSize(int size) {
+        final int previous = size - 1;
+        // a default table grows once its size exceeds 12, 24, 48, ...
+        if (previous >= DEFAULT_THRESHOLD && previous % 3 == 0 && Integer.bitCount(previous / 3) == 1) {
+            resizes.increment();
+        }
+    }
+
+    /**
+     * Returns the estimated capacity of the table of the map.
+     *
+     * @return the capacity, a power of two
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes a snapshot of the counters and of the layout of the table.
+     * The chains are computed by hashing the keys like {@link java.util.HashMap} into a table of the estimated
+     * capacity, which walks all of them. A map modified while the keys are walked reports an unknown layout.
+     *
+     * @param keys the keys of the table, {@code null} if the map is not a hash table
+     * @param size the number of entries of the map
+     * @param rows the number of rows the entries are grouped in, {@code 0} if the rows are the buckets of the table
+     * @return the snapshot
+     */
+    public @NonNull MetricsSnapshot snapshot(@Nullable Collection<?> keys, int size, int rows) {
+        final int capacity = this.capacity;
+        int longestChain = 0;
+        int occupied = 0;
+        boolean known = keys != null;
+        if (known) {
+            final int[] chains = new int[capacity];
+            try {
+                for (Object key : keys) {
+                    final int hash = Objects.hashCode(key);
+                    final int chain = ++chains[(hash ^ hash >>> 16) & (capacity - 1)];
+                    if (chain == 1) {
+                        occupied++;
+                    }
+                    longestChain = Math.max(longestChain, chain);
+                }
+            } catch (ConcurrentModificationException e) {
+                known = false;
+                longestChain = 0;
+            }
+        }
+        final int groups = rows != 0 ? rows : occupied;
+        final double averageRowSize = !known && rows == 0 ? Double.NaN : groups == 0 ? 0 : (double) size / groups;
+        final long misses = this.misses.sum();
+        final long duplicatePuts = this.duplicatePuts.sum();
+        return new MetricsSnapshot(hits.sum() + misses, misses, storedPuts.sum() + duplicatePuts, duplicatePuts, resizes.sum(),
+                size, capacity, averageRowSize, longestChain);
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ *  collections - cz.majksa.commons.collections.metrics.MapMetricsBean
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.metrics.MapMetricsBean}</b></p>
+ * <p>Exports the metrics of an {@link Instrumented} map as an MXBean named
+ * {@code cz.majksa.commons.collections:type=MapMetrics,name=<name>}.</p>
+ * <p>A monitoring client reads the attributes one by one, so a snapshot is reused for a second
+ * instead of walking the map for every attribute. The bean holds the map until it is unregistered.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class MapMetricsBean implements MapMetricsMXBean {
+
+    private static final String DOMAIN = "cz.majksa.commons.collections";
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Getter
+    private final String name;
+    private final Instrumented map;
+
+    private MetricsSnapshot snapshot;
+    private long snapshotTime;
+
+    public MapMetricsBean(@NonNull String name, @NonNull Instrumented map) {
+        this.name = name;
+        this.map = map;
+    }
+
+    /**
+     * Registers the metrics of the map with the platform MBean server and enables them.
+     *
+     * @param name the name of the map, unique among the registered maps
+     * @param map the map
+     * @return the name the bean is registered under
+     * @throws IllegalStateException if a map of the same name is already registered
+     */
+    public static @NonNull ObjectName register(@NonNull String name, @NonNull Instrumented map) {
+        final ObjectName objectName = objectName(name);
+        map.setMetricsEnabled(true);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MapMetricsBean(name, map), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics of " + name, e);
+        }
+        return objectName;
+    }
+
+    /**
+     * Unregisters the metrics of the map of the specified name from the platform MBean server, if registered.
+     *
+     * @param name the name of the map
+     * @return {@code true} if the metrics were registered
+     */
+    public static boolean unregister(@NonNull String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+            return true;
+        } catch (InstanceNotFoundException e) {
+            return false;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister the metrics of " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=MapMetrics,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Illegal map name: " + name, e);
+        }
+    }
+
+    private synchronized MetricsSnapshot snapshot() {
+        final long now = System.nanoTime();
+        if (snapshot == null || now - snapshotTime >= REFRESH_NANOS) {
+            snapshot = map.metrics();
+            snapshotTime = now;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return map.isMetricsEnabled();
+    }
+
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        map.setMetricsEnabled(enabled);
+        snapshot = null;
+    }
+
+    @Override
+    public long getGets() {
+        return snapshot().getGets();
+    }
+
+    @Override
+    public long getMisses() {
+        return snapshot().getMisses();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return snapshot().getHitRatio();
+    }
+
+    @Override
+    public long getPuts() {
+        return snapshot().getPuts();
+    }
+
+    @Override
+    public long getDuplicatePuts() {
+        return snapshot().getDuplicatePuts();
+    }
+
+    @Override
+    public long getResizes() {
+        return snapshot().getResizes();
+    }
+
+    @Override
+    public int getSize() {
+        return snapshot().getSize();
+    }
+
+    @Override
+    public int getCapacity() {
+        return snapshot().getCapacity();
+    }
+
+    @Override
+    public double getAverageRowSize() {
+        return snapshot().getAverageRowSize();
+    }
+
+    @Override
+    public int getLongestChain() {
+        return snapshot().getLongestChain();
+    }
+
+}
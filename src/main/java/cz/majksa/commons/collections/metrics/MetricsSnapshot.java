@@ -0,0 +1,98 @@
+/*
+ *  collections - cz.majksa.commons.collections.metrics.MetricsSnapshot
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.metrics.MetricsSnapshot}</b></p>
+ * <p>The metrics of an {@link Instrumented} map at one point in time.
+ * The counters are zero while the metrics of the map are disabled.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class MetricsSnapshot implements Serializable {
+
+    private static final long serialVersionUID = -3106512783452791247L;
+
+    /**
+     * the number of lookups
+     */
+    private final long gets;
+
+    /**
+     * the number of lookups of keys that do not exist
+     */
+    private final long misses;
+
+    /**
+     * the number of insertions
+     */
+    private final long puts;
+
+    /**
+     * the number of insertions of keys that already exist
+     */
+    private final long duplicatePuts;
+
+    /**
+     * the estimated number of times a table of the map grew
+     */
+    private final long resizes;
+
+    /**
+     * the number of entries
+     */
+    private final int size;
+
+    /**
+     * the estimated capacity of the table of the map
+     */
+    private final int capacity;
+
+    /**
+     * the average number of entries per row, or per occupied bucket of a flat map, {@code NaN} if unknown
+     */
+    private final double averageRowSize;
+
+    /**
+     * the largest number of keys hashed into a single bucket of the table, {@code 0} if unknown
+     */
+    private final int longestChain;
+
+    /**
+     * Returns the share of the lookups of existing keys.
+     *
+     * @return the hit ratio, {@code NaN} if there were no lookups
+     */
+    public double getHitRatio() {
+        return gets == 0 ? Double.NaN : (double) (gets - misses) / gets;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.AbstractTriEntry
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import java.util.Objects;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.AbstractTriEntry}</b></p>
+ * <p>Base of the entries handed out by the {@link TriMap} views, equal when both keys and the value are equal.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+abstract class AbstractTriEntry<K1, K2, V> implements TriMap.Entry<K1, K2, V> {
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TriMap.Entry)) {
+            return false;
+        }
+        final TriMap.Entry<?, ?, ?> entry = (TriMap.Entry<?, ?, ?>) o;
+        return getKey1().equals(entry.getKey1()) && getKey2().equals(entry.getKey2()) && getValue().equals(entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getKey1(), getKey2(), getValue());
+    }
+
+    @Override
+    public String toString() {
+        return getKey1() + ", " + getKey2() + "=" + getValue();
+    }
+
+}
@@ -0,0 +1,441 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.ConcurrentTriHashMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.TriConsumer;
+import cz.majksa.commons.collections.result.Slot;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.ConcurrentTriHashMap}</b></p>
+ * <p>Thread-safe {@link TriHashMap}, the rows and the cells are kept in {@link ConcurrentHashMap}s.
+ * A put or a remove mutates its row inside {@link ConcurrentHashMap#compute} of the first key,
+ * so the row is created, checked for the second key and dropped once empty atomically,
+ * and writers of different first keys do not block each other. Reads and replaces do not lock.</p>
+ * <p>Iteration is weakly consistent, it never throws {@link java.util.ConcurrentModificationException}.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ConcurrentTriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
+
+    private final ConcurrentHashMap<K1, ConcurrentHashMap<K2, V>> map = new ConcurrentHashMap<>();
+
+    /**
+     * the number of values stored in all rows
+     */
+    private final LongAdder size = new LongAdder();
+
+    private final Set<Entry<K1, K2, V>> entrySet = new EntrySet();
+
+    private final Collection<V> values = new Values();
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private volatile ViolationPolicy violationPolicy;
+
+    public ConcurrentTriHashMap() {
+    }
+
+    public ConcurrentTriHashMap(@NonNull TriMap<K1, K2, V> map) {
+        map.forEach((key1, key2, value) -> put(key1, key2, value));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        final ViolationPolicy violationPolicy = this.violationPolicy;
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    public @NonNull V get(@NonNull K1 key1, @NonNull K2 key2) {
+        final Map<K2, V> map2 = map.get(key1);
+        if (map2 == null) {
+            throw new KeyDoesNotExistException(key1, map, getViolationPolicy());
+        }
+        final V value = map2.get(key2);
+        if (value == null) {
+            throw new KeyDoesNotExistException(key2, map2, getViolationPolicy());
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        if (!tryPut(key1, key2, value)) {
+            final Map<K2, V> map2 = map.get(key1);
+            throw new KeyAlreadyExistsException(key2, map2 != null ? map2 : map, getViolationPolicy());
+        }
+    }
+
+    @Override
+    public V tryGet(@NonNull K1 key1, @NonNull K2 key2) {
+        final Map<K2, V> map2 = map.get(key1);
+        return map2 == null ? null : map2.get(key2);
+    }
+
+    @Override
+    public boolean tryPut(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        final Map<K2, V> map2 = map.get(key1);
+        if (map2 != null && map2.containsKey(key2)) {
+            // nothing would change, no need to lock the row
+            return false;
+        }
+        final Slot<V> existing = new Slot<>();
+        map.compute(key1, (key, row) -> {
+            if (row == null) {
+                row = new ConcurrentHashMap<>();
+            }
+            existing.setValue(row.putIfAbsent(key2, value));
+            return row;
+        });
+        if (existing.getValue() != null) {
+            return false;
+        }
+        size.increment();
+        return true;
+    }
+
+    @Override
+    public V tryRemove(@NonNull K1 key1, @NonNull K2 key2) {
+        final Map<K2, V> map2 = map.get(key1);
+        if (map2 == null || !map2.containsKey(key2)) {
+            // nothing would change, no need to lock the row
+            return null;
+        }
+        final Slot<V> removed = new Slot<>();
+        map.computeIfPresent(key1, (key, row) -> {
+            removed.setValue(row.remove(key2));
+            return row.isEmpty() ? null : row;
+        });
+        if (removed.getValue() != null) {
+            size.decrement();
+        }
+        return removed.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Does not lock, a row is only dropped once empty, so a replace in a dropped row always misses.</p>
+     */
+    @Override
+    public @NonNull V replace(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        final Map<K2, V> map2 = map.get(key1);
+        if (map2 == null) {
+            throw new KeyDoesNotExistException(key1, map, getViolationPolicy());
+        }
+        final V oldValue = map2.replace(key2, value);
+        if (oldValue == null) {
+            throw new KeyDoesNotExistException(key2, map2, getViolationPolicy());
+        }
+        return oldValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The count is exact once the concurrent updates finish.</p>
+     */
+    @Override
+    public int size() {
+        final long sum = size.sum();
+        return sum < 0 ? 0 : (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Returns the number of distinct first keys.
+     *
+     * @return the number of rows
+     */
+    public int rowCount() {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey1(K1 key) {
+        final Map<K2, V> map2 = map.get(key);
+        return map2 != null && !map2.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks all rows.</p>
+     */
+    @Override
+    public boolean containsKey2(K2 key) {
+        for (Map<K2, V> map2 : map.values()) {
+            if (map2.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKeys(K1 key1, K2 key2) {
+        final Map<K2, V> map2 = map.get(key1);
+        return map2 != null && map2.containsKey(key2);
+    }
+
+    @Override
+    public boolean containsValue(V value) {
+        for (Map<K2, V> map2 : map.values()) {
+            if (map2.containsValue(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(@NonNull Consumer<Entry<K1, K2, V>> consumer) {
+        for (Map.Entry<K1, ConcurrentHashMap<K2, V>> row : map.entrySet()) {
+            final K1 key1 = row.getKey();
+            for (Map.Entry<K2, V> cell : row.getValue().entrySet()) {
+                consumer.accept(new CellEntry(key1, cell.getKey(), cell.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        for (Map.Entry<K1, ConcurrentHashMap<K2, V>> row : map.entrySet()) {
+            final K1 key1 = row.getKey();
+            for (Map.Entry<K2, V> cell : row.getValue().entrySet()) {
+                action.accept(key1, cell.getKey(), cell.getValue());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map and weakly consistent. Entries can be removed through its iterator
+     * and their values replaced through {@link Entry#setValue(Object)}.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K1, K2, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map and weakly consistent, values can be removed through its iterator.</p>
+     */
+    @Override
+    public @NonNull Collection<V> values() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return entrySet.toString();
+    }
+
+    /**
+     * Walks the cells row by row, over the weakly consistent iterators of the {@link ConcurrentHashMap}s.
+     * A row may be found empty if its last cell is removed concurrently.
+     */
+    private abstract class CellIterator<T> implements Iterator<T> {
+
+        private final Iterator<Map.Entry<K1, ConcurrentHashMap<K2, V>>> rows = map.entrySet().iterator();
+        private K1 key1;
+        private Iterator<Map.Entry<K2, V>> cells = Collections.emptyIterator();
+        private Map.Entry<K2, V> cell;
+        private K1 lastKey1;
+
+        @Override
+        public boolean hasNext() {
+            while (!cells.hasNext()) {
+                if (!rows.hasNext()) {
+                    return false;
+                }
+                final Map.Entry<K1, ConcurrentHashMap<K2, V>> row = rows.next();
+                key1 = row.getKey();
+                cells = row.getValue().entrySet().iterator();
+            }
+            return true;
+        }
+
+        protected CellEntry nextCell() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            cell = cells.next();
+            lastKey1 = key1;
+            return new CellEntry(key1, cell.getKey(), cell.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (cell == null) {
+                throw new IllegalStateException();
+            }
+            tryRemove(lastKey1, cell.getKey());
+            cell = null;
+        }
+
+    }
+
+    /**
+     * Snapshot of a cell, {@link #setValue(Object)} replaces the value in the map.
+     */
+    private final class CellEntry extends AbstractTriEntry<K1, K2, V> {
+
+        private final K1 key1;
+        private final K2 key2;
+        private V value;
+
+        private CellEntry(K1 key1, K2 key2, V value) {
+            this.key1 = key1;
+            this.key2 = key2;
+            this.value = value;
+        }
+
+        @Override
+        public @NonNull K1 getKey1() {
+            return key1;
+        }
+
+        @Override
+        public @NonNull K2 getKey2() {
+            return key2;
+        }
+
+        @Override
+        public @NonNull V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(@NonNull V value) {
+            replace(key1, key2, value);
+            final V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K1, K2, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K1, K2, V>> iterator() {
+            return new CellIterator<>() {
+                @Override
+                public Entry<K1, K2, V> next() {
+                    return nextCell();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentTriHashMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentTriHashMap.this.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?, ?> entry = (Entry<?, ?, ?>) o;
+            final Map<K2, V> map2 = map.get(entry.getKey1());
+            final V value = map2 == null ? null : map2.get(entry.getKey2());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public Spliterator<Entry<K1, K2, V>> spliterator() {
+            return new RowSpliterator<>(map.entrySet().spliterator(),
+                    (key1, cell) -> new CellEntry(key1, cell.getKey(), cell.getValue()),
+                    Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT, size.sum());
+        }
+
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public @NonNull Iterator<V> iterator() {
+            return new CellIterator<>() {
+                @Override
+                public V next() {
+                    return nextCell().getValue();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentTriHashMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentTriHashMap.this.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return containsValue((V) o);
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new RowSpliterator<>(map.entrySet().spliterator(), (key1, cell) -> cell.getValue(),
+                    Spliterator.NONNULL | Spliterator.CONCURRENT, size.sum());
+        }
+
+    }
+
+}
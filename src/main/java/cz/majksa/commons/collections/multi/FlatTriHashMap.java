@@ -0,0 +1,626 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.FlatTriHashMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.TriConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.FlatTriHashMap}</b></p>
+ * <p>{@link TriMap} keeping all entries in a single open-addressing table of parallel arrays,
+ * probed linearly by the combined hash of both keys. A lookup is a single probe sequence
+ * and no object is allocated per entry or per row.</p>
+ * <p>Lookups by a single key ({@link #containsKey1(Object)}, {@link #containsKey2(Object)})
+ * have to walk the whole table, prefer {@link TriHashMap} where they are frequent.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class FlatTriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * marks a slot whose entry was removed, so that the probe sequences passing it stay intact
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    private int[] hashes;
+    private Object[] keys1;
+    private Object[] keys2;
+
+    /**
+     * the values, {@code null} for a free slot and {@link #TOMBSTONE} for a removed one
+     */
+    private Object[] values;
+
+    private int size;
+
+    /**
+     * the number of slots holding an entry or a {@link #TOMBSTONE}
+     */
+    private int used;
+
+    private int threshold;
+
+    private int modCount;
+
+    private Set<Entry<K1, K2, V>> entrySetView;
+
+    private Collection<V> valuesView;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    public FlatTriHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@link FlatTriHashMap} able to hold the expected number of entries without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public FlatTriHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)));
+    }
+
+    public FlatTriHashMap(@NonNull TriMap<K1, K2, V> map) {
+        this(map.size());
+        map.forEach((key1, key2, value) -> put(key1, key2, value));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NonNull V get(@NonNull K1 key1, @NonNull K2 key2) {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            throw new KeyDoesNotExistException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+        }
+        return (V) values[index];
+    }
+
+    @Override
+    public void put(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        if (!tryPut(key1, key2, value)) {
+            throw new KeyAlreadyExistsException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V tryGet(@NonNull K1 key1, @NonNull K2 key2) {
+        final int index = find(key1, key2);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public boolean tryPut(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        final int hash = hash(key1, key2);
+        final int mask = values.length - 1;
+        int free = -1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final Object current = values[i];
+            if (current == null) {
+                if (free < 0) {
+                    free = i;
+                }
+                break;
+            }
+            if (current == TOMBSTONE) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (hashes[i] == hash && key1.equals(keys1[i]) && key2.equals(keys2[i])) {
+                return false;
+            }
+        }
+        final boolean reused = values[free] == TOMBSTONE;
+        hashes[free] = hash;
+        keys1[free] = key1;
+        keys2[free] = key2;
+        values[free] = value;
+        size++;
+        modCount++;
+        if (!reused && ++used > threshold) {
+            rehash(size >= threshold / 2 ? values.length << 1 : values.length);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V tryRemove(@NonNull K1 key1, @NonNull K2 key2) {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            return null;
+        }
+        final V value = (V) values[index];
+        removeAt(index);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NonNull V replace(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            throw new KeyDoesNotExistException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+        }
+        final V oldValue = (V) values[index];
+        values[index] = value;
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table.</p>
+     */
+    @Override
+    public boolean containsKey1(K1 key) {
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i) && keys1[i].equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table.</p>
+     */
+    @Override
+    public boolean containsKey2(K2 key) {
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i) && keys2[i].equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKeys(K1 key1, K2 key2) {
+        return key1 != null && key2 != null && find(key1, key2) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(V value) {
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i) && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(@NonNull Consumer<Entry<K1, K2, V>> consumer) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i)) {
+                consumer.accept(new SlotEntry(i));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i)) {
+                action.accept((K1) keys1[i], (K2) keys2[i], (V) values[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, entries can be removed through its iterator
+     * and their values set through {@link Entry#setValue(Object)}.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K1, K2, V>> entrySet() {
+        if (entrySetView == null) {
+            entrySetView = new EntrySet();
+        }
+        return entrySetView;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, values can be removed through its iterator.</p>
+     */
+    @Override
+    public @NonNull Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    private static int hash(Object key1, Object key2) {
+        final int hash = (key1.hashCode() * 31 + key2.hashCode()) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(Math.max(size, DEFAULT_CAPACITY), MAXIMUM_CAPACITY);
+    }
+
+    private boolean isLive(int index) {
+        final Object value = values[index];
+        return value != null && value != TOMBSTONE;
+    }
+
+    private int find(Object key1, Object key2) {
+        final int hash = hash(key1, key2);
+        final int mask = values.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final Object value = values[i];
+            if (value == null) {
+                return -1;
+            }
+            if (value != TOMBSTONE && hashes[i] == hash && key1.equals(keys1[i]) && key2.equals(keys2[i])) {
+                return i;
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        keys1[index] = null;
+        keys2[index] = null;
+        values[index] = TOMBSTONE;
+        size--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys1 = new Object[capacity];
+        keys2 = new Object[capacity];
+        values = new Object[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+        used = 0;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldHashes = hashes;
+        final Object[] oldKeys1 = keys1;
+        final Object[] oldKeys2 = keys2;
+        final Object[] oldValues = values;
+        allocate(Math.min(capacity, MAXIMUM_CAPACITY));
+        final int mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            final Object value = oldValues[i];
+            if (value == null || value == TOMBSTONE) {
+                continue;
+            }
+            int index = oldHashes[i] & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            hashes[index] = oldHashes[i];
+            keys1[index] = oldKeys1[i];
+            keys2[index] = oldKeys2[i];
+            values[index] = value;
+            used++;
+        }
+        modCount++;
+    }
+
+    /**
+     * Walks the live slots of the table. Removal leaves a {@link #TOMBSTONE} behind, so no entry moves while iterating.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        private int advance(int from) {
+            while (from < values.length && !isLive(from)) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        protected int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            expectedModCount = modCount;
+            last = -1;
+        }
+
+    }
+
+    /**
+     * Splits the table into halves of slots. Like {@link SlotIterator} it reads the slots in place,
+     * so it fails fast on a modification made after it was created.
+     */
+    private final class SlotSpliterator<T> implements Spliterator<T> {
+
+        private final IntFunction<T> slot;
+        private final int characteristics;
+        private final int expectedModCount;
+        private final int fence;
+        private int index;
+        private int estimate;
+
+        /**
+         * whether the spliterator still covers the whole table, the estimate is the exact size until it is split
+         */
+        private boolean whole;
+
+        private SlotSpliterator(IntFunction<T> slot, int characteristics) {
+            this(slot, characteristics, modCount, 0, values.length, size);
+            this.whole = true;
+        }
+
+        private SlotSpliterator(IntFunction<T> slot, int characteristics, int expectedModCount,
+                                int index, int fence, int estimate) {
+            this.slot = slot;
+            this.characteristics = characteristics;
+            this.expectedModCount = expectedModCount;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(@NonNull Consumer<? super T> action) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (index < fence) {
+                final int i = index++;
+                if (isLive(i)) {
+                    estimate--;
+                    action.accept(slot.apply(i));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(@NonNull Consumer<? super T> action) {
+            for (int i = index; i < fence; i++) {
+                if (isLive(i)) {
+                    action.accept(slot.apply(i));
+                }
+            }
+            index = fence;
+            estimate = 0;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            whole = false;
+            estimate >>>= 1;
+            final SlotSpliterator<T> prefix = new SlotSpliterator<>(slot, characteristics, expectedModCount, index, middle, estimate);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return whole ? characteristics | Spliterator.SIZED : characteristics;
+        }
+
+    }
+
+    private final class SlotEntry extends AbstractTriEntry<K1, K2, V> {
+
+        private final int index;
+        private final K1 key1;
+        private final K2 key2;
+
+        @SuppressWarnings("unchecked")
+        private SlotEntry(int index) {
+            this.index = index;
+            this.key1 = (K1) keys1[index];
+            this.key2 = (K2) keys2[index];
+        }
+
+        @Override
+        public @NonNull K1 getKey1() {
+            return key1;
+        }
+
+        @Override
+        public @NonNull K2 getKey2() {
+            return key2;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @NonNull V getValue() {
+            final Object value = values[index];
+            if (value == null || value == TOMBSTONE || keys1[index] != key1 || keys2[index] != key2) {
+                throw new ConcurrentModificationException();
+            }
+            return (V) value;
+        }
+
+        @Override
+        public V setValue(@NonNull V value) {
+            final V oldValue = getValue();
+            values[index] = value;
+            return oldValue;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K1, K2, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K1, K2, V>> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Entry<K1, K2, V> next() {
+                    return new SlotEntry(nextSlot());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?, ?> entry = (Entry<?, ?, ?>) o;
+            final int index = find(entry.getKey1(), entry.getKey2());
+            return index >= 0 && values[index].equals(entry.getValue());
+        }
+
+        @Override
+        public Spliterator<Entry<K1, K2, V>> spliterator() {
+            return new SlotSpliterator<>(SlotEntry::new, Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public @NonNull Iterator<V> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    return (V) values[nextSlot()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return containsValue((V) o);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Spliterator<V> spliterator() {
+            return new SlotSpliterator<>(index -> (V) values[index], Spliterator.NONNULL);
+        }
+
+    }
+
+}
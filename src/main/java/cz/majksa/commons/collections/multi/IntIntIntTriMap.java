@@ -0,0 +1,720 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.IntIntIntTriMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.IntIntIntConsumer;
+import cz.majksa.commons.collections.function.TriConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.IntIntIntTriMap}</b></p>
+ * <p>{@link TriMap} for two {@code int} keys and {@code int} values. Both keys are packed
+ * into a single {@code long}, kept with the values in two parallel arrays probed linearly,
+ * so nothing is boxed and no object is allocated per entry.
+ * The keys {@code (0, 0)} pack to the {@code long} marking a free slot and are stored on the side.</p>
+ * <p>The methods taking {@code int} keys are the fast paths. The methods of {@link TriMap} box the keys
+ * and the values and delegate to them, they are meant for code written against the interface.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class IntIntIntTriMap implements TriMap<Integer, Integer, Integer> {
+
+    private static final long FREE = 0L;
+
+    /**
+     * the index standing for the keys {@code (0, 0)} stored on the side
+     */
+    private static final int FREE_SLOT = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * the packed keys, {@link #FREE} marks a free slot
+     */
+    private long[] keys;
+
+    private int[] values;
+
+    private boolean hasFreeKey;
+
+    private int freeKeyValue;
+
+    /**
+     * the number of entries in the table, the {@link #FREE} key excluded
+     */
+    private int used;
+
+    private int threshold;
+
+    private int modCount;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    private Set<Entry<Integer, Integer, Integer>> entrySetView;
+
+    private Collection<Integer> valuesView;
+
+    public IntIntIntTriMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@link IntIntIntTriMap} able to hold the expected number of entries without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public IntIntIntTriMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    public int get(int key1, int key2) throws KeyDoesNotExistException {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key1, key2);
+            }
+            return freeKeyValue;
+        }
+        final int index = find(key);
+        if (index < 0) {
+            throw keyDoesNotExist(key1, key2);
+        }
+        return values[index];
+    }
+
+    @Override
+    public @NonNull Integer get(@NonNull Integer key1, @NonNull Integer key2) throws KeyDoesNotExistException {
+        return get(key1.intValue(), key2.intValue());
+    }
+
+    /**
+     * Looks up the value stored under the keys without throwing on a miss.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @param defaultValue the value returned if the keys do not exist
+     * @return the value, or {@code defaultValue} if the keys do not exist
+     */
+    public int getOrDefault(int key1, int key2, int defaultValue) {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        final int index = find(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    @Override
+    public @Nullable Integer tryGet(@NonNull Integer key1, @NonNull Integer key2) {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            return hasFreeKey ? Integer.valueOf(freeKeyValue) : null;
+        }
+        final int index = find(key);
+        return index < 0 ? null : Integer.valueOf(values[index]);
+    }
+
+    public void put(int key1, int key2, int value) throws KeyAlreadyExistsException {
+        if (!tryPut(key1, key2, value)) {
+            throw keyAlreadyExists(key1, key2);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Integer key1, @NonNull Integer key2, @NonNull Integer value) throws KeyAlreadyExistsException {
+        put(key1.intValue(), key2.intValue(), value.intValue());
+    }
+
+    /**
+     * Stores the value under the keys if they do not exist yet, without throwing if they do.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @param value the value
+     * @return {@code true} if the value was stored, {@code false} if the keys already exist
+     * @throws IllegalStateException if the table has no free slot left
+     */
+    public boolean tryPut(int key1, int key2, int value) {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            freeKeyValue = value;
+            modCount++;
+            return true;
+        }
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (used == threshold && keys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++used > threshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryPut(@NonNull Integer key1, @NonNull Integer key2, @NonNull Integer value) {
+        return tryPut(key1.intValue(), key2.intValue(), value.intValue());
+    }
+
+    /**
+     * Removes the value stored under the keys without throwing if they do not exist.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return {@code true} if the value was removed
+     */
+    public boolean tryRemove(int key1, int key2) {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            modCount++;
+            return true;
+        }
+        final int index = find(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public @Nullable Integer tryRemove(@NonNull Integer key1, @NonNull Integer key2) {
+        final long key = pack(key1, key2);
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return null;
+            }
+            hasFreeKey = false;
+            modCount++;
+            return freeKeyValue;
+        }
+        final int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        final int value = values[index];
+        removeAt(index);
+        return value;
+    }
+
+    public int remove(int key1, int key2) throws KeyDoesNotExistException {
+        final long key = pack(key1, key2);
+        final int value;
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key1, key2);
+            }
+            value = freeKeyValue;
+            hasFreeKey = false;
+            modCount++;
+        } else {
+            final int index = find(key);
+            if (index < 0) {
+                throw keyDoesNotExist(key1, key2);
+            }
+            value = values[index];
+            removeAt(index);
+        }
+        return value;
+    }
+
+    public int replace(int key1, int key2, int value) throws KeyDoesNotExistException {
+        final long key = pack(key1, key2);
+        final int oldValue;
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                throw keyDoesNotExist(key1, key2);
+            }
+            oldValue = freeKeyValue;
+            freeKeyValue = value;
+        } else {
+            final int index = find(key);
+            if (index < 0) {
+                throw keyDoesNotExist(key1, key2);
+            }
+            oldValue = values[index];
+            values[index] = value;
+        }
+        return oldValue;
+    }
+
+    @Override
+    public @NonNull Integer replace(@NonNull Integer key1, @NonNull Integer key2, @NonNull Integer value) throws KeyDoesNotExistException {
+        return replace(key1.intValue(), key2.intValue(), value.intValue());
+    }
+
+    @Override
+    public int size() {
+        return hasFreeKey ? used + 1 : used;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns {@code true} if any entry is stored under the first key. Walks the whole table.
+     *
+     * @param key the first key
+     * @return {@code true} if any entry is stored under the first key
+     */
+    public boolean containsKey1(int key) {
+        if (key == 0 && hasFreeKey) {
+            return true;
+        }
+        for (long current : keys) {
+            if (current != FREE && key1(current) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKey1(Integer key) {
+        return key != null && containsKey1(key.intValue());
+    }
+
+    /**
+     * Returns {@code true} if any entry is stored under the second key. Walks the whole table.
+     *
+     * @param key the second key
+     * @return {@code true} if any entry is stored under the second key
+     */
+    public boolean containsKey2(int key) {
+        if (key == 0 && hasFreeKey) {
+            return true;
+        }
+        for (long current : keys) {
+            if (current != FREE && key2(current) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKey2(Integer key) {
+        return key != null && containsKey2(key.intValue());
+    }
+
+    public boolean containsKeys(int key1, int key2) {
+        final long key = pack(key1, key2);
+        return key == FREE ? hasFreeKey : find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKeys(Integer key1, Integer key2) {
+        return key1 != null && key2 != null && containsKeys(key1.intValue(), key2.intValue());
+    }
+
+    /**
+     * Returns {@code true} if any entry holds the value. Walks the whole table.
+     *
+     * @param value the value
+     * @return {@code true} if any entry holds the value
+     */
+    public boolean containsValue(int value) {
+        if (hasFreeKey && freeKeyValue == value) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Integer value) {
+        return value != null && containsValue(value.intValue());
+    }
+
+    /**
+     * Removes all of the entries from this map.
+     */
+    public void clear() {
+        if (!isEmpty()) {
+            Arrays.fill(keys, FREE);
+            hasFreeKey = false;
+            used = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Performs the action for every entry of this map, without boxing the keys or the values.
+     *
+     * @param action the action to be performed for the keys and the value of every entry
+     * @throws java.util.ConcurrentModificationException if the map is modified by the action
+     */
+    public void forEachEntry(@NonNull IntIntIntConsumer action) {
+        final int expectedModCount = modCount;
+        if (hasFreeKey) {
+            action.accept(0, 0, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            final long key = keys[i];
+            if (key != FREE) {
+                action.accept(key1(key), key2(key), values[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull Consumer<Entry<Integer, Integer, Integer>> consumer) {
+        final int expectedModCount = modCount;
+        if (hasFreeKey) {
+            consumer.accept(new SlotEntry(FREE_SLOT));
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(new SlotEntry(i));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull TriConsumer<? super Integer, ? super Integer, ? super Integer> action) {
+        forEachEntry(action::accept);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map and the values of its entries can be set through
+     * {@link Entry#setValue(Object)}, it does not support removal.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<Integer, Integer, Integer>> entrySet() {
+        if (entrySetView == null) {
+            entrySetView = new EntrySet();
+        }
+        return entrySetView;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, it does not support removal.</p>
+     */
+    @Override
+    public @NonNull Collection<Integer> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEachEntry((key1, key2, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key1).append(", ").append(key2).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    private static long pack(int key1, int key2) {
+        return ((long) key1 << 32) | (key2 & 0xFFFFFFFFL);
+    }
+
+    private static int key1(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int key2(long key) {
+        return (int) key;
+    }
+
+    private static int hash(long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(Math.max(size, DEFAULT_CAPACITY), MAXIMUM_CAPACITY);
+    }
+
+    private int find(long key) {
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the slot and shifts the following entries of its probe sequence back, so that no tombstone is needed.
+     */
+    private void removeAt(int index) {
+        final int mask = keys.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            final int home = hash(keys[i]) & mask;
+            // the entry may move to the free slot only if the free slot lies on its probe sequence
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        keys[free] = FREE;
+        used--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != FREE) {
+                int index = hash(key) & mask;
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(int key1, int key2) {
+        return new KeyDoesNotExistException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(int key1, int key2) {
+        return new KeyAlreadyExistsException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+    }
+
+    /**
+     * Iterates the keys {@code (0, 0)} and then the occupied slots. Removing an entry shifts the following ones back,
+     * so the iterators do not support removal.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private boolean freeKeyPending = hasFreeKey;
+        private int next = advance(0);
+        private final int expectedModCount = modCount;
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == FREE) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return freeKeyPending || next < keys.length;
+        }
+
+        protected int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (freeKeyPending) {
+                freeKeyPending = false;
+                return FREE_SLOT;
+            }
+            if (next >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            final int slot = next;
+            next = advance(next + 1);
+            return slot;
+        }
+
+    }
+
+    private final class SlotEntry extends AbstractTriEntry<Integer, Integer, Integer> {
+
+        private final int index;
+        private final long key;
+
+        private SlotEntry(int index) {
+            this.index = index;
+            this.key = index == FREE_SLOT ? FREE : keys[index];
+        }
+
+        @Override
+        public @NonNull Integer getKey1() {
+            return key1(key);
+        }
+
+        @Override
+        public @NonNull Integer getKey2() {
+            return key2(key);
+        }
+
+        @Override
+        public @NonNull Integer getValue() {
+            if (index == FREE_SLOT ? !hasFreeKey : keys[index] != key) {
+                throw new ConcurrentModificationException();
+            }
+            return index == FREE_SLOT ? freeKeyValue : values[index];
+        }
+
+        @Override
+        public Integer setValue(@NonNull Integer value) {
+            final Integer oldValue = getValue();
+            if (index == FREE_SLOT) {
+                freeKeyValue = value;
+            } else {
+                values[index] = value;
+            }
+            return oldValue;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Integer, Integer, Integer>> {
+
+        @Override
+        public @NonNull Iterator<Entry<Integer, Integer, Integer>> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Entry<Integer, Integer, Integer> next() {
+                    return new SlotEntry(nextSlot());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return IntIntIntTriMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?, ?> entry = (Entry<?, ?, ?>) o;
+            if (!(entry.getKey1() instanceof Integer) || !(entry.getKey2() instanceof Integer)) {
+                return false;
+            }
+            final Integer value = tryGet((Integer) entry.getKey1(), (Integer) entry.getKey2());
+            return value != null && value.equals(entry.getValue());
+        }
+
+    }
+
+    private final class Values extends AbstractCollection<Integer> {
+
+        @Override
+        public @NonNull Iterator<Integer> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Integer next() {
+                    final int slot = nextSlot();
+                    return slot == FREE_SLOT ? freeKeyValue : values[slot];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return IntIntIntTriMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && containsValue(((Integer) o).intValue());
+        }
+
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.KeyPair
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.KeyPair}</b></p>
+ * <p>The two keys of a violation, rendered as {@code key1, key2} only when the message of the exception is.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@RequiredArgsConstructor
+final class KeyPair {
+
+    private final Object key1;
+    private final Object key2;
+
+    @Override
+    public String toString() {
+        return key1 + ", " + key2;
+    }
+
+}
@@ -0,0 +1,604 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.LongLongObjectTriMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.LongLongObjConsumer;
+import cz.majksa.commons.collections.function.TriConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.LongLongObjectTriMap}</b></p>
+ * <p>{@link TriMap} for two {@code long} keys. Both keys and the value are kept in
+ * parallel arrays probed linearly by the combined hash of the keys, so no key is boxed and
+ * no object is allocated per entry. Values must not be {@code null}.</p>
+ * <p>The methods taking {@code long} keys are the fast paths. The methods of {@link TriMap} box the keys
+ * and delegate to them, they are meant for code written against the interface.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class LongLongObjectTriMap<V> implements TriMap<Long, Long, V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private long[] keys1;
+    private long[] keys2;
+
+    /**
+     * the values, {@code null} marks a free slot
+     */
+    private Object[] values;
+
+    private int size;
+
+    private int threshold;
+
+    private int modCount;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    private Set<Entry<Long, Long, V>> entrySetView;
+
+    private Collection<V> valuesView;
+
+    public LongLongObjectTriMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty {@link LongLongObjectTriMap} able to hold the expected number of entries without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public LongLongObjectTriMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)));
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @SuppressWarnings("unchecked")
+    public @NonNull V get(long key1, long key2) throws KeyDoesNotExistException {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            throw keyDoesNotExist(key1, key2);
+        }
+        return (V) values[index];
+    }
+
+    @Override
+    public @NonNull V get(@NonNull Long key1, @NonNull Long key2) throws KeyDoesNotExistException {
+        return get(key1.longValue(), key2.longValue());
+    }
+
+    public void put(long key1, long key2, @NonNull V value) throws KeyAlreadyExistsException {
+        if (!tryPut(key1, key2, value)) {
+            throw keyAlreadyExists(key1, key2);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Long key1, @NonNull Long key2, @NonNull V value) throws KeyAlreadyExistsException {
+        put(key1.longValue(), key2.longValue(), value);
+    }
+
+    /**
+     * Looks up the value stored under the keys without throwing on a miss.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the value, or {@code null} if the keys do not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V tryGet(long key1, long key2) {
+        final int index = find(key1, key2);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public @Nullable V tryGet(@NonNull Long key1, @NonNull Long key2) {
+        return tryGet(key1.longValue(), key2.longValue());
+    }
+
+    /**
+     * Stores the value under the keys if they do not exist yet, without throwing if they do.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @param value the value
+     * @return {@code true} if the value was stored, {@code false} if the keys already exist
+     * @throws IllegalStateException if the table has no free slot left
+     */
+    public boolean tryPut(long key1, long key2, @NonNull V value) {
+        final int mask = values.length - 1;
+        int index = hash(key1, key2) & mask;
+        while (values[index] != null) {
+            if (keys1[index] == key1 && keys2[index] == key2) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size == threshold && values.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        keys1[index] = key1;
+        keys2[index] = key2;
+        values[index] = value;
+        modCount++;
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryPut(@NonNull Long key1, @NonNull Long key2, @NonNull V value) {
+        return tryPut(key1.longValue(), key2.longValue(), value);
+    }
+
+    /**
+     * Removes the value stored under the keys without throwing if they do not exist.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the removed value, or {@code null} if the keys do not exist
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V tryRemove(long key1, long key2) {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            return null;
+        }
+        final V value = (V) values[index];
+        removeAt(index);
+        return value;
+    }
+
+    @Override
+    public @Nullable V tryRemove(@NonNull Long key1, @NonNull Long key2) {
+        return tryRemove(key1.longValue(), key2.longValue());
+    }
+
+    public @NonNull V remove(long key1, long key2) throws KeyDoesNotExistException {
+        final V value = tryRemove(key1, key2);
+        if (value == null) {
+            throw keyDoesNotExist(key1, key2);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @NonNull V replace(long key1, long key2, @NonNull V value) throws KeyDoesNotExistException {
+        final int index = find(key1, key2);
+        if (index < 0) {
+            throw keyDoesNotExist(key1, key2);
+        }
+        final V oldValue = (V) values[index];
+        values[index] = value;
+        return oldValue;
+    }
+
+    @Override
+    public @NonNull V replace(@NonNull Long key1, @NonNull Long key2, @NonNull V value) throws KeyDoesNotExistException {
+        return replace(key1.longValue(), key2.longValue(), value);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if any entry is stored under the first key. Walks the whole table.
+     *
+     * @param key the first key
+     * @return {@code true} if any entry is stored under the first key
+     */
+    public boolean containsKey1(long key) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && keys1[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKey1(Long key) {
+        return key != null && containsKey1(key.longValue());
+    }
+
+    /**
+     * Returns {@code true} if any entry is stored under the second key. Walks the whole table.
+     *
+     * @param key the second key
+     * @return {@code true} if any entry is stored under the second key
+     */
+    public boolean containsKey2(long key) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && keys2[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsKey2(Long key) {
+        return key != null && containsKey2(key.longValue());
+    }
+
+    public boolean containsKeys(long key1, long key2) {
+        return find(key1, key2) >= 0;
+    }
+
+    @Override
+    public boolean containsKeys(Long key1, Long key2) {
+        return key1 != null && key2 != null && containsKeys(key1.longValue(), key2.longValue());
+    }
+
+    /**
+     * Returns {@code true} if any entry holds the value. Walks the whole table.
+     *
+     * @param value the value
+     * @return {@code true} if any entry holds the value
+     */
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        for (Object current : values) {
+            if (value.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all of the entries from this map.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Performs the action for every entry of this map, without boxing the keys.
+     *
+     * @param action the action to be performed for the keys and the value of every entry
+     * @throws java.util.ConcurrentModificationException if the map is modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(@NonNull LongLongObjConsumer<? super V> action) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                action.accept(keys1[i], keys2[i], (V) value);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull Consumer<Entry<Long, Long, V>> consumer) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(new SlotEntry(i));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull TriConsumer<? super Long, ? super Long, ? super V> action) {
+        forEachEntry(action::accept);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map and the values of its entries can be set through
+     * {@link Entry#setValue(Object)}, it does not support removal.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<Long, Long, V>> entrySet() {
+        if (entrySetView == null) {
+            entrySetView = new EntrySet();
+        }
+        return entrySetView;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, it does not support removal.</p>
+     */
+    @Override
+    public @NonNull Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEachEntry((key1, key2, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key1).append(", ").append(key2).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    private static int hash(long key1, long key2) {
+        final long hash = (key1 * 0x9E3779B97F4A7C15L + key2) * 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(Math.max(size, DEFAULT_CAPACITY), MAXIMUM_CAPACITY);
+    }
+
+    private int find(long key1, long key2) {
+        final int mask = values.length - 1;
+        int index = hash(key1, key2) & mask;
+        while (values[index] != null) {
+            if (keys1[index] == key1 && keys2[index] == key2) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the slot and shifts the following entries of its probe sequence back, so that no tombstone is needed.
+     */
+    private void removeAt(int index) {
+        final int mask = values.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            final int home = hash(keys1[i], keys2[i]) & mask;
+            // the entry may move to the free slot only if the free slot lies on its probe sequence
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys1[free] = keys1[i];
+                keys2[free] = keys2[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        values[free] = null;
+        size--;
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        keys1 = new long[capacity];
+        keys2 = new long[capacity];
+        values = new Object[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys1 = keys1;
+        final long[] oldKeys2 = keys2;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        final int mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys1[i], oldKeys2[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys1[index] = oldKeys1[i];
+                keys2[index] = oldKeys2[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private KeyDoesNotExistException keyDoesNotExist(long key1, long key2) {
+        return new KeyDoesNotExistException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+    }
+
+    private KeyAlreadyExistsException keyAlreadyExists(long key1, long key2) {
+        return new KeyAlreadyExistsException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+    }
+
+    /**
+     * Iterates the occupied slots. Removing an entry shifts the following ones back, so the iterators do not support removal.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int next = advance(0);
+        private final int expectedModCount = modCount;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        protected int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            final int slot = next;
+            next = advance(next + 1);
+            return slot;
+        }
+
+    }
+
+    private final class SlotEntry extends AbstractTriEntry<Long, Long, V> {
+
+        private final int index;
+        private final long key1;
+        private final long key2;
+
+        private SlotEntry(int index) {
+            this.index = index;
+            this.key1 = keys1[index];
+            this.key2 = keys2[index];
+        }
+
+        @Override
+        public @NonNull Long getKey1() {
+            return key1;
+        }
+
+        @Override
+        public @NonNull Long getKey2() {
+            return key2;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @NonNull V getValue() {
+            final Object value = values[index];
+            if (value == null || keys1[index] != key1 || keys2[index] != key2) {
+                throw new ConcurrentModificationException();
+            }
+            return (V) value;
+        }
+
+        @Override
+        public V setValue(@NonNull V value) {
+            final V oldValue = getValue();
+            values[index] = value;
+            return oldValue;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Long, Long, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<Long, Long, V>> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Entry<Long, Long, V> next() {
+                    return new SlotEntry(nextSlot());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?, ?> entry = (Entry<?, ?, ?>) o;
+            if (!(entry.getKey1() instanceof Long) || !(entry.getKey2() instanceof Long)) {
+                return false;
+            }
+            final int index = find((Long) entry.getKey1(), (Long) entry.getKey2());
+            return index >= 0 && values[index].equals(entry.getValue());
+        }
+
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public @NonNull Iterator<V> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    return (V) values[nextSlot()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && containsValue(o);
+        }
+
+    }
+
+}
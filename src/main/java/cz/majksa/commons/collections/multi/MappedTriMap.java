@@ -0,0 +1,401 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.MappedTriMap
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.multi;
+
+import cz.majksa.commons.collections.codec.EncodedBytes;
+import cz.majksa.commons.collections.codec.FixedWidthCodec;
+import cz.majksa.commons.collections.codec.MappedTable;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.TriConsumer;
+import lombok.NonNull;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.MappedTriMap}</b></p>
+ * <p>Read-only {@link TriMap} answering straight from a file mapped into memory, see {@link MappedTable}.
+ * Both keys are encoded next to each other into the key of the table.
+ * A map is written once by {@link #write(TriMap, Path, FixedWidthCodec, FixedWidthCodec, FixedWidthCodec)},
+ * then any number of processes may {@link #open(Path, FixedWidthCodec, FixedWidthCodec, FixedWidthCodec)} it
+ * in constant time and share its pages.</p>
+ * <p>Every mutator throws {@link UnsupportedOperationException}. Lookups are safe from several threads.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class MappedTriMap<K1, K2, V> implements TriMap<K1, K2, V>, AutoCloseable {
+
+    private final MappedTable table;
+    private final FixedWidthCodec<K1> key1Codec;
+    private final FixedWidthCodec<K2> key2Codec;
+    private final FixedWidthCodec<V> valueCodec;
+
+    private Set<Entry<K1, K2, V>> entrySet;
+
+    private Collection<V> values;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    private MappedTriMap(MappedTable table, FixedWidthCodec<K1> key1Codec, FixedWidthCodec<K2> key2Codec, FixedWidthCodec<V> valueCodec) {
+        this.table = table;
+        this.key1Codec = key1Codec;
+        this.key2Codec = key2Codec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Writes the entries of the map into a file to be opened by
+     * {@link #open(Path, FixedWidthCodec, FixedWidthCodec, FixedWidthCodec)}. The file is replaced atomically if it exists,
+     * the maps already open on it keep reading the previous one.
+     *
+     * @param map the map to write, usually a {@link TriHashMap}
+     * @param path the file
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if two pairs of keys of the map share an encoding
+     */
+    public static <K1, K2, V> void write(@NonNull TriMap<K1, K2, V> map, @NonNull Path path,
+                                         @NonNull FixedWidthCodec<K1> key1Codec, @NonNull FixedWidthCodec<K2> key2Codec,
+                                         @NonNull FixedWidthCodec<V> valueCodec) throws IOException {
+        final int key1Width = key1Codec.width();
+        try (MappedTable.Writer writer = MappedTable.writer(path, key1Width + key2Codec.width(), valueCodec.width(), map.size())) {
+            map.forEach((key1, key2, value) -> {
+                key1Codec.write(writer.key(), 0, key1);
+                key2Codec.write(writer.key(), key1Width, key2);
+                valueCodec.write(writer.value(), 0, value);
+                writer.append();
+            });
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write(TriMap, Path, FixedWidthCodec, FixedWidthCodec, FixedWidthCodec)}.
+     *
+     * @param path the file
+     * @param key1Codec the codec of the first keys
+     * @param key2Codec the codec of the second keys
+     * @param valueCodec the codec of the values
+     * @return the read-only map
+     * @throws IOException if the file cannot be read, or is not a complete map
+     * @throws IllegalArgumentException if the codecs do not match the widths of the file
+     */
+    public static <K1, K2, V> @NonNull MappedTriMap<K1, K2, V> open(@NonNull Path path,
+                                                                    @NonNull FixedWidthCodec<K1> key1Codec,
+                                                                    @NonNull FixedWidthCodec<K2> key2Codec,
+                                                                    @NonNull FixedWidthCodec<V> valueCodec) throws IOException {
+        final MappedTable table = MappedTable.open(path, key1Codec.width() + key2Codec.width(), valueCodec.width());
+        return new MappedTriMap<>(table, key1Codec, key2Codec, valueCodec);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
+    }
+
+    @Override
+    public @NonNull V get(@NonNull K1 key1, @NonNull K2 key2) throws KeyDoesNotExistException {
+        final long index = find(key1, key2);
+        if (index < 0) {
+            throw new KeyDoesNotExistException(new KeyPair(key1, key2), entrySet(), getViolationPolicy());
+        }
+        return valueCodec.read(table.page(index), table.valueOffset(index));
+    }
+
+    @Override
+    public void put(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @Nullable V tryGet(@NonNull K1 key1, @NonNull K2 key2) {
+        final long index = find(key1, key2);
+        return index < 0 ? null : valueCodec.read(table.page(index), table.valueOffset(index));
+    }
+
+    @Override
+    public boolean tryPut(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @Nullable V tryRemove(@NonNull K1 key1, @NonNull K2 key2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public @NonNull V replace(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the number of entries, or {@link Integer#MAX_VALUE} if there are more
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(table.size(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of entries, which may exceed {@link Integer#MAX_VALUE}.
+     *
+     * @return the number of entries
+     */
+    public long longSize() {
+        return table.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return table.size() == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table, comparing the encoded keys.</p>
+     */
+    @Override
+    public boolean containsKey1(K1 key) {
+        final ByteBuffer buffer = table.keyBuffer();
+        key1Codec.write(buffer, 0, key);
+        return containsKeyPart(buffer, 0, key1Codec.width());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table, comparing the encoded keys.</p>
+     */
+    @Override
+    public boolean containsKey2(K2 key) {
+        final ByteBuffer buffer = table.keyBuffer();
+        key2Codec.write(buffer, key1Codec.width(), key);
+        return containsKeyPart(buffer, key1Codec.width(), key2Codec.width());
+    }
+
+    @Override
+    public boolean containsKeys(K1 key1, K2 key2) {
+        return find(key1, key2) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Walks the whole table, comparing the encoded values.</p>
+     */
+    @Override
+    public boolean containsValue(V value) {
+        valueCodec.write(table.valueBuffer(), 0, value);
+        return table.containsValue();
+    }
+
+    @Override
+    public void forEach(@NonNull Consumer<Entry<K1, K2, V>> consumer) {
+        for (long index = table.next(0); index < table.capacity(); index = table.next(index + 1)) {
+            consumer.accept(entry(index));
+        }
+    }
+
+    @Override
+    public void forEach(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        final int key1Width = key1Codec.width();
+        for (long index = table.next(0); index < table.capacity(); index = table.next(index + 1)) {
+            final ByteBuffer page = table.page(index);
+            final int offset = table.keyOffset(index);
+            action.accept(key1Codec.read(page, offset), key2Codec.read(page, offset + key1Width), valueCodec.read(page, table.valueOffset(index)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is read-only, its entries are decoded copies of the stored ones.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K1, K2, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public @NonNull Iterator<Entry<K1, K2, V>> iterator() {
+                    return new SlotIterator<>() {
+                        @Override
+                        Entry<K1, K2, V> read(long index) {
+                            return entry(index);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MappedTriMap.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is read-only.</p>
+     */
+    @Override
+    public @NonNull Collection<V> values() {
+        if (values == null) {
+            values = new AbstractCollection<>() {
+                @Override
+                public @NonNull Iterator<V> iterator() {
+                    return new SlotIterator<>() {
+                        @Override
+                        V read(long index) {
+                            return valueCodec.read(table.page(index), table.valueOffset(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MappedTriMap.this.size();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public boolean contains(Object o) {
+                    return o != null && containsValue((V) o);
+                }
+            };
+        }
+        return values;
+    }
+
+    /**
+     * Closes the file. Any later operation throws {@link IllegalStateException}, the lookups in flight complete
+     * and the pages are unmapped once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    @Override
+    public String toString() {
+        return entrySet().toString();
+    }
+
+    private long find(K1 key1, K2 key2) {
+        final ByteBuffer buffer = table.keyBuffer();
+        key1Codec.write(buffer, 0, key1);
+        key2Codec.write(buffer, key1Codec.width(), key2);
+        return table.find();
+    }
+
+    private boolean containsKeyPart(ByteBuffer buffer, int offset, int width) {
+        for (long index = table.next(0); index < table.capacity(); index = table.next(index + 1)) {
+            if (EncodedBytes.equal(table.page(index), table.keyOffset(index) + offset, buffer, offset, width)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Entry<K1, K2, V> entry(long index) {
+        final ByteBuffer page = table.page(index);
+        final int offset = table.keyOffset(index);
+        return new SnapshotEntry<>(key1Codec.read(page, offset), key2Codec.read(page, offset + key1Codec.width()),
+                valueCodec.read(page, table.valueOffset(index)));
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private long next = table.next(0);
+
+        abstract T read(long index);
+
+        @Override
+        public boolean hasNext() {
+            return next < table.capacity();
+        }
+
+        @Override
+        public T next() {
+            if (next >= table.capacity()) {
+                throw new NoSuchElementException();
+            }
+            final T element = read(next);
+            next = table.next(next + 1);
+            return element;
+        }
+
+    }
+
+    private static final class SnapshotEntry<K1, K2, V> extends AbstractTriEntry<K1, K2, V> {
+
+        private final K1 key1;
+        private final K2 key2;
+        private final V value;
+
+        private SnapshotEntry(K1 key1, K2 key2, V value) {
+            this.key1 = key1;
+            this.key2 = key2;
+            this.value = value;
+        }
+
+        @Override
+        public @NonNull K1 getKey1() {
+            return key1;
+        }
+
+        @Override
+        public @NonNull K2 getKey2() {
+            return key2;
+        }
+
+        @Override
+        public @NonNull V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(@NonNull V value) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
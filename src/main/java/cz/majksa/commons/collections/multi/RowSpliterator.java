@@ -0,0 +1,150 @@
+/*
+ *  collections - cz.majksa.commons.collections.multi.RowSpliterator
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package cz.majksa.commons.collections.multi;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.multi.RowSpliterator}</b></p>
+ * <p>{@link Spliterator} over the cells of a map of rows, each cell mapped together with the key of its row.
+ * It splits the rows first and, once they cannot be split any further, the cells of the row it stands in,
+ * so a map of a few huge rows is divided as well as a map of many small ones.</p>
+ * <p>The splitting and the fail-fast or weakly consistent behaviour are those of the spliterators of the rows
+ * and the cells. Until it is first split, the spliterator of a map that is not concurrent is
+ * {@link Spliterator#SIZED} with the exact size, afterwards the size is only estimated.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class RowSpliterator<K1, K2, V, T> implements Spliterator<T> {
+
+    private final Spliterator<? extends Map.Entry<K1, ? extends Map<K2, V>>> rows;
+    private final BiFunction<? super K1, ? super Map.Entry<K2, V>, ? extends T> mapper;
+    private final int characteristics;
+
+    /**
+     * the key of the row being traversed, {@code null} before the first row
+     */
+    private K1 key1;
+
+    /**
+     * the remaining cells of the row being traversed, {@code null} before the first row
+     */
+    private Spliterator<Map.Entry<K2, V>> cells;
+
+    private long estimate;
+
+    /**
+     * whether the spliterator was never split and the map is not concurrent, so that the estimate is the exact size
+     */
+    private boolean sized;
+
+    RowSpliterator(@NonNull Spliterator<? extends Map.Entry<K1, ? extends Map<K2, V>>> rows,
+                   @NonNull BiFunction<? super K1, ? super Map.Entry<K2, V>, ? extends T> mapper,
+                   int characteristics, long estimate) {
+        this(rows, null, null, mapper, characteristics, estimate);
+        this.sized = (characteristics & Spliterator.CONCURRENT) == 0;
+    }
+
+    private RowSpliterator(Spliterator<? extends Map.Entry<K1, ? extends Map<K2, V>>> rows,
+                           K1 key1, Spliterator<Map.Entry<K2, V>> cells,
+                           BiFunction<? super K1, ? super Map.Entry<K2, V>, ? extends T> mapper,
+                           int characteristics, long estimate) {
+        this.rows = rows;
+        this.key1 = key1;
+        this.cells = cells;
+        this.mapper = mapper;
+        this.characteristics = characteristics;
+        this.estimate = estimate;
+    }
+
+    private void enter(Map.Entry<K1, ? extends Map<K2, V>> row) {
+        key1 = row.getKey();
+        cells = row.getValue().entrySet().spliterator();
+    }
+
+    @Override
+    public boolean tryAdvance(@NonNull Consumer<? super T> action) {
+        do {
+            if (cells != null && cells.tryAdvance(cell -> action.accept(mapper.apply(key1, cell)))) {
+                if (estimate > 0) {
+                    estimate--;
+                }
+                return true;
+            }
+        } while (rows.tryAdvance(this::enter));
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(@NonNull Consumer<? super T> action) {
+        if (cells != null) {
+            final K1 key = key1;
+            cells.forEachRemaining(cell -> action.accept(mapper.apply(key, cell)));
+            cells = null;
+        }
+        rows.forEachRemaining(row -> {
+            final K1 key = row.getKey();
+            for (Map.Entry<K2, V> cell : row.getValue().entrySet()) {
+                action.accept(mapper.apply(key, cell));
+            }
+        });
+        estimate = 0;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final Spliterator<? extends Map.Entry<K1, ? extends Map<K2, V>>> prefix = rows.trySplit();
+        if (prefix != null) {
+            sized = false;
+            estimate >>>= 1;
+            return new RowSpliterator<>(prefix, null, null, mapper, characteristics, estimate);
+        }
+        if (cells == null && !rows.tryAdvance(this::enter)) {
+            return null;
+        }
+        final Spliterator<Map.Entry<K2, V>> half = cells.trySplit();
+        if (half == null) {
+            return null;
+        }
+        sized = false;
+        final long halfEstimate = half.estimateSize();
+        estimate = Math.max(0, estimate - halfEstimate);
+        return new RowSpliterator<>(Spliterators.emptySpliterator(), key1, half, mapper, characteristics, halfEstimate);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return sized ? characteristics | Spliterator.SIZED : characteristics;
+    }
+
+}
@@ -23,6 +23,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serializable;
+
 /**
  * <p><b>Class {@link SimpleTriEntry}</b></p>
  *
@@ -33,7 +35,9 @@ import org.jetbrains.annotations.NotNull;
 @Getter
 @AllArgsConstructor
 @RequiredArgsConstructor
-public class SimpleTriEntry<K1, K2, V> implements TriMap.Entry<K1, K2, V> {
+public class SimpleTriEntry<K1, K2, V> implements TriMap.Entry<K1, K2, V>, Serializable {
+
+    private static final long serialVersionUID = 4808299656964197711L;
 
     private final K1 key1;
     private final K2 key2;
@@ -18,15 +18,32 @@
 
 package cz.majksa.commons.collections.multi;
 
+import cz.majksa.commons.collections.events.BulkOperationEvent;
+import cz.majksa.commons.collections.events.KeyViolationEvent;
+import cz.majksa.commons.collections.events.ResizeEvent;
 import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
 import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import cz.majksa.commons.collections.exceptions.ViolationPolicy;
+import cz.majksa.commons.collections.function.TriConsumer;
+import cz.majksa.commons.collections.metrics.Instrumented;
+import cz.majksa.commons.collections.metrics.MapMetrics;
+import cz.majksa.commons.collections.metrics.MetricsSnapshot;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
 
 /**
@@ -36,60 +53,245 @@ import java.util.function.Consumer;
  * @version 1.0.0
  * @since 1.0.0
  */
-public class TriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
+public class TriHashMap<K1, K2, V> implements TriMap<K1, K2, V>, Instrumented, Serializable {
+
+    private static final long serialVersionUID = 7423655691340371697L;
 
     private final Map<K1, Map<K2, V>> map = new HashMap<>();
 
+    /**
+     * the columns of this map, the values mapped by the second and then the first key,
+     * {@code null} if {@link Index#KEY2} is not enabled
+     */
+    private final Map<K2, Map<K1, V>> key2Index;
+
+    /**
+     * the number of cells holding each value, {@code null} if {@link Index#VALUE} is not enabled
+     */
+    private final Map<V, Integer> valueIndex;
+
+    /**
+     * the number of values stored in all rows
+     */
+    private int size;
+
+    private transient Set<Entry<K1, K2, V>> entrySet;
+
+    private transient Collection<V> values;
+
+    /**
+     * the {@link ViolationPolicy} of the thrown exceptions, {@code null} to follow {@link ViolationPolicy#getGlobal()}
+     */
+    @Setter
+    private ViolationPolicy violationPolicy;
+
+    /**
+     * the counters of the operations, {@code null} unless enabled by {@link #setMetricsEnabled(boolean)}
+     */
+    private transient MapMetrics metrics;
+
+    /**
+     * the name of this map in its flight recorder events, {@code null} if not set
+     */
+    @Getter
+    @Setter
+    private String name;
+
     public TriHashMap() {
+        this(new Index[0]);
+    }
+
+    /**
+     * Constructs an empty {@link TriHashMap} maintaining the specified secondary indexes.
+     *
+     * @param indexes the secondary indexes to maintain
+     */
+    public TriHashMap(@NonNull Index... indexes) {
+        final Set<Index> enabled = EnumSet.noneOf(Index.class);
+        Collections.addAll(enabled, indexes);
+        this.key2Index = enabled.contains(Index.KEY2) ? new HashMap<>() : null;
+        this.valueIndex = enabled.contains(Index.VALUE) ? new HashMap<>() : null;
     }
 
     public TriHashMap(TriMap<K1, K2, V> map) {
-        map.forEach(entry -> put(entry.getKey1(), entry.getKey2(), entry.getValue()));
+        this(map, new Index[0]);
+    }
+
+    /**
+     * Constructs a {@link TriHashMap} with the entries of the specified map, maintaining the specified secondary indexes.
+     *
+     * @param map the map whose entries are to be placed in this map
+     * @param indexes the secondary indexes to maintain
+     */
+    public TriHashMap(@NonNull TriMap<K1, K2, V> map, @NonNull Index... indexes) {
+        this(indexes);
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        map.forEach((key1, key2, value) -> put(key1, key2, value));
+        event.finish(this, size, null, "copy", size);
+    }
+
+    /**
+     * Returns the {@link ViolationPolicy} of the exceptions thrown by this map.
+     *
+     * @return the policy of this map, or the global policy if this map does not have one
+     */
+    public @NonNull ViolationPolicy getViolationPolicy() {
+        return violationPolicy != null ? violationPolicy : ViolationPolicy.getGlobal();
     }
 
     @Override
-    public @NonNull V get(@NonNull K1 key1, @NonNull K2 key2) {
-        if (!containsKey1(key1)) {
-            throw new KeyDoesNotExistException(key1.toString(), map);
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            metrics = null;
+        } else if (metrics == null) {
+            metrics = new MapMetrics(map.size());
         }
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The rows are those of the first keys, the chains and the capacity are those of the table of the rows.</p>
+     */
+    @Override
+    public @NonNull MetricsSnapshot metrics() {
+        final MapMetrics metrics = this.metrics;
+        return (metrics != null ? metrics : new MapMetrics(map.size())).snapshot(map.keySet(), size, map.size());
+    }
+
+    @Override
+    public @NonNull V get(@NonNull K1 key1, @NonNull K2 key2) {
         final Map<K2, V> map2 = map.get(key1);
-        if (!map2.containsKey(key2)) {
-            throw new KeyDoesNotExistException(key2.toString(), map2);
+        if (map2 == null) {
+            recordGet(false);
+            throw violation(key1, new KeyDoesNotExistException(key1, map, getViolationPolicy()));
+        }
+        final V value = map2.get(key2);
+        recordGet(value != null);
+        if (value == null) {
+            throw violation(key2, new KeyDoesNotExistException(key2, map2, getViolationPolicy()));
         }
-        return map2.get(key2);
+        return value;
     }
 
     @Override
     public void put(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
-        if (!containsKey1(key1)) {
-            map.put(key1, new HashMap<>());
+        final Map<K2, V> map2 = insert(key1, key2, value);
+        if (map2 != null) {
+            throw violation(key2, new KeyAlreadyExistsException(key2, map2, getViolationPolicy()));
+        }
+    }
+
+    @Override
+    public V tryGet(@NonNull K1 key1, @NonNull K2 key2) {
+        final Map<K2, V> map2 = map.get(key1);
+        final V value = map2 == null ? null : map2.get(key2);
+        recordGet(value != null);
+        return value;
+    }
+
+    @Override
+    public boolean tryPut(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
+        return insert(key1, key2, value) == null;
+    }
+
+    /**
+     * Stores the value unless the keys exist. An insertion that may grow the table of the rows
+     * or the table of its row is timed by a {@link ResizeEvent}.
+     *
+     * @return {@code null} if the value was stored, otherwise the row already holding the second key
+     */
+    private Map<K2, V> insert(K1 key1, K2 key2, V value) {
+        ResizeEvent event = ResizeEvent.isThreshold(map.size()) ? ResizeEvent.start() : null;
+        final Map<K2, V> map2 = map.computeIfAbsent(key1, key -> new HashMap<>());
+        final int cells = map2.size();
+        final boolean rowGrows = ResizeEvent.isThreshold(cells);
+        if (event == null && rowGrows) {
+            event = ResizeEvent.start();
+        }
+        if (map2.putIfAbsent(key2, value) != null) {
+            recordPut(map2, false);
+            return map2;
         }
+        size++;
+        indexInsert(key1, key2, value);
+        recordPut(map2, true);
+        if (event != null) {
+            if (rowGrows) {
+                event.finish(this, size, key2, cells + 1);
+            } else if (cells == 0) {
+                // a new row was added to the table of the rows
+                event.finish(this, size, key1, map.size());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V tryRemove(@NonNull K1 key1, @NonNull K2 key2) {
         final Map<K2, V> map2 = map.get(key1);
-        if (map2.containsKey(key2)) {
-            throw new KeyAlreadyExistsException(key2.toString(), map2);
+        if (map2 == null) {
+            return null;
         }
-        map2.put(key2, value);
+        final V value = map2.remove(key2);
+        if (value != null) {
+            size--;
+            indexRemove(key1, key2, value);
+        }
+        if (map2.isEmpty()) {
+            map.remove(key1);
+        }
+        return value;
     }
 
     @Override
     public @NonNull V replace(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value) {
         V oldValue = get(key1, key2);
         map.get(key1).replace(key2, value);
+        indexReplace(key1, key2, oldValue, value);
         return oldValue;
     }
 
     @Override
     public int size() {
-        int size = 0;
-        for (Map.Entry<K1, Map<K2, V>> entry : map.entrySet()) {
-            size += entry.getValue().size();
-        }
         return size;
     }
 
     @Override
     public boolean isEmpty() {
-        return map.isEmpty();
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of distinct first keys.
+     *
+     * @return the number of rows
+     */
+    public int rowCount() {
+        return map.size();
+    }
+
+    /**
+     * Returns the number of distinct second keys.
+     * <p>Constant time with {@link Index#KEY2}, otherwise every row is walked.</p>
+     *
+     * @return the number of columns
+     */
+    public int columnCount() {
+        if (key2Index != null) {
+            return key2Index.size();
+        }
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        final Set<K2> columns = new HashSet<>();
+        for (Map<K2, V> row : map.values()) {
+            columns.addAll(row.keySet());
+        }
+        event.finish(this, size, null, "columnCount", size);
+        return columns.size();
     }
 
     @Override
@@ -97,8 +299,15 @@ public class TriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
         return map.containsKey(key);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Constant time with {@link Index#KEY2}, otherwise probes every row.</p>
+     */
     @Override
     public boolean containsKey2(K2 key) {
+        if (key2Index != null) {
+            return key2Index.containsKey(key);
+        }
         for (Map<K2, V> value : map.values()) {
             if (value.containsKey(key)) {
                 return true;
@@ -107,13 +316,45 @@ public class TriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
         return false;
     }
 
+    /**
+     * Returns the values stored under the second key, mapped by the first keys they are stored under.
+     * <p>Constant time with {@link Index#KEY2}, the returned map is then a live view of the column.
+     * Otherwise every row is probed and the returned map is a snapshot.</p>
+     *
+     * @param key2 the second key
+     * @return an unmodifiable map of the first keys to the values, empty if the second key does not exist
+     */
+    public @NonNull Map<K1, V> column(@NonNull K2 key2) {
+        if (key2Index != null) {
+            final Map<K1, V> column = key2Index.get(key2);
+            return column == null ? Collections.emptyMap() : Collections.unmodifiableMap(column);
+        }
+        final BulkOperationEvent event = BulkOperationEvent.start();
+        final Map<K1, V> column = new HashMap<>();
+        for (Map.Entry<K1, Map<K2, V>> entry : map.entrySet()) {
+            final V value = entry.getValue().get(key2);
+            if (value != null) {
+                column.put(entry.getKey(), value);
+            }
+        }
+        event.finish(this, size, key2, "column", map.size());
+        return Collections.unmodifiableMap(column);
+    }
+
     @Override
     public boolean containsKeys(K1 key1, K2 key2) {
         return containsKey1(key1) && map.get(key1).containsKey(key2);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Constant time with {@link Index#VALUE}, otherwise every row is scanned.</p>
+     */
     @Override
     public boolean containsValue(V value) {
+        if (valueIndex != null) {
+            return value != null && valueIndex.containsKey(value);
+        }
         for (Map<K2, V> vMap : map.values()) {
             if (vMap.containsValue(value)) {
                 return true;
@@ -124,29 +365,275 @@ public class TriHashMap<K1, K2, V> implements TriMap<K1, K2, V> {
 
     @Override
     public void forEach(@NonNull Consumer<Entry<K1, K2, V>> consumer) {
-        entrySet().forEach(consumer);
+        for (Map.Entry<K1, Map<K2, V>> row : map.entrySet()) {
+            for (Map.Entry<K2, V> cell : row.getValue().entrySet()) {
+                consumer.accept(new CellEntry(row.getKey(), cell));
+            }
+        }
     }
 
     @Override
-    public @NonNull Set<Entry<K1, K2, V>> entrySet() {
-        final Set<Entry<K1, K2, V>> set = new HashSet<>();
-        for (Map.Entry<K1, Map<K2, V>> entry : map.entrySet()) {
-            for (Map.Entry<K2, V> vEntry : entry.getValue().entrySet()) {
-                set.add(new SimpleTriEntry<>(entry.getKey(), vEntry.getKey(), vEntry.getValue()));
+    public void forEach(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        for (Map.Entry<K1, Map<K2, V>> row : map.entrySet()) {
+            final K1 key1 = row.getKey();
+            for (Map.Entry<K2, V> cell : row.getValue().entrySet()) {
+                action.accept(key1, cell.getKey(), cell.getValue());
             }
         }
-        return set;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, entries can be removed through its iterator
+     * and their values set through {@link Entry#setValue(Object)}.</p>
+     */
+    @Override
+    public @NonNull Set<Entry<K1, K2, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The view is backed by this map, values can be removed through its iterator.</p>
+     */
     @Override
     public @NonNull Collection<V> values() {
-        final Collection<V> collection = new HashSet<>();
-        for (Map.Entry<K1, Map<K2, V>> entry : map.entrySet()) {
-            for (Map.Entry<K2, V> vEntry : entry.getValue().entrySet()) {
-                collection.add(vEntry.getValue());
+        if (values == null) {
+            values = new Values();
+        }
+        return values;
+    }
+
+    private <E extends RuntimeException> E violation(Object key, E exception) {
+        KeyViolationEvent.emit(this, size, key, exception, 1);
+        return exception;
+    }
+
+    private void recordGet(boolean hit) {
+        final MapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordGet(hit);
+        }
+    }
+
+    private void recordPut(Map<K2, V> row, boolean stored) {
+        final MapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordPut(stored);
+            if (stored) {
+                // rows are never empty, a row holding a single cell was just created
+                if (row.size() == 1) {
+                    metrics.recordSize(map.size());
+                }
+                metrics.recordNestedSize(row.size());
+            }
+        }
+    }
+
+    private void indexInsert(K1 key1, K2 key2, V value) {
+        if (key2Index != null) {
+            key2Index.computeIfAbsent(key2, key -> new HashMap<>()).put(key1, value);
+        }
+        if (valueIndex != null) {
+            valueIndex.merge(value, 1, Integer::sum);
+        }
+    }
+
+    private void indexRemove(K1 key1, K2 key2, V value) {
+        if (key2Index != null) {
+            final Map<K1, V> column = key2Index.get(key2);
+            column.remove(key1);
+            if (column.isEmpty()) {
+                key2Index.remove(key2);
+            }
+        }
+        if (valueIndex != null) {
+            valueIndex.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private void indexReplace(K1 key1, K2 key2, V oldValue, V value) {
+        if (key2Index != null) {
+            key2Index.get(key2).put(key1, value);
+        }
+        if (valueIndex != null) {
+            valueIndex.computeIfPresent(oldValue, (key, count) -> count == 1 ? null : count - 1);
+            valueIndex.merge(value, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Walks the cells row by row. Rows are never empty, so the next row always holds the next cell
+     * and the row iterator is advanced only by {@link #nextCell()}, which keeps it on the row
+     * of the last returned cell for {@link #remove()}.
+     */
+    private abstract class CellIterator<T> implements Iterator<T> {
+
+        private final Iterator<Map.Entry<K1, Map<K2, V>>> rows = map.entrySet().iterator();
+        private Map.Entry<K1, Map<K2, V>> row;
+        private Iterator<Map.Entry<K2, V>> cells = Collections.emptyIterator();
+        private Map.Entry<K2, V> cell;
+
+        @Override
+        public boolean hasNext() {
+            return cells.hasNext() || rows.hasNext();
+        }
+
+        protected K1 key1() {
+            return row.getKey();
+        }
+
+        protected Map.Entry<K2, V> nextCell() {
+            if (!cells.hasNext()) {
+                row = rows.next();
+                cells = row.getValue().entrySet().iterator();
+            }
+            cell = cells.next();
+            return cell;
+        }
+
+        @Override
+        public void remove() {
+            if (cell == null) {
+                throw new IllegalStateException();
             }
+            cells.remove();
+            size--;
+            indexRemove(row.getKey(), cell.getKey(), cell.getValue());
+            if (row.getValue().isEmpty()) {
+                rows.remove();
+            }
+            cell = null;
+        }
+
+    }
+
+    private final class CellEntry extends AbstractTriEntry<K1, K2, V> {
+
+        private final K1 key1;
+        private final Map.Entry<K2, V> cell;
+
+        private CellEntry(K1 key1, Map.Entry<K2, V> cell) {
+            this.key1 = key1;
+            this.cell = cell;
+        }
+
+        @Override
+        public @NonNull K1 getKey1() {
+            return key1;
         }
-        return collection;
+
+        @Override
+        public @NonNull K2 getKey2() {
+            return cell.getKey();
+        }
+
+        @Override
+        public @NonNull V getValue() {
+            return cell.getValue();
+        }
+
+        @Override
+        public V setValue(@NonNull V value) {
+            final V oldValue = cell.setValue(value);
+            indexReplace(key1, cell.getKey(), oldValue, value);
+            return oldValue;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K1, K2, V>> {
+
+        @Override
+        public @NonNull Iterator<Entry<K1, K2, V>> iterator() {
+            return new CellIterator<>() {
+                @Override
+                public Entry<K1, K2, V> next() {
+                    final Map.Entry<K2, V> cell = nextCell();
+                    return new CellEntry(key1(), cell);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?, ?> entry = (Entry<?, ?, ?>) o;
+            final Map<K2, V> row = map.get(entry.getKey1());
+            return row != null && entry.getValue().equals(row.get(entry.getKey2()));
+        }
+
+        @Override
+        public Spliterator<Entry<K1, K2, V>> spliterator() {
+            return new RowSpliterator<>(map.entrySet().spliterator(), CellEntry::new, Spliterator.DISTINCT | Spliterator.NONNULL, size);
+        }
+
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public @NonNull Iterator<V> iterator() {
+            return new CellIterator<>() {
+                @Override
+                public V next() {
+                    return nextCell().getValue();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (valueIndex != null) {
+                return o != null && valueIndex.containsKey(o);
+            }
+            for (Map<K2, V> row : map.values()) {
+                if (row.containsValue(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new RowSpliterator<>(map.entrySet().spliterator(), (key1, cell) -> cell.getValue(), Spliterator.NONNULL, size);
+        }
+
+    }
+
+    /**
+     * Secondary indexes a {@link TriHashMap} can maintain next to its rows.
+     */
+    public enum Index {
+
+        /**
+         * index of the values by the second and then the first key, makes {@link TriHashMap#containsKey2(Object)}
+         * and {@link TriHashMap#column(Object)} independent of the number of rows at the cost of a second entry per value
+         */
+        KEY2,
+
+        /**
+         * count of the cells holding each value, makes {@link TriHashMap#containsValue(Object)}
+         * independent of the number of values at the cost of an entry per distinct value
+         */
+        VALUE
+
     }
 
 }
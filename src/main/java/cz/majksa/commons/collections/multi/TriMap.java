@@ -18,12 +18,22 @@
 
 package cz.majksa.commons.collections.multi;
 
+import cz.majksa.commons.collections.function.TriConsumer;
 import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <p><b>Class {@link cz.majksa.commons.collections.multi.TriMap}</b></p>
@@ -38,6 +48,35 @@ public interface TriMap<K1, K2, V> {
 
     void put(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value);
 
+    /**
+     * Looks up the value stored under the keys without throwing on a miss.
+     * Values are never {@code null}, so {@code null} is returned only for missing keys.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the value, or {@code null} if the keys do not exist
+     */
+    @Nullable V tryGet(@NonNull K1 key1, @NonNull K2 key2);
+
+    /**
+     * Stores the value under the keys if they do not exist yet, without throwing if they do.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @param value the value
+     * @return {@code true} if the value was stored, {@code false} if the keys already exist
+     */
+    boolean tryPut(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value);
+
+    /**
+     * Removes the value stored under the keys without throwing if they do not exist.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the removed value, or {@code null} if the keys do not exist
+     */
+    @Nullable V tryRemove(@NonNull K1 key1, @NonNull K2 key2);
+
     @NonNull V replace(@NonNull K1 key1, @NonNull K2 key2, @NonNull V value);
 
     int size();
@@ -54,10 +93,167 @@ public interface TriMap<K1, K2, V> {
 
     void forEach(@NonNull Consumer<Entry<K1, K2, V>> consumer);
 
+    /**
+     * Performs the action for every entry of this map, without exposing the entries as objects.
+     *
+     * @param action the action to be performed for the keys and the value of every entry
+     */
+    default void forEach(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        forEach(entry -> action.accept(entry.getKey1(), entry.getKey2(), entry.getValue()));
+    }
+
+    /**
+     * Returns a set view of the entries of this map.
+     *
+     * @return the entries of this map
+     */
     @NonNull Set<Entry<K1, K2, V>> entrySet();
 
+    /**
+     * Returns a collection view of the values of this map, a value is contained once for every entry holding it.
+     *
+     * @return the values of this map
+     */
     @NonNull Collection<V> values();
 
+    /**
+     * Returns a sequential {@link Stream} of the entries of this map.
+     *
+     * @return a stream over {@link #entrySet()}
+     */
+    default @NonNull Stream<Entry<K1, K2, V>> stream() {
+        return StreamSupport.stream(entrySet().spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@link Stream} of the entries of this map.
+     * It runs in the pool of the calling task, or in {@link ForkJoinPool#commonPool()} outside of one.
+     *
+     * @return a parallel stream over {@link #entrySet()}
+     */
+    default @NonNull Stream<Entry<K1, K2, V>> parallelStream() {
+        return StreamSupport.stream(entrySet().spliterator(), true);
+    }
+
+    /**
+     * Performs the action for every entry of this map in parallel, in {@link ForkJoinPool#commonPool()}.
+     *
+     * @param action the action to be performed for the keys and the value of every entry
+     * @see #forEachParallel(ForkJoinPool, TriConsumer)
+     */
+    default void forEachParallel(@NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        forEachParallel(ForkJoinPool.commonPool(), action);
+    }
+
+    /**
+     * Performs the action for every entry of this map in parallel, in the given pool.
+     * The action is called concurrently and in no particular order, the map must not be modified
+     * until this method returns unless it is thread-safe.
+     *
+     * @param pool   the pool to run in
+     * @param action the action to be performed for the keys and the value of every entry
+     */
+    default void forEachParallel(@NonNull ForkJoinPool pool, @NonNull TriConsumer<? super K1, ? super K2, ? super V> action) {
+        pool.invoke(ForkJoinTask.adapt(() -> parallelStream()
+                .forEach(entry -> action.accept(entry.getKey1(), entry.getKey2(), entry.getValue()))));
+    }
+
+    /**
+     * Reduces the transformed values of this map in parallel, in {@link ForkJoinPool#commonPool()}.
+     *
+     * @param transformer the transformation of a value, {@code null} to skip it
+     * @param reducer     the commutative and associative accumulation of two transformed values
+     * @param <U>         the type of the transformed values
+     * @return the accumulation of all transformed values, or {@code null} if there are none
+     * @see #reduceValues(ForkJoinPool, Function, BiFunction)
+     */
+    default <U> @Nullable U reduceValues(@NonNull Function<? super V, ? extends U> transformer,
+                                         @NonNull BiFunction<? super U, ? super U, ? extends U> reducer) {
+        return reduceValues(ForkJoinPool.commonPool(), transformer, reducer);
+    }
+
+    /**
+     * Reduces the transformed values of this map in parallel, in the given pool,
+     * like {@link java.util.concurrent.ConcurrentHashMap#reduceValues(long, Function, BiFunction)}.
+     *
+     * @param pool        the pool to run in
+     * @param transformer the transformation of a value, {@code null} to skip it
+     * @param reducer     the commutative and associative accumulation of two transformed values
+     * @param <U>         the type of the transformed values
+     * @return the accumulation of all transformed values, or {@code null} if there are none
+     */
+    default <U> @Nullable U reduceValues(@NonNull ForkJoinPool pool, @NonNull Function<? super V, ? extends U> transformer,
+                                         @NonNull BiFunction<? super U, ? super U, ? extends U> reducer) {
+        return pool.invoke(ForkJoinTask.adapt(() -> StreamSupport.stream(values().spliterator(), true)
+                .<U>map(transformer)
+                .filter(Objects::nonNull)
+                .reduce(reducer::apply)
+                .orElse(null)));
+    }
+
+    /**
+     * Reduces the values of this map transformed to {@code long}s in parallel, in {@link ForkJoinPool#commonPool()}.
+     *
+     * @param transformer the transformation of a value
+     * @param basis       the identity of the reduction
+     * @param reducer     the commutative and associative accumulation of two transformed values
+     * @return the accumulation of all transformed values and the basis
+     * @see #reduceValuesToLong(ForkJoinPool, ToLongFunction, long, LongBinaryOperator)
+     */
+    default long reduceValuesToLong(@NonNull ToLongFunction<? super V> transformer, long basis,
+                                    @NonNull LongBinaryOperator reducer) {
+        return reduceValuesToLong(ForkJoinPool.commonPool(), transformer, basis, reducer);
+    }
+
+    /**
+     * Reduces the values of this map transformed to {@code long}s in parallel, in the given pool,
+     * like {@link java.util.concurrent.ConcurrentHashMap#reduceValuesToLong(long, ToLongFunction, long, LongBinaryOperator)}.
+     * No object is allocated per value.
+     *
+     * @param pool        the pool to run in
+     * @param transformer the transformation of a value
+     * @param basis       the identity of the reduction
+     * @param reducer     the commutative and associative accumulation of two transformed values
+     * @return the accumulation of all transformed values and the basis
+     */
+    default long reduceValuesToLong(@NonNull ForkJoinPool pool, @NonNull ToLongFunction<? super V> transformer, long basis,
+                                    @NonNull LongBinaryOperator reducer) {
+        return pool.invoke(ForkJoinTask.adapt(() -> StreamSupport.stream(values().spliterator(), true)
+                .mapToLong(transformer)
+                .reduce(basis, reducer)));
+    }
+
+    /**
+     * Searches the keys of this map in parallel, in {@link ForkJoinPool#commonPool()}.
+     *
+     * @param searchFunction the search of a pair of keys, returning {@code null} on a mismatch
+     * @param <U>            the type of the search result
+     * @return a non-{@code null} result of the search function, or {@code null} if there is none
+     * @see #searchKeys(ForkJoinPool, BiFunction)
+     */
+    default <U> @Nullable U searchKeys(@NonNull BiFunction<? super K1, ? super K2, ? extends U> searchFunction) {
+        return searchKeys(ForkJoinPool.commonPool(), searchFunction);
+    }
+
+    /**
+     * Searches the keys of this map in parallel, in the given pool,
+     * like {@link java.util.concurrent.ConcurrentHashMap#searchKeys(long, Function)}.
+     * The search stops once a result is found, which of several matching keys gives the result is unspecified.
+     *
+     * @param pool           the pool to run in
+     * @param searchFunction the search of a pair of keys, returning {@code null} on a mismatch
+     * @param <U>            the type of the search result
+     * @return a non-{@code null} result of the search function, or {@code null} if there is none
+     */
+    default <U> @Nullable U searchKeys(@NonNull ForkJoinPool pool,
+                                       @NonNull BiFunction<? super K1, ? super K2, ? extends U> searchFunction) {
+        return pool.invoke(ForkJoinTask.adapt(() -> parallelStream()
+                .<U>map(entry -> searchFunction.apply(entry.getKey1(), entry.getKey2()))
+                .filter(Objects::nonNull)
+                .findAny()
+                .orElse(null)));
+    }
+
     interface Entry<K1, K2, V> {
 
         @NonNull K1 getKey1();
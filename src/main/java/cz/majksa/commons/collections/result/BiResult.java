@@ -21,6 +21,8 @@ package cz.majksa.commons.collections.result;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.io.Serializable;
+
 /**
  * <p><b>Class {@link cz.majksa.commons.collections.result.BiResult}</b></p>
  *
@@ -30,7 +32,9 @@ import lombok.RequiredArgsConstructor;
  */
 @Getter
 @RequiredArgsConstructor
-public class BiResult<A, B> {
+public class BiResult<A, B> implements Serializable {
+
+    private static final long serialVersionUID = 333668809727144549L;
 
     private final A first;
     private final B second;
@@ -0,0 +1,48 @@
+/*
+ *  collections - cz.majksa.commons.collections.cz.majksa.commons.collections.result.Slot
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.result;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.result.Slot}</b></p>
+ * <p>Mutable out-parameter of the non-throwing lookups. A single slot is meant to be reused
+ * across calls, so that reporting a value does not allocate.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class Slot<T> {
+
+    private T value;
+
+    /**
+     * Drops the held value, so that the slot does not keep it reachable.
+     */
+    public void clear() {
+        value = null;
+    }
+
+}
@@ -21,6 +21,8 @@ package cz.majksa.commons.collections.result;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.io.Serializable;
+
 /**
  * <p><b>Class {@link cz.majksa.commons.collections.result.TriResult}</b></p>
  *
@@ -30,7 +32,9 @@ import lombok.RequiredArgsConstructor;
  */
 @Getter
 @RequiredArgsConstructor
-public class TriResult<A, B, C> {
+public class TriResult<A, B, C> implements Serializable {
+
+    private static final long serialVersionUID = 8421066326959949186L;
 
     private final A first;
     private final B second;
@@ -0,0 +1,214 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.ExpiringCheckedMapTest
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.map.ExpiringCheckedMapTest}</b></p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class ExpiringCheckedMapTest {
+
+    /**
+     * mirrors the tick of each level of the wheel, as a power of two nanoseconds
+     */
+    private static final int[] SHIFTS = {20, 26, 32, 38, 44, 50};
+
+    /**
+     * the tick of the finest level
+     */
+    private static final long TICK = 1L << SHIFTS[0];
+
+    /**
+     * the time read by the map
+     */
+    private long now;
+
+    private ExpiringCheckedMap<String, String> map;
+
+    /**
+     * the entries reported to the expiration listener, in order
+     */
+    private List<String> expired;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        map = new ExpiringCheckedMap<>(null, () -> now);
+        expired = new ArrayList<>();
+        map.setExpirationListener((key, value) -> expired.add(key + "=" + value));
+    }
+
+    private static Duration nanos(long nanos) {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Moves the time to the specified instant and lets the wheel remove the expired entries.
+     */
+    private void tickTo(long time) {
+        now = time;
+        map.cleanUp();
+    }
+
+    @Test
+    void wheelExpiresEntriesAroundEachLevelBoundary() {
+        final Random random = new Random(7);
+        for (int level = 0; level < SHIFTS.length; level++) {
+            setUp();
+            // start inside a tick of every level, so that no level is aligned with the entries
+            now = random.nextLong() & ((1L << 56) - 1);
+            final long start = now;
+            final Map<String, Long> expiries = new HashMap<>();
+            final long boundary = 1L << SHIFTS[level];
+            for (long delay : new long[]{boundary - 1, boundary, boundary + 1, 3 * boundary - TICK / 3, 63 * boundary + 1}) {
+                final String key = level + ":" + delay;
+                map.put(key, "v", nanos(delay));
+                expiries.put(key, start + delay);
+            }
+
+            final long end = start + 64 * boundary + TICK;
+            final long step = Math.max(1, boundary >> 4);
+            while (now < end) {
+                tickTo(now + step / 2 + (random.nextLong() & (step - 1)));
+                for (Map.Entry<String, Long> entry : expiries.entrySet()) {
+                    final long expiry = entry.getValue();
+                    final boolean removed = expired.contains(entry.getKey() + "=v");
+                    if (removed) {
+                        assertTrue(expiry - now <= 0, () -> entry.getKey() + " expired early at " + (now - start));
+                    }
+                    if ((now >> SHIFTS[0]) > (expiry >> SHIFTS[0])) {
+                        assertTrue(removed, () -> entry.getKey() + " not expired at " + (now - start));
+                    }
+                }
+            }
+            assertEquals(expiries.size(), expired.size());
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    void entriesCascadeFromCoarserLevelsIntoTheFinest() {
+        // level 2, then level 1, then level 0 before it expires
+        final long delay = (1L << SHIFTS[2]) + 5 * (1L << SHIFTS[1]) + 7 * TICK + 1;
+        map.put("a", "1", nanos(delay));
+
+        tickTo(1L << SHIFTS[2]);
+        assertTrue(expired.isEmpty());
+        tickTo((1L << SHIFTS[2]) + 5 * (1L << SHIFTS[1]));
+        assertTrue(expired.isEmpty());
+        tickTo(delay - 1);
+        assertTrue(expired.isEmpty());
+        assertEquals(nanos(1), map.getTimeToLive("a"));
+        tickTo(delay + TICK);
+        assertEquals(List.of("a=1"), expired);
+        assertFalse(map.containsKey("a"));
+    }
+
+    @Test
+    void idleGapLongerThanWholeLevelExpiresEverythingDue() {
+        map.put("short", "1", nanos(10 * TICK));
+        map.put("wrapping", "2", nanos(63 * TICK));
+        map.put("coarse", "3", nanos(100 * TICK));
+        map.put("far", "4", nanos(1000 * TICK));
+        map.put("farther", "5", nanos(200 * (1L << SHIFTS[1])));
+        map.put("forever", "6");
+
+        tickTo(130 * TICK);
+        assertEquals(List.of("short=1", "wrapping=2", "coarse=3"), expired);
+        assertEquals(3, map.size());
+
+        tickTo(1000 * TICK + 1);
+        assertEquals(List.of("short=1", "wrapping=2", "coarse=3", "far=4"), expired);
+
+        // more than 64 ticks of the second level at once
+        tickTo(300 * (1L << SHIFTS[1]));
+        assertEquals(List.of("short=1", "wrapping=2", "coarse=3", "far=4", "farther=5"), expired);
+        assertEquals(Map.of("forever", "6"), new HashMap<>(map));
+    }
+
+    @Test
+    void setTimeToLiveReschedulesTheEntry() {
+        map.put("longer", "1", nanos(10 * TICK));
+        map.put("shorter", "2", nanos(1000 * TICK));
+        map.put("never", "3", nanos(10 * TICK));
+
+        tickTo(5 * TICK);
+        map.setTimeToLive("longer", nanos(100 * TICK));
+        map.setTimeToLive("shorter", nanos(2 * TICK));
+        map.setTimeToLive("never", null);
+        assertNull(map.getTimeToLive("never"));
+
+        tickTo(8 * TICK);
+        assertEquals(List.of("shorter=2"), expired);
+        tickTo(20 * TICK);
+        assertEquals(List.of("shorter=2"), expired);
+        assertEquals(nanos(85 * TICK), map.getTimeToLive("longer"));
+
+        tickTo(106 * TICK);
+        assertEquals(List.of("shorter=2", "longer=1"), expired);
+        tickTo(1L << SHIFTS[5]);
+        assertEquals(Map.of("never", "3"), new HashMap<>(map));
+    }
+
+    @Test
+    void putReplacesExpiredEntryNotYetRemovedByTheWheel() {
+        map.put("a", "old", nanos(TICK / 2));
+        // still within the first tick, the wheel has not removed the entry
+        now = TICK / 2 + 1;
+        map.put("a", "new");
+        assertEquals(List.of("a=old"), expired);
+        assertEquals("new", map.get("a"));
+
+        // the stale node must not remove the new entry
+        tickTo(100 * TICK);
+        assertEquals(List.of("a=old"), expired);
+        assertEquals("new", map.get("a"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void putOverLiveKeyThrows() {
+        map.put("a", "1", nanos(10 * TICK));
+        tickTo(5 * TICK);
+        assertThrows(KeyAlreadyExistsException.class, () -> map.put("a", "2"));
+        assertFalse(map.tryPut("a", "2"));
+        assertEquals("1", map.get("a"));
+        tickTo(11 * TICK);
+        assertEquals(List.of("a=1"), expired);
+        assertTrue(map.tryPut("a", "2"));
+        assertEquals("2", map.get("a"));
+    }
+
+}
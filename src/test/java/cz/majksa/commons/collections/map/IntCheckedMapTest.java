@@ -0,0 +1,106 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.IntCheckedMapTest
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.map.IntCheckedMapTest}</b></p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class IntCheckedMapTest extends PrimitiveCheckedMapTest {
+
+    @Override
+    Subject create(int expectedSize) {
+        final IntCheckedMap<Long> map = new IntCheckedMap<>(expectedSize);
+        return new Subject() {
+            @Override
+            public int capacity() {
+                return map.capacity();
+            }
+
+            @Override
+            public int home(long key) {
+                return IntCheckedMap.home((int) key, map.capacity() - 1);
+            }
+
+            @Override
+            public void put(long key, long value) {
+                map.put((int) key, value);
+            }
+
+            @Override
+            public boolean tryPut(long key, long value) {
+                return map.tryPut((int) key, value);
+            }
+
+            @Override
+            public long get(long key) {
+                return map.get((int) key);
+            }
+
+            @Override
+            public long getOrDefault(long key, long defaultValue) {
+                return map.getOrDefault((int) key, defaultValue);
+            }
+
+            @Override
+            public long replace(long key, long value) {
+                return map.replace((int) key, value);
+            }
+
+            @Override
+            public long remove(long key) {
+                return map.remove((int) key);
+            }
+
+            @Override
+            public boolean tryRemove(long key) {
+                return map.tryRemove((int) key) != null;
+            }
+
+            @Override
+            public boolean containsKey(long key) {
+                return map.containsKey((int) key);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public Map<Long, Long> entries() {
+                final Map<Long, Long> entries = new HashMap<>();
+                map.forEachEntry((key, value) -> entries.put((long) key, value));
+                return entries;
+            }
+        };
+    }
+
+    @Override
+    long key(int index) {
+        return index;
+    }
+
+}
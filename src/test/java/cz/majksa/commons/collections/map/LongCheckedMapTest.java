@@ -0,0 +1,119 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.LongCheckedMapTest
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.map.LongCheckedMapTest}</b></p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+class LongCheckedMapTest extends PrimitiveCheckedMapTest {
+
+    @Override
+    Subject create(int expectedSize) {
+        final LongCheckedMap map = new LongCheckedMap(expectedSize);
+        return new Subject() {
+            @Override
+            public int capacity() {
+                return map.capacity();
+            }
+
+            @Override
+            public int home(long key) {
+                return LongCheckedMap.home(key, map.capacity() - 1);
+            }
+
+            @Override
+            public void put(long key, long value) {
+                map.put(key, value);
+            }
+
+            @Override
+            public boolean tryPut(long key, long value) {
+                return map.tryPut(key, value);
+            }
+
+            @Override
+            public long get(long key) {
+                return map.get(key);
+            }
+
+            @Override
+            public long getOrDefault(long key, long defaultValue) {
+                return map.getOrDefault(key, defaultValue);
+            }
+
+            @Override
+            public long replace(long key, long value) {
+                return map.replace(key, value);
+            }
+
+            @Override
+            public long remove(long key) {
+                return map.remove(key);
+            }
+
+            @Override
+            public boolean tryRemove(long key) {
+                return map.tryRemove(key);
+            }
+
+            @Override
+            public boolean containsKey(long key) {
+                return map.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public Map<Long, Long> entries() {
+                final Map<Long, Long> entries = new HashMap<>();
+                map.forEachEntry(entries::put);
+                return entries;
+            }
+        };
+    }
+
+    @Override
+    long key(int index) {
+        return (long) index << 32;
+    }
+
+    @Test
+    void freeKeyIsStoredBesideTheTable() {
+        final LongCheckedMap map = new LongCheckedMap(0);
+        map.put(0, 7);
+        assertTrue(map.containsValue(7));
+        map.remove(0);
+        assertFalse(map.containsValue(7));
+    }
+
+}
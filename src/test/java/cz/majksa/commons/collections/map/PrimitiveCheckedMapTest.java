@@ -0,0 +1,200 @@
+/*
+ *  collections - cz.majksa.commons.collections.map.PrimitiveCheckedMapTest
+ *  Copyright (C) 2021  Majksa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cz.majksa.commons.collections.map;
+
+import cz.majksa.commons.collections.exceptions.KeyAlreadyExistsException;
+import cz.majksa.commons.collections.exceptions.KeyDoesNotExistException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p><b>Class {@link cz.majksa.commons.collections.map.PrimitiveCheckedMapTest}</b></p>
+ * <p>Scenarios shared by the open-addressing maps with primitive keys, run against each of them
+ * through a {@link Subject} with {@code long} keys and values.</p>
+ *
+ * @author majksa
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+abstract class PrimitiveCheckedMapTest {
+
+    /**
+     * One of the maps under test, its keys and values widened to {@code long}.
+     */
+    interface Subject {
+
+        int capacity();
+
+        int home(long key);
+
+        void put(long key, long value);
+
+        boolean tryPut(long key, long value);
+
+        long get(long key);
+
+        long getOrDefault(long key, long defaultValue);
+
+        long replace(long key, long value);
+
+        long remove(long key);
+
+        boolean tryRemove(long key);
+
+        boolean containsKey(long key);
+
+        int size();
+
+        Map<Long, Long> entries();
+
+    }
+
+    /**
+     * Creates an empty map able to hold the expected number of entries without growing.
+     */
+    abstract Subject create(int expectedSize);
+
+    /**
+     * Spreads the index over the keys of the map, so that the keys differ in their high bits where there are any.
+     */
+    abstract long key(int index);
+
+    private long[] keysWithHome(Subject map, int home, int count) {
+        final long[] keys = new long[count];
+        int found = 0;
+        for (int index = 1; found < count; index++) {
+            if (map.home(key(index)) == home) {
+                keys[found++] = key(index);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void removeShiftsBackChainWrappingAroundTheTable() {
+        final Subject map = create(0);
+        final int capacity = map.capacity();
+        final long[] last = keysWithHome(map, capacity - 1, 3);
+        final long[] first = keysWithHome(map, 0, 1);
+        // occupies the last slot and the first three
+        for (long key : last) {
+            map.put(key, ~key);
+        }
+        map.put(first[0], ~first[0]);
+        assertEquals(capacity, map.capacity());
+
+        assertEquals(~last[0], map.remove(last[0]));
+        assertFalse(map.containsKey(last[0]));
+        assertEquals(~last[1], map.get(last[1]));
+        assertEquals(~last[2], map.get(last[2]));
+        assertEquals(~first[0], map.get(first[0]));
+
+        assertEquals(~last[2], map.remove(last[2]));
+        assertEquals(~last[1], map.get(last[1]));
+        assertEquals(~first[0], map.get(first[0]));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void zeroKeyBehavesLikeAnyOther() {
+        final Subject map = create(0);
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.getOrDefault(0, -1));
+        assertThrows(KeyDoesNotExistException.class, () -> map.get(0));
+        assertFalse(map.tryRemove(0));
+
+        map.put(0, 0);
+        map.put(key(1), 10);
+        assertTrue(map.containsKey(0));
+        assertEquals(0, map.get(0));
+        assertEquals(2, map.size());
+        assertThrows(KeyAlreadyExistsException.class, () -> map.put(0, 5));
+        assertEquals(0, map.replace(0, 5));
+        assertEquals(Map.of(0L, 5L, key(1), 10L), map.entries());
+
+        assertEquals(5, map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(1, map.size());
+        assertEquals(10, map.get(key(1)));
+    }
+
+    @Test
+    void growsPastThreshold() {
+        final Subject map = create(0);
+        final int capacity = map.capacity();
+        map.put(0, 42);
+        for (int i = 1; i <= 2000; i++) {
+            map.put(key(i), i);
+        }
+        assertTrue(map.capacity() > capacity);
+        assertEquals(2001, map.size());
+        assertEquals(42, map.get(0));
+        for (int i = 1; i <= 2000; i++) {
+            assertEquals(i, map.get(key(i)));
+        }
+        assertFalse(map.containsKey(key(2001)));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        final Random random = new Random(42);
+        final Subject map = create(0);
+        final Map<Long, Long> expected = new HashMap<>();
+        for (long i = 0; i < 100_000; i++) {
+            final long key = key(random.nextInt(512) - 256);
+            if (random.nextBoolean()) {
+                assertEquals(expected.putIfAbsent(key, i) == null, map.tryPut(key, i));
+            } else {
+                assertEquals(expected.remove(key) != null, map.tryRemove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map.entries());
+    }
+
+    @Test
+    void missingKeysThrowKeyDoesNotExistException() {
+        final Subject map = create(16);
+        map.put(key(1), 10);
+        final KeyDoesNotExistException exception = assertThrows(KeyDoesNotExistException.class, () -> map.get(key(2)));
+        assertEquals(Long.toString(key(2)), exception.getKey());
+        assertThrows(KeyDoesNotExistException.class, () -> map.replace(key(2), 20));
+        assertThrows(KeyDoesNotExistException.class, () -> map.remove(key(2)));
+        assertFalse(map.tryRemove(key(2)));
+        assertEquals(-1, map.getOrDefault(key(2), -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void existingKeysThrowKeyAlreadyExistsException() {
+        final Subject map = create(16);
+        map.put(key(1), 10);
+        final KeyAlreadyExistsException exception = assertThrows(KeyAlreadyExistsException.class, () -> map.put(key(1), 11));
+        assertEquals(Long.toString(key(1)), exception.getKey());
+        assertFalse(map.tryPut(key(1), 11));
+        assertEquals(10, map.get(key(1)));
+        assertEquals(1, map.size());
+    }
+
+}